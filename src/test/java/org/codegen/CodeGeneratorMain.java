@@ -1,6 +1,7 @@
 package org.codegen;
 
 import org.codegen.service.CodeGeneratorManager;
+import org.codegen.service.SchemaWatcher;
 
 public class CodeGeneratorMain {
     private static final String TABLE = "sys_menu";
@@ -22,6 +23,12 @@ public class CodeGeneratorMain {
      *
      * 		3. gen_test_demo ==> IDemo 自定义名称
      * 		genCodeWithCustomName("gen_test_demo", "IDemo");
+     *
+     * 		4. 按表名模式生成整库 ==> GenTestDemo 支持 SQL LIKE 和 regex: 正则, 为 null 时生成所有表
+     * 		genCodeByPattern("gen_%");
+     *
+     * 		5. 监听表结构变化, 按 gen.watch.interval 轮询, 只重新生成有变化的表 ==> GenTestDemo
+     * 		new SchemaWatcher("gen_%").watch();
      */
     public static void main(String[] args) {
         CodeGeneratorManager cgm = new CodeGeneratorManager();
@@ -31,5 +38,11 @@ public class CodeGeneratorMain {
 		//cgm.genCodeWithDetailName(TABLES);
 
 //		cgm.genCodeWithCustomName(TABLE, MODEL_NAME);
+
+//		cgm.genCodeByPattern("sys_%");
+
+//		try (SchemaWatcher watcher = new SchemaWatcher("sys_%")) {
+//			watcher.watch();
+//		}
     }
 }
@@ -0,0 +1,95 @@
+package org.codegen.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 基准测试结果与基线比较
+ * 用法: BenchmarkComparator 基线.json 结果.json [阈值百分比, 默认 20]
+ * 两者均为 JMH 的 JSON 结果 (-rf json), 比基线慢超过阈值且置信区间不重叠的基准测试视为退化, 存在退化时以状态 1 退出
+ */
+public class BenchmarkComparator {
+
+    private static final Logger logger = LoggerFactory.getLogger(BenchmarkComparator.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            logger.error("用法: BenchmarkComparator 基线.json 结果.json [阈值百分比]");
+            System.exit(2);
+        }
+        File baselineFile = new File(args[0]);
+        if (!baselineFile.exists()) {
+            logger.warn("基线 {} 不存在, 跳过比较, 可将本次结果 {} 作为基线", args[0], args[1]);
+            return;
+        }
+        Map<String, JsonNode> baseline = load(baselineFile);
+        Map<String, JsonNode> current = load(new File(args[1]));
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 20;
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode result = entry.getValue();
+            JsonNode base = baseline.get(entry.getKey());
+            String unit = result.path("primaryMetric").path("scoreUnit").asText();
+            double score = result.path("primaryMetric").path("score").asDouble();
+            if (base == null || !unit.equals(base.path("primaryMetric").path("scoreUnit").asText())) {
+                logger.info(String.format("%-90s %12.3f %-8s (无基线)", entry.getKey(), score, unit));
+                continue;
+            }
+            double baseScore = base.path("primaryMetric").path("score").asDouble();
+            JsonNode confidence = result.path("primaryMetric").path("scoreConfidence");
+            JsonNode baseConfidence = base.path("primaryMetric").path("scoreConfidence");
+            // 吞吐量越大越好, 其余模式为耗时, 越小越好; 置信区间重叠时视为测量误差
+            boolean throughput = "thrpt".equals(result.path("mode").asText());
+            double slower = throughput ? (baseScore / score - 1) * 100 : (score / baseScore - 1) * 100;
+            boolean significant = throughput ? confidence.path(1).asDouble() < baseConfidence.path(0).asDouble()
+                    : confidence.path(0).asDouble() > baseConfidence.path(1).asDouble();
+            boolean regression = slower > threshold && significant;
+            if (regression) {
+                regressions++;
+            }
+            logger.info(String.format("%-90s %12.3f %-8s 基线 %12.3f  %+7.1f%%%s", entry.getKey(), score, unit,
+                    baseScore, slower, regression ? "  退化!" : ""));
+        }
+        if (regressions > 0) {
+            logger.error("{} 项基准测试比基线慢超过 {}%", regressions, threshold);
+            System.exit(1);
+        }
+        logger.info("无性能退化 (阈值 {}%)", threshold);
+    }
+
+    /**
+     * 读取 JMH 结果
+     * @param file JSON 结果文件
+     * @return 基准测试名 (含参数) ==> 结果
+     * @throws IOException
+     */
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : MAPPER.readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            Map<String, String> params = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> it = result.path("params").fields();
+            while (it.hasNext()) {
+                Map.Entry<String, JsonNode> param = it.next();
+                params.put(param.getKey(), param.getValue().asText());
+            }
+            if (!params.isEmpty()) {
+                key.append(params);
+            }
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+}
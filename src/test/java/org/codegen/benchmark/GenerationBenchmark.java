@@ -0,0 +1,91 @@
+package org.codegen.benchmark;
+
+import org.codegen.output.MemoryOutputSink;
+import org.codegen.service.CodeGeneratorManager;
+import org.codegen.service.GenerateReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 整个生成流程的耗时: 读取表结构, Model & Mapper, Service, Controller
+ * 表结构来自内嵌的 H2 数据库 (MySQL 模式), 生成文件写入内存, 不访问磁盘
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class GenerationBenchmark extends CodeGeneratorManager {
+
+    private static final String H2_URL = "jdbc:h2:mem:codegen_benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    // 表数
+    @Param({"10", "100"})
+    public int tables;
+
+    private String[] tableNames;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        tableNames = new String[tables];
+        try (Connection connection = openConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            for (int i = 0; i < tables; i++) {
+                tableNames[i] = "gen_bench_demo" + i;
+                statement.execute("CREATE TABLE " + tableNames[i] + " ("
+                        + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                        + "code VARCHAR(64) NOT NULL, "
+                        + "name VARCHAR(255), "
+                        + "parent_id INT, "
+                        + "amount DECIMAL(18, 2), "
+                        + "status TINYINT DEFAULT 0, "
+                        + "remark TEXT, "
+                        + "created_at TIMESTAMP)");
+                statement.execute("CREATE UNIQUE INDEX uk_" + tableNames[i] + "_code ON " + tableNames[i] + " (code)");
+                statement.execute("CREATE INDEX idx_" + tableNames[i] + "_parent ON " + tableNames[i] + " (parent_id, name)");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Connection connection = openConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+    }
+
+    @Override
+    protected Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(H2_URL, "sa", "");
+    }
+
+    @Benchmark
+    public GenerateReport generate() {
+        setOutputSink(new MemoryOutputSink(new File(PROJECT_PATH)));
+        GenerateReport report = genCodeWithSimpleName(tableNames);
+        if (!report.isAllSuccess()) {
+            GenerateReport.TableResult failure = report.getFailures().get(0);
+            throw new IllegalStateException(failure.getTableName() + " 生成失败!", failure.getError());
+        }
+        return report;
+    }
+}
@@ -0,0 +1,69 @@
+package org.codegen.benchmark;
+
+import org.codegen.service.CodeGeneratorManager;
+import org.codegen.util.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 表名, 类名转换的耗时
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class NamingBenchmark extends CodeGeneratorManager {
+
+    @Param({"sys_area", "gen_test_demo", "gen_order_item_detail_history"})
+    public String tableName;
+
+    private String modelName;
+
+    @Setup
+    public void setup() {
+        modelName = tableNameConvertUpperCamel(tableName);
+    }
+
+    @Benchmark
+    public String upperCamel() {
+        return tableNameConvertUpperCamel(tableName);
+    }
+
+    @Benchmark
+    public String lowerCamel() {
+        return tableNameConvertLowerCamel(tableName);
+    }
+
+    @Benchmark
+    public String defModelName() {
+        return getDefModelName(tableName);
+    }
+
+    @Benchmark
+    public String underScoreCase2CamelCase() {
+        return StringUtils.underScoreCase2CamelCase(tableName);
+    }
+
+    @Benchmark
+    public String camelCase2UnderScoreCase() {
+        return StringUtils.camelCase2UnderScoreCase(modelName);
+    }
+
+    @Benchmark
+    public String toLowerCaseFirstOne() {
+        return StringUtils.toLowerCaseFirstOne(modelName);
+    }
+}
@@ -0,0 +1,63 @@
+package org.codegen.benchmark;
+
+import freemarker.template.Template;
+import org.codegen.service.CodeGeneratorManager;
+import org.codegen.service.GenerationSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个模板的渲染耗时, 模板已解析, 只计算渲染到内存的部分
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class TemplateBenchmark extends CodeGeneratorManager {
+
+    @Param({"controller.ftl", "service.ftl", "service-impl.ftl", "basemapper.ftl", "baseservice.ftl",
+            "baseabstractservice.ftl"})
+    public String templateName;
+
+    private Template template;
+    private Map<String, Object> data;
+
+    @Setup
+    public void setup() {
+        GenerationSession session = newSession(null);
+        template = session.getTemplate(templateName);
+
+        // 所有模板用到的数据, 与生成 gen_test_demo 时一致
+        data = session.newDataModel();
+        data.put("sign", "test");
+        data.put("modelNameUpperCamel", "Demo");
+        data.put("modelNameLowerCamel", "demo");
+        data.put("baseRequestMapping", "demo");
+        data.put("MapperName", session.getMapperName());
+        data.put("ServiceName", session.getServiceName());
+        data.put("AbstractServiceName", session.getAbstractServiceName());
+        data.put("MAPPER_INTERFACE_REFERENCE", MAPPER_INTERFACE_REFERENCE);
+    }
+
+    @Benchmark
+    public String render() throws Exception {
+        StringWriter out = new StringWriter();
+        template.process(data, out);
+        return out.toString();
+    }
+}
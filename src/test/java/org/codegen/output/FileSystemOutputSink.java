@@ -0,0 +1,91 @@
+package org.codegen.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 写入文件系统
+ * 内容以 UTF-8 一次写入同目录下的临时文件, 再原子重命名为目标文件, 中断时不会留下写了一半的文件
+ * 新文件的权限与普通创建的文件一样由 umask 决定, 覆盖已有文件时保留其原有的 POSIX 权限
+ * 已确认存在的目录不再检查
+ */
+public class FileSystemOutputSink implements OutputSink {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    // 已确认存在的目录
+    private final Set<String> directories = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    @Override
+    public void write(File file, String content) throws IOException {
+        Path target = file.getAbsoluteFile().toPath();
+        Path dir = target.getParent();
+        if (!directories.contains(dir.toString())) {
+            Files.createDirectories(dir);
+            directories.add(dir.toString());
+        }
+        Path temp = newTempFile(dir, file.getName());
+        try {
+            Files.write(temp, content.getBytes(StandardCharsets.UTF_8));
+            copyPermissions(target, temp);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 在目录下创建空的临时文件
+     * 不使用 Files.createTempFile, 其创建的文件权限固定为 0600, 重命名后目标文件也会变为 0600
+     */
+    private static Path newTempFile(Path dir, String name) throws IOException {
+        while (true) {
+            Path temp = dir.resolve("." + name + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + TEMP_SUFFIX);
+            try {
+                Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE).close();
+                return temp;
+            } catch (FileAlreadyExistsException e) {
+                // 重名时换一个名称
+            }
+        }
+    }
+
+    /**
+     * 目标文件已存在时, 将其 POSIX 权限复制到临时文件, 非 POSIX 文件系统忽略
+     */
+    private static void copyPermissions(Path target, Path temp) throws IOException {
+        if (Files.exists(target) && Files.getFileAttributeView(target, PosixFileAttributeView.class) != null) {
+            Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(target));
+        }
+    }
+
+    @Override
+    public boolean exists(File file) {
+        return file.exists();
+    }
+
+    @Override
+    public String read(File file) throws IOException {
+        return file.isFile() ? new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8) : null;
+    }
+
+    @Override
+    public void close() {
+    }
+}
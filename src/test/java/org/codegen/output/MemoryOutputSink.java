@@ -0,0 +1,58 @@
+package org.codegen.output;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 写入内存, 不访问文件系统, 用于测试或将生成结果交给其他程序处理
+ */
+public class MemoryOutputSink implements OutputSink {
+
+    // 基础目录, 文件以相对该目录的路径保存
+    private final File baseDir;
+
+    private final Map<String, String> files = new ConcurrentHashMap<>();
+
+    public MemoryOutputSink(File baseDir) {
+        this.baseDir = baseDir;
+    }
+
+    @Override
+    public void write(File file, String content) {
+        files.put(OutputSink.relativePath(baseDir, file), content);
+    }
+
+    @Override
+    public boolean exists(File file) {
+        return files.containsKey(OutputSink.relativePath(baseDir, file));
+    }
+
+    @Override
+    public String read(File file) {
+        return files.get(OutputSink.relativePath(baseDir, file));
+    }
+
+    /**
+     * 获取已生成的文件
+     * @return 相对路径 ==> 文件内容, 按路径排序
+     */
+    public Map<String, String> getFiles() {
+        return Collections.unmodifiableMap(new TreeMap<>(files));
+    }
+
+    /**
+     * 获取文件内容
+     * @param path 相对路径, eg: src/main/java/com/bigsea/model/Demo.java
+     * @return 不存在时为 null
+     */
+    public String getContent(String path) {
+        return files.get(path);
+    }
+
+    @Override
+    public void close() {
+    }
+}
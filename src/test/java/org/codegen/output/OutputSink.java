@@ -0,0 +1,49 @@
+package org.codegen.output;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 生成文件的输出目标
+ * 文件内容先完整渲染到内存, 再一次写入输出目标; 实现需支持多个工作线程同时写入
+ */
+public interface OutputSink extends Closeable {
+
+    /**
+     * 写入文件, 已存在时覆盖
+     * @param file 文件, 路径位于项目目录下
+     * @param content 文件内容
+     * @throws IOException
+     */
+    void write(File file, String content) throws IOException;
+
+    /**
+     * 文件是否已存在
+     * @param file 文件
+     * @return
+     */
+    boolean exists(File file);
+
+    /**
+     * 读取已存在的文件, 用于合并 Mapper XML
+     * @param file 文件
+     * @return 文件内容, 不存在或不支持读取时为 null
+     * @throws IOException
+     */
+    String read(File file) throws IOException;
+
+    /**
+     * 文件相对于基础目录的路径, 以 / 分隔
+     * eg: /home/demo/src/main/java/Demo.java ==> src/main/java/Demo.java
+     * @param baseDir 基础目录
+     * @param file 文件
+     * @return
+     */
+    static String relativePath(File baseDir, File file) {
+        Path base = baseDir.getAbsoluteFile().toPath().normalize();
+        Path path = file.getAbsoluteFile().toPath().normalize();
+        return (path.startsWith(base) ? base.relativize(path) : path).toString().replace(File.separatorChar, '/');
+    }
+}
@@ -0,0 +1,58 @@
+package org.codegen.output;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 写入单个 zip (或 jar) 文件, 所有生成文件顺序写入同一个输出流
+ * 需调用 close 后文件才完整
+ */
+public class ZipOutputSink implements OutputSink {
+
+    // 基础目录, 条目名为相对该目录的路径
+    private final File baseDir;
+    private final ZipOutputStream out;
+    private final Set<String> entries = new HashSet<>();
+
+    public ZipOutputSink(File zipFile, File baseDir) throws IOException {
+        this.baseDir = baseDir;
+        if (zipFile.getParentFile() != null && !zipFile.getParentFile().exists()) {
+            zipFile.getParentFile().mkdirs();
+        }
+        this.out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(zipFile)));
+    }
+
+    @Override
+    public synchronized void write(File file, String content) throws IOException {
+        String name = OutputSink.relativePath(baseDir, file);
+        // zip 条目写入后不能覆盖
+        if (!entries.add(name)) {
+            throw new IOException("文件 " + name + " 重复写入!");
+        }
+        out.putNextEntry(new ZipEntry(name));
+        out.write(content.getBytes(StandardCharsets.UTF_8));
+        out.closeEntry();
+    }
+
+    @Override
+    public synchronized boolean exists(File file) {
+        return entries.contains(OutputSink.relativePath(baseDir, file));
+    }
+
+    @Override
+    public String read(File file) {
+        return null;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
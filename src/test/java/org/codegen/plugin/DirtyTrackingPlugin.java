@@ -0,0 +1,155 @@
+package org.codegen.plugin;
+
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.PluginAdapter;
+import org.mybatis.generator.api.dom.java.Field;
+import org.mybatis.generator.api.dom.java.FullyQualifiedJavaType;
+import org.mybatis.generator.api.dom.java.JavaVisibility;
+import org.mybatis.generator.api.dom.java.Method;
+import org.mybatis.generator.api.dom.java.Parameter;
+import org.mybatis.generator.api.dom.java.TopLevelClass;
+import org.mybatis.generator.api.dom.xml.Attribute;
+import org.mybatis.generator.api.dom.xml.Document;
+import org.mybatis.generator.api.dom.xml.TextElement;
+import org.mybatis.generator.api.dom.xml.XmlElement;
+import org.mybatis.generator.codegen.mybatis3.MyBatis3FormattingUtilities;
+import org.mybatis.generator.internal.util.JavaBeansUtil;
+
+import java.util.List;
+
+/**
+ * 修改字段跟踪插件, 实体的 setter 在位图中记录修改过的非主键字段
+ * XML 中生成 updateDirtyByPrimaryKey, 只 SET 修改过的字段, 由通用 Mapper 继承的 DirtyUpdateMapper 声明
+ * 没有主键或只有主键字段的表不生成
+ */
+public class DirtyTrackingPlugin extends PluginAdapter {
+
+    // 插件属性: 实体实现的 DirtyTracking 接口全名
+    public static final String TRACKING_INTERFACE = "trackingInterface";
+
+    public static final String UPDATE_STATEMENT_ID = "updateDirtyByPrimaryKey";
+
+    private static final String FIELD_NAME = "dirtyFields";
+
+    @Override
+    public boolean validate(List<String> warnings) {
+        if (properties.getProperty(TRACKING_INTERFACE) == null) {
+            warnings.add("DirtyTrackingPlugin 缺少属性 " + TRACKING_INTERFACE);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean modelBaseRecordClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        if (!isTracked(introspectedTable)) {
+            return true;
+        }
+        FullyQualifiedJavaType trackingInterface = new FullyQualifiedJavaType(properties.getProperty(TRACKING_INTERFACE));
+        FullyQualifiedJavaType bitSet = new FullyQualifiedJavaType("java.util.BitSet");
+        topLevelClass.addSuperInterface(trackingInterface);
+        topLevelClass.addImportedType(trackingInterface);
+        topLevelClass.addImportedType(bitSet);
+
+        // 通用 Mapper 不会忽略 transient 字段, 需要 @Transient 标注
+        Field field = new Field(FIELD_NAME, bitSet);
+        field.setVisibility(JavaVisibility.PRIVATE);
+        field.setTransient(true);
+        field.addJavaDocLine("/**");
+        field.addJavaDocLine(" * 修改过的非主键字段, 没有修改时为 null");
+        field.addJavaDocLine(" */");
+        field.addAnnotation("@Transient");
+        topLevelClass.addField(field);
+
+        // 位序号为字段在非主键字段中的顺序, 与 XML 中的 isDirty(n) 一致
+        List<IntrospectedColumn> columns = introspectedTable.getNonPrimaryKeyColumns();
+        for (Method method : topLevelClass.getMethods()) {
+            for (int i = 0; i < columns.size(); i++) {
+                if (method.getName().equals(JavaBeansUtil.getSetterMethodName(columns.get(i).getJavaProperty()))
+                        && method.getParameters().size() == 1) {
+                    method.addBodyLine("markDirty(" + i + ");");
+                }
+            }
+        }
+
+        Method isDirty = new Method("isDirty");
+        isDirty.addJavaDocLine("/**");
+        isDirty.addJavaDocLine(" * @param index 非主键字段的序号");
+        isDirty.addJavaDocLine(" */");
+        isDirty.addAnnotation("@Override");
+        isDirty.setVisibility(JavaVisibility.PUBLIC);
+        isDirty.setReturnType(FullyQualifiedJavaType.getBooleanPrimitiveInstance());
+        isDirty.addParameter(new Parameter(FullyQualifiedJavaType.getIntInstance(), "index"));
+        isDirty.addBodyLine("return " + FIELD_NAME + " != null && " + FIELD_NAME + ".get(index);");
+        topLevelClass.addMethod(isDirty);
+
+        Method hasDirtyFields = new Method("hasDirtyFields");
+        hasDirtyFields.addAnnotation("@Override");
+        hasDirtyFields.setVisibility(JavaVisibility.PUBLIC);
+        hasDirtyFields.setReturnType(FullyQualifiedJavaType.getBooleanPrimitiveInstance());
+        hasDirtyFields.addBodyLine("return " + FIELD_NAME + " != null && !" + FIELD_NAME + ".isEmpty();");
+        topLevelClass.addMethod(hasDirtyFields);
+
+        Method clearDirtyFields = new Method("clearDirtyFields");
+        clearDirtyFields.addAnnotation("@Override");
+        clearDirtyFields.setVisibility(JavaVisibility.PUBLIC);
+        clearDirtyFields.addBodyLine(FIELD_NAME + " = null;");
+        topLevelClass.addMethod(clearDirtyFields);
+
+        Method markDirty = new Method("markDirty");
+        markDirty.setVisibility(JavaVisibility.PRIVATE);
+        markDirty.addParameter(new Parameter(FullyQualifiedJavaType.getIntInstance(), "index"));
+        markDirty.addBodyLine("if (" + FIELD_NAME + " == null) {");
+        markDirty.addBodyLine(FIELD_NAME + " = new BitSet();");
+        markDirty.addBodyLine("}");
+        markDirty.addBodyLine(FIELD_NAME + ".set(index);");
+        topLevelClass.addMethod(markDirty);
+        return true;
+    }
+
+    @Override
+    public boolean sqlMapDocumentGenerated(Document document, IntrospectedTable introspectedTable) {
+        if (!isTracked(introspectedTable)) {
+            return true;
+        }
+        XmlElement update = new XmlElement("update");
+        update.addAttribute(new Attribute("id", UPDATE_STATEMENT_ID));
+        update.addAttribute(new Attribute("parameterType", introspectedTable.getBaseRecordType()));
+        // 带 @mbg.generated 注释, 重新生成时合并 XML 会替换而不是重复添加
+        context.getCommentGenerator().addComment(update);
+        update.addElement(new TextElement("update " + introspectedTable.getAliasedFullyQualifiedTableNameAtRuntime()));
+
+        XmlElement set = new XmlElement("set");
+        List<IntrospectedColumn> columns = introspectedTable.getNonPrimaryKeyColumns();
+        for (int i = 0; i < columns.size(); i++) {
+            IntrospectedColumn column = columns.get(i);
+            XmlElement ifElement = new XmlElement("if");
+            ifElement.addAttribute(new Attribute("test", "_parameter.isDirty(" + i + ")"));
+            ifElement.addElement(new TextElement(MyBatis3FormattingUtilities.getEscapedColumnName(column)
+                    + " = " + MyBatis3FormattingUtilities.getParameterClause(column) + ","));
+            set.addElement(ifElement);
+        }
+        update.addElement(set);
+
+        StringBuilder where = new StringBuilder("where ");
+        List<IntrospectedColumn> pks = introspectedTable.getPrimaryKeyColumns();
+        for (int i = 0; i < pks.size(); i++) {
+            if (i > 0) {
+                where.append(" and ");
+            }
+            where.append(MyBatis3FormattingUtilities.getEscapedColumnName(pks.get(i)))
+                    .append(" = ").append(MyBatis3FormattingUtilities.getParameterClause(pks.get(i)));
+        }
+        update.addElement(new TextElement(where.toString()));
+        document.getRootElement().addElement(update);
+        return true;
+    }
+
+    /**
+     * 有主键和非主键字段的表才跟踪修改
+     */
+    private static boolean isTracked(IntrospectedTable introspectedTable) {
+        return introspectedTable.hasPrimaryKeyColumns() && !introspectedTable.getNonPrimaryKeyColumns().isEmpty();
+    }
+}
@@ -0,0 +1,162 @@
+package org.codegen.plugin;
+
+import org.codegen.util.StringUtils;
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.PluginAdapter;
+import org.mybatis.generator.api.dom.java.FullyQualifiedJavaType;
+import org.mybatis.generator.api.dom.java.Interface;
+import org.mybatis.generator.api.dom.java.Method;
+import org.mybatis.generator.api.dom.java.Parameter;
+import org.mybatis.generator.api.dom.java.TopLevelClass;
+import org.mybatis.generator.api.dom.xml.Attribute;
+import org.mybatis.generator.api.dom.xml.Document;
+import org.mybatis.generator.api.dom.xml.TextElement;
+import org.mybatis.generator.api.dom.xml.XmlElement;
+import org.mybatis.generator.codegen.mybatis3.MyBatis3FormattingUtilities;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按索引前缀查询的插件, 为表配置属性 indexFinders 中的每个方法生成 selectByXxx
+ * 条件为索引前几列等值, 可再加下一列的范围 (between), 只生成能使用索引的查询
+ * 唯一索引全部字段等值查询返回单个实体, 其余返回列表
+ */
+public class IndexFinderPlugin extends PluginAdapter {
+
+    // 表配置属性: 方法名:等值字段:范围字段:是否唯一, 多个方法以分号分隔, 由 IndexFinder.toPluginProperty 生成
+    public static final String INDEX_FINDERS = "indexFinders";
+
+    private static final FullyQualifiedJavaType PARAM_ANNOTATION =
+            new FullyQualifiedJavaType("org.apache.ibatis.annotations.Param");
+
+    @Override
+    public boolean validate(List<String> warnings) {
+        return true;
+    }
+
+    @Override
+    public boolean clientGenerated(Interface interfaze, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        List<Finder> finders = getFinders(introspectedTable);
+        if (finders.isEmpty()) {
+            return true;
+        }
+        FullyQualifiedJavaType modelType = new FullyQualifiedJavaType(introspectedTable.getBaseRecordType());
+        FullyQualifiedJavaType listType = FullyQualifiedJavaType.getNewListInstance();
+        listType.addTypeArgument(modelType);
+        interfaze.addImportedType(modelType);
+        interfaze.addImportedType(PARAM_ANNOTATION);
+        for (Finder finder : finders) {
+            Method method = new Method("selectBy" + finder.name);
+            method.setReturnType(finder.unique ? modelType : listType);
+            if (!finder.unique) {
+                interfaze.addImportedType(FullyQualifiedJavaType.getNewListInstance());
+            }
+            for (IntrospectedColumn column : finder.equalities) {
+                method.addParameter(newParameter(column, column.getJavaProperty()));
+                interfaze.addImportedType(column.getFullyQualifiedJavaType());
+            }
+            if (finder.range != null) {
+                method.addParameter(newParameter(finder.range, finder.range.getJavaProperty() + "From"));
+                method.addParameter(newParameter(finder.range, finder.range.getJavaProperty() + "To"));
+                interfaze.addImportedType(finder.range.getFullyQualifiedJavaType());
+            }
+            interfaze.addMethod(method);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean sqlMapDocumentGenerated(Document document, IntrospectedTable introspectedTable) {
+        List<Finder> finders = getFinders(introspectedTable);
+        if (finders.isEmpty()) {
+            return true;
+        }
+        StringBuilder selectList = new StringBuilder();
+        for (IntrospectedColumn column : introspectedTable.getAllColumns()) {
+            if (selectList.length() > 0) {
+                selectList.append(", ");
+            }
+            selectList.append(MyBatis3FormattingUtilities.getSelectListPhrase(column));
+        }
+        for (Finder finder : finders) {
+            XmlElement select = new XmlElement("select");
+            select.addAttribute(new Attribute("id", "selectBy" + finder.name));
+            select.addAttribute(new Attribute("resultMap", introspectedTable.getBaseResultMapId()));
+            // 带 @mbg.generated 注释, 重新生成时合并 XML 会替换而不是重复添加
+            context.getCommentGenerator().addComment(select);
+            select.addElement(new TextElement("select " + selectList + " from "
+                    + introspectedTable.getAliasedFullyQualifiedTableNameAtRuntime()));
+            StringBuilder where = new StringBuilder();
+            for (IntrospectedColumn column : finder.equalities) {
+                where.append(where.length() == 0 ? "where " : " and ")
+                        .append(MyBatis3FormattingUtilities.getEscapedColumnName(column))
+                        .append(" = ").append(MyBatis3FormattingUtilities.getParameterClause(column));
+            }
+            if (finder.range != null) {
+                where.append(where.length() == 0 ? "where " : " and ")
+                        .append(MyBatis3FormattingUtilities.getEscapedColumnName(finder.range))
+                        .append(" between ").append(getParameterClause(finder.range, "From"))
+                        .append(" and ").append(getParameterClause(finder.range, "To"));
+            }
+            select.addElement(new TextElement(where.toString()));
+            document.getRootElement().addElement(select);
+        }
+        return true;
+    }
+
+    private static Parameter newParameter(IntrospectedColumn column, String name) {
+        return new Parameter(column.getFullyQualifiedJavaType(), name, "@Param(\"" + name + "\")");
+    }
+
+    /**
+     * 范围参数, eg: #{createdAtFrom,jdbcType=TIMESTAMP}
+     */
+    private static String getParameterClause(IntrospectedColumn column, String suffix) {
+        return "#{" + column.getJavaProperty() + suffix + ",jdbcType=" + column.getJdbcTypeName() + "}";
+    }
+
+    /**
+     * 获取表配置中的查询方法, 忽略含有不存在字段的方法
+     */
+    private List<Finder> getFinders(IntrospectedTable introspectedTable) {
+        List<Finder> finders = new ArrayList<>();
+        String property = introspectedTable.getTableConfigurationProperty(INDEX_FINDERS);
+        if (StringUtils.isNullOrEmpty(property)) {
+            return finders;
+        }
+        for (String item : property.split(";")) {
+            String[] parts = item.split(":", -1);
+            Finder finder = new Finder(parts[0], Boolean.parseBoolean(parts[3]));
+            boolean valid = true;
+            if (!parts[1].isEmpty()) {
+                for (String columnName : parts[1].split(",")) {
+                    IntrospectedColumn column = introspectedTable.getColumn(columnName);
+                    valid &= column != null;
+                    finder.equalities.add(column);
+                }
+            }
+            if (!parts[2].isEmpty()) {
+                finder.range = introspectedTable.getColumn(parts[2]);
+                valid &= finder.range != null;
+            }
+            if (valid) {
+                finders.add(finder);
+            }
+        }
+        return finders;
+    }
+
+    private static class Finder {
+        final String name;
+        final boolean unique;
+        final List<IntrospectedColumn> equalities = new ArrayList<>();
+        IntrospectedColumn range;
+
+        Finder(String name, boolean unique) {
+            this.name = name;
+            this.unique = unique;
+        }
+    }
+}
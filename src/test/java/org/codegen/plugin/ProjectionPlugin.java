@@ -0,0 +1,176 @@
+package org.codegen.plugin;
+
+import org.codegen.util.StringUtils;
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.PluginAdapter;
+import org.mybatis.generator.api.dom.java.FullyQualifiedJavaType;
+import org.mybatis.generator.api.dom.java.Interface;
+import org.mybatis.generator.api.dom.java.Method;
+import org.mybatis.generator.api.dom.java.Parameter;
+import org.mybatis.generator.api.dom.java.TopLevelClass;
+import org.mybatis.generator.api.dom.xml.Attribute;
+import org.mybatis.generator.api.dom.xml.Document;
+import org.mybatis.generator.api.dom.xml.TextElement;
+import org.mybatis.generator.api.dom.xml.XmlElement;
+import org.mybatis.generator.codegen.mybatis3.MyBatis3FormattingUtilities;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 字段投影插件, 为表配置属性 projections 中的每个投影生成只读取部分字段的查询
+ * XML 中生成投影的 resultMap 和 select, Mapper 接口中声明 selectXxxAll, 单列主键的表另有 selectXxxByPrimaryKey 和 selectXxxByIds
+ * 投影的 DTO 与实体同包, 类名为实体类名加投影名, 由 model-projection.ftl 生成
+ */
+public class ProjectionPlugin extends PluginAdapter {
+
+    // 表配置属性: 投影名:字段名, 多个投影以分号分隔, eg: Summary:id,title;Brief:id,name
+    public static final String PROJECTIONS = "projections";
+
+    private static final FullyQualifiedJavaType PARAM_ANNOTATION =
+            new FullyQualifiedJavaType("org.apache.ibatis.annotations.Param");
+
+    @Override
+    public boolean validate(List<String> warnings) {
+        return true;
+    }
+
+    @Override
+    public boolean clientGenerated(Interface interfaze, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        IntrospectedColumn pk = getPrimaryKey(introspectedTable);
+        for (Map.Entry<String, List<IntrospectedColumn>> projection : getProjections(introspectedTable).entrySet()) {
+            String name = projection.getKey();
+            FullyQualifiedJavaType dtoType = getDtoType(introspectedTable, name);
+            FullyQualifiedJavaType listType = FullyQualifiedJavaType.getNewListInstance();
+            listType.addTypeArgument(dtoType);
+            interfaze.addImportedType(dtoType);
+            interfaze.addImportedType(FullyQualifiedJavaType.getNewListInstance());
+
+            Method selectAll = new Method("select" + name + "All");
+            selectAll.setReturnType(listType);
+            interfaze.addMethod(selectAll);
+            if (pk == null) {
+                continue;
+            }
+
+            Method selectByPrimaryKey = new Method("select" + name + "ByPrimaryKey");
+            selectByPrimaryKey.setReturnType(dtoType);
+            selectByPrimaryKey.addParameter(new Parameter(pk.getFullyQualifiedJavaType(), pk.getJavaProperty(),
+                    "@Param(\"" + pk.getJavaProperty() + "\")"));
+            interfaze.addMethod(selectByPrimaryKey);
+
+            FullyQualifiedJavaType idsType = new FullyQualifiedJavaType("java.util.Collection");
+            idsType.addTypeArgument(pk.getFullyQualifiedJavaType());
+            Method selectByIds = new Method("select" + name + "ByIds");
+            selectByIds.setReturnType(listType);
+            selectByIds.addParameter(new Parameter(idsType, "ids", "@Param(\"ids\")"));
+            interfaze.addMethod(selectByIds);
+            interfaze.addImportedType(new FullyQualifiedJavaType("java.util.Collection"));
+            interfaze.addImportedType(pk.getFullyQualifiedJavaType());
+            interfaze.addImportedType(PARAM_ANNOTATION);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean sqlMapDocumentGenerated(Document document, IntrospectedTable introspectedTable) {
+        IntrospectedColumn pk = getPrimaryKey(introspectedTable);
+        String table = introspectedTable.getAliasedFullyQualifiedTableNameAtRuntime();
+        for (Map.Entry<String, List<IntrospectedColumn>> projection : getProjections(introspectedTable).entrySet()) {
+            String name = projection.getKey();
+            String resultMapId = name + "ResultMap";
+            XmlElement resultMap = new XmlElement("resultMap");
+            resultMap.addAttribute(new Attribute("id", resultMapId));
+            resultMap.addAttribute(new Attribute("type", getDtoType(introspectedTable, name).getFullyQualifiedName()));
+            // 带 @mbg.generated 注释, 重新生成时合并 XML 会替换而不是重复添加
+            context.getCommentGenerator().addComment(resultMap);
+            StringBuilder selectList = new StringBuilder();
+            for (IntrospectedColumn column : projection.getValue()) {
+                XmlElement result = new XmlElement(column == pk ? "id" : "result");
+                result.addAttribute(new Attribute("column", MyBatis3FormattingUtilities.getRenamedColumnNameForResultMap(column)));
+                result.addAttribute(new Attribute("jdbcType", column.getJdbcTypeName()));
+                result.addAttribute(new Attribute("property", column.getJavaProperty()));
+                resultMap.addElement(result);
+                if (selectList.length() > 0) {
+                    selectList.append(", ");
+                }
+                selectList.append(MyBatis3FormattingUtilities.getSelectListPhrase(column));
+            }
+            document.getRootElement().addElement(resultMap);
+
+            String select = "select " + selectList + " from " + table;
+            document.getRootElement().addElement(newSelect("select" + name + "All", resultMapId, select));
+            if (pk == null) {
+                continue;
+            }
+            XmlElement selectByPrimaryKey = newSelect("select" + name + "ByPrimaryKey", resultMapId, select);
+            selectByPrimaryKey.addElement(new TextElement("where " + MyBatis3FormattingUtilities.getEscapedColumnName(pk)
+                    + " = " + MyBatis3FormattingUtilities.getParameterClause(pk)));
+            document.getRootElement().addElement(selectByPrimaryKey);
+
+            // 空集合时由 Service 直接返回, 不执行查询
+            XmlElement selectByIds = newSelect("select" + name + "ByIds", resultMapId, select);
+            selectByIds.addElement(new TextElement("where " + MyBatis3FormattingUtilities.getEscapedColumnName(pk) + " in"));
+            XmlElement foreach = new XmlElement("foreach");
+            foreach.addAttribute(new Attribute("collection", "ids"));
+            foreach.addAttribute(new Attribute("item", pk.getJavaProperty()));
+            foreach.addAttribute(new Attribute("open", "("));
+            foreach.addAttribute(new Attribute("separator", ","));
+            foreach.addAttribute(new Attribute("close", ")"));
+            foreach.addElement(new TextElement(MyBatis3FormattingUtilities.getParameterClause(pk)));
+            selectByIds.addElement(foreach);
+            document.getRootElement().addElement(selectByIds);
+        }
+        return true;
+    }
+
+    private XmlElement newSelect(String id, String resultMapId, String sql) {
+        XmlElement select = new XmlElement("select");
+        select.addAttribute(new Attribute("id", id));
+        select.addAttribute(new Attribute("resultMap", resultMapId));
+        context.getCommentGenerator().addComment(select);
+        select.addElement(new TextElement(sql));
+        return select;
+    }
+
+    /**
+     * 获取表配置中的投影, 忽略不存在的字段
+     * @return 投影名 ==> 字段
+     */
+    private Map<String, List<IntrospectedColumn>> getProjections(IntrospectedTable introspectedTable) {
+        Map<String, List<IntrospectedColumn>> projections = new LinkedHashMap<>();
+        String property = introspectedTable.getTableConfigurationProperty(PROJECTIONS);
+        if (StringUtils.isNullOrEmpty(property)) {
+            return projections;
+        }
+        for (String projection : property.split(";")) {
+            String[] pair = projection.split(":");
+            List<IntrospectedColumn> columns = new ArrayList<>();
+            for (String columnName : pair[1].split(",")) {
+                IntrospectedColumn column = introspectedTable.getColumn(columnName.trim());
+                if (column != null) {
+                    columns.add(column);
+                }
+            }
+            if (!columns.isEmpty()) {
+                projections.put(pair[0].trim(), columns);
+            }
+        }
+        return projections;
+    }
+
+    /**
+     * 单列主键, 联合主键或没有主键时为 null
+     */
+    private static IntrospectedColumn getPrimaryKey(IntrospectedTable introspectedTable) {
+        List<IntrospectedColumn> pks = introspectedTable.getPrimaryKeyColumns();
+        return pks.size() == 1 ? pks.get(0) : null;
+    }
+
+    private static FullyQualifiedJavaType getDtoType(IntrospectedTable introspectedTable, String name) {
+        return new FullyQualifiedJavaType(introspectedTable.getBaseRecordType() + name);
+    }
+}
@@ -0,0 +1,27 @@
+package org.codegen.plugin;
+
+import org.mybatis.generator.config.Context;
+import org.mybatis.generator.config.JDBCConnectionConfiguration;
+import tk.mybatis.mapper.generator.MapperPlugin;
+
+/**
+ * 通用 Mapper 插件, 支持表结构从 SchemaConnectionFactory 读取
+ * 父类会向 JDBC 连接配置写入 remarksReporting 属性, 使用连接工厂时该配置为空, 此处临时补上
+ */
+public class SchemaMapperPlugin extends MapperPlugin {
+
+    @Override
+    public void setContext(Context context) {
+        boolean placeholder = context.getJdbcConnectionConfiguration() == null;
+        if (placeholder) {
+            context.setJdbcConnectionConfiguration(new JDBCConnectionConfiguration());
+        }
+        try {
+            super.setContext(context);
+        } finally {
+            if (placeholder) {
+                context.setJdbcConnectionConfiguration(null);
+            }
+        }
+    }
+}
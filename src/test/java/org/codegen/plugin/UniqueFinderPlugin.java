@@ -0,0 +1,107 @@
+package org.codegen.plugin;
+
+import org.codegen.util.StringUtils;
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.PluginAdapter;
+import org.mybatis.generator.api.dom.java.FullyQualifiedJavaType;
+import org.mybatis.generator.api.dom.java.Interface;
+import org.mybatis.generator.api.dom.java.Method;
+import org.mybatis.generator.api.dom.java.Parameter;
+import org.mybatis.generator.api.dom.java.TopLevelClass;
+import org.mybatis.generator.api.dom.xml.Attribute;
+import org.mybatis.generator.api.dom.xml.Document;
+import org.mybatis.generator.api.dom.xml.TextElement;
+import org.mybatis.generator.api.dom.xml.XmlElement;
+import org.mybatis.generator.codegen.mybatis3.MyBatis3FormattingUtilities;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按唯一索引字段查询的插件, 为表配置属性 uniqueColumns 中的每个字段生成 selectByXxx
+ * Mapper 接口中声明方法, XML 中生成对应的 select, 语句在 MyBatis 启动时解析, 查询时不再动态拼接 SQL
+ */
+public class UniqueFinderPlugin extends PluginAdapter {
+
+    // 表配置属性: 需要生成查询方法的字段名, 逗号分隔
+    public static final String UNIQUE_COLUMNS = "uniqueColumns";
+
+    private static final FullyQualifiedJavaType PARAM_ANNOTATION =
+            new FullyQualifiedJavaType("org.apache.ibatis.annotations.Param");
+
+    @Override
+    public boolean validate(List<String> warnings) {
+        return true;
+    }
+
+    @Override
+    public boolean clientGenerated(Interface interfaze, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        List<IntrospectedColumn> columns = getUniqueColumns(introspectedTable);
+        if (columns.isEmpty()) {
+            return true;
+        }
+        FullyQualifiedJavaType modelType = new FullyQualifiedJavaType(introspectedTable.getBaseRecordType());
+        interfaze.addImportedType(modelType);
+        interfaze.addImportedType(PARAM_ANNOTATION);
+        for (IntrospectedColumn column : columns) {
+            Method method = new Method(getMethodName(column));
+            method.setReturnType(modelType);
+            method.addParameter(new Parameter(column.getFullyQualifiedJavaType(), column.getJavaProperty(),
+                    "@Param(\"" + column.getJavaProperty() + "\")"));
+            interfaze.addImportedType(column.getFullyQualifiedJavaType());
+            interfaze.addMethod(method);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean sqlMapDocumentGenerated(Document document, IntrospectedTable introspectedTable) {
+        List<IntrospectedColumn> columns = getUniqueColumns(introspectedTable);
+        if (columns.isEmpty()) {
+            return true;
+        }
+        StringBuilder selectList = new StringBuilder();
+        for (IntrospectedColumn column : introspectedTable.getAllColumns()) {
+            if (selectList.length() > 0) {
+                selectList.append(", ");
+            }
+            selectList.append(MyBatis3FormattingUtilities.getSelectListPhrase(column));
+        }
+        for (IntrospectedColumn column : columns) {
+            XmlElement select = new XmlElement("select");
+            select.addAttribute(new Attribute("id", getMethodName(column)));
+            select.addAttribute(new Attribute("resultMap", introspectedTable.getBaseResultMapId()));
+            // 带 @mbg.generated 注释, 重新生成时合并 XML 会替换而不是重复添加
+            context.getCommentGenerator().addComment(select);
+            select.addElement(new TextElement("select " + selectList + " from "
+                    + introspectedTable.getAliasedFullyQualifiedTableNameAtRuntime()));
+            select.addElement(new TextElement("where " + MyBatis3FormattingUtilities.getEscapedColumnName(column)
+                    + " = " + MyBatis3FormattingUtilities.getParameterClause(column)));
+            document.getRootElement().addElement(select);
+        }
+        return true;
+    }
+
+    /**
+     * 获取表配置中的唯一索引字段, 忽略不存在的字段
+     */
+    private List<IntrospectedColumn> getUniqueColumns(IntrospectedTable introspectedTable) {
+        List<IntrospectedColumn> columns = new ArrayList<>();
+        String property = introspectedTable.getTableConfigurationProperty(UNIQUE_COLUMNS);
+        if (StringUtils.isNullOrEmpty(property)) {
+            return columns;
+        }
+        for (String columnName : property.split(",")) {
+            IntrospectedColumn column = introspectedTable.getColumn(columnName.trim());
+            if (column != null) {
+                columns.add(column);
+            }
+        }
+        return columns;
+    }
+
+    private static String getMethodName(IntrospectedColumn column) {
+        return "selectBy" + StringUtils.toUpperCaseFirstOne(column.getJavaProperty());
+    }
+}
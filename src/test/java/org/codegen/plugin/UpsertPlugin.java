@@ -0,0 +1,122 @@
+package org.codegen.plugin;
+
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.PluginAdapter;
+import org.mybatis.generator.api.dom.xml.Attribute;
+import org.mybatis.generator.api.dom.xml.Document;
+import org.mybatis.generator.api.dom.xml.TextElement;
+import org.mybatis.generator.api.dom.xml.XmlElement;
+import org.mybatis.generator.codegen.mybatis3.MyBatis3FormattingUtilities;
+
+import java.util.List;
+
+/**
+ * 插入或更新插件, XML 中生成 upsert 和多行的 upsertList, 由通用 Mapper 继承的 UpsertMapper 声明
+ * 默认语句为 MySQL 的 INSERT ... ON DUPLICATE KEY UPDATE, 主键或任一唯一索引冲突时更新全部非主键字段 (null 值也写入)
+ * 另生成 databaseId 为 h2 的 MERGE INTO ... KEY (主键) 语句, 配置了 DatabaseIdProvider 且识别为 h2 时使用, 只按主键匹配
+ * 没有主键的表不生成
+ */
+public class UpsertPlugin extends PluginAdapter {
+
+    public static final String UPSERT_STATEMENT_ID = "upsert";
+
+    public static final String UPSERT_LIST_STATEMENT_ID = "upsertList";
+
+    // H2 语句的 databaseId, 与 VendorDatabaseIdProvider 中 H2 对应的值一致
+    public static final String H2_DATABASE_ID = "h2";
+
+    @Override
+    public boolean validate(List<String> warnings) {
+        return true;
+    }
+
+    @Override
+    public boolean sqlMapDocumentGenerated(Document document, IntrospectedTable introspectedTable) {
+        if (!introspectedTable.hasPrimaryKeyColumns()) {
+            return true;
+        }
+        XmlElement root = document.getRootElement();
+        root.addElement(newUpsert(introspectedTable, UPSERT_STATEMENT_ID, null, false));
+        root.addElement(newUpsert(introspectedTable, UPSERT_LIST_STATEMENT_ID, null, true));
+        root.addElement(newUpsert(introspectedTable, UPSERT_STATEMENT_ID, H2_DATABASE_ID, false));
+        root.addElement(newUpsert(introspectedTable, UPSERT_LIST_STATEMENT_ID, H2_DATABASE_ID, true));
+        return true;
+    }
+
+    /**
+     * 生成 upsert 语句
+     * @param databaseId 为 null 时生成 MySQL 语句
+     * @param list 是否为多行语句, 参数为实体列表
+     */
+    private XmlElement newUpsert(IntrospectedTable introspectedTable, String id, String databaseId, boolean list) {
+        XmlElement insert = new XmlElement("insert");
+        insert.addAttribute(new Attribute("id", id));
+        if (databaseId != null) {
+            insert.addAttribute(new Attribute("databaseId", databaseId));
+        }
+        insert.addAttribute(new Attribute("parameterType", list ? "java.util.List" : introspectedTable.getBaseRecordType()));
+        // 带 @mbg.generated 注释, 重新生成时合并 XML 会替换而不是重复添加
+        context.getCommentGenerator().addComment(insert);
+
+        List<IntrospectedColumn> columns = introspectedTable.getAllColumns();
+        StringBuilder columnList = new StringBuilder();
+        StringBuilder valueList = new StringBuilder();
+        for (IntrospectedColumn column : columns) {
+            if (columnList.length() > 0) {
+                columnList.append(", ");
+                valueList.append(", ");
+            }
+            columnList.append(MyBatis3FormattingUtilities.getEscapedColumnName(column));
+            valueList.append(MyBatis3FormattingUtilities.getParameterClause(column, list ? "item." : null));
+        }
+        String table = introspectedTable.getFullyQualifiedTableNameAtRuntime();
+        if (databaseId == null) {
+            insert.addElement(new TextElement("insert into " + table + " (" + columnList + ")"));
+        } else {
+            StringBuilder keyList = new StringBuilder();
+            for (IntrospectedColumn column : introspectedTable.getPrimaryKeyColumns()) {
+                if (keyList.length() > 0) {
+                    keyList.append(", ");
+                }
+                keyList.append(MyBatis3FormattingUtilities.getEscapedColumnName(column));
+            }
+            insert.addElement(new TextElement("merge into " + table + " (" + columnList + ") key (" + keyList + ")"));
+        }
+        if (list) {
+            insert.addElement(new TextElement("values"));
+            XmlElement foreach = new XmlElement("foreach");
+            foreach.addAttribute(new Attribute("collection", "list"));
+            foreach.addAttribute(new Attribute("item", "item"));
+            foreach.addAttribute(new Attribute("separator", ","));
+            foreach.addElement(new TextElement("(" + valueList + ")"));
+            insert.addElement(foreach);
+        } else {
+            insert.addElement(new TextElement("values (" + valueList + ")"));
+        }
+        if (databaseId == null) {
+            insert.addElement(new TextElement("on duplicate key update " + getUpdateList(introspectedTable)));
+        }
+        return insert;
+    }
+
+    /**
+     * ON DUPLICATE KEY UPDATE 的赋值, eg: name = values(name), remark = values(remark)
+     * VALUES() 兼容 MySQL 5.x; 只有主键字段的表赋值主键本身, 冲突时不做修改
+     */
+    private static String getUpdateList(IntrospectedTable introspectedTable) {
+        List<IntrospectedColumn> columns = introspectedTable.getNonPrimaryKeyColumns();
+        if (columns.isEmpty()) {
+            columns = introspectedTable.getPrimaryKeyColumns().subList(0, 1);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (IntrospectedColumn column : columns) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            String name = MyBatis3FormattingUtilities.getEscapedColumnName(column);
+            sb.append(name).append(" = values(").append(name).append(")");
+        }
+        return sb.toString();
+    }
+}
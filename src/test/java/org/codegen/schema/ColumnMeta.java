@@ -0,0 +1,107 @@
+package org.codegen.schema;
+
+/**
+ * 表字段元数据, 对应 DatabaseMetaData.getColumns 的一行
+ */
+public class ColumnMeta {
+    // 字段名
+    private String name;
+    // java.sql.Types 中的类型
+    private int dataType;
+    // 数据库中的类型名称, eg: VARCHAR
+    private String typeName;
+    // 字段长度
+    private int columnSize;
+    // 小数位数
+    private int decimalDigits;
+    // 是否允许为空, java.sql.DatabaseMetaData.columnNullable 等
+    private int nullable;
+    // 默认值
+    private String defaultValue;
+    // 字段注释
+    private String remarks;
+    // 是否自增
+    private boolean autoIncrement;
+    // 是否为生成列
+    private boolean generated;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getDataType() {
+        return dataType;
+    }
+
+    public void setDataType(int dataType) {
+        this.dataType = dataType;
+    }
+
+    public String getTypeName() {
+        return typeName;
+    }
+
+    public void setTypeName(String typeName) {
+        this.typeName = typeName;
+    }
+
+    public int getColumnSize() {
+        return columnSize;
+    }
+
+    public void setColumnSize(int columnSize) {
+        this.columnSize = columnSize;
+    }
+
+    public int getDecimalDigits() {
+        return decimalDigits;
+    }
+
+    public void setDecimalDigits(int decimalDigits) {
+        this.decimalDigits = decimalDigits;
+    }
+
+    public int getNullable() {
+        return nullable;
+    }
+
+    public void setNullable(int nullable) {
+        this.nullable = nullable;
+    }
+
+    public String getDefaultValue() {
+        return defaultValue;
+    }
+
+    public void setDefaultValue(String defaultValue) {
+        this.defaultValue = defaultValue;
+    }
+
+    public String getRemarks() {
+        return remarks;
+    }
+
+    public void setRemarks(String remarks) {
+        this.remarks = remarks;
+    }
+
+    public boolean isAutoIncrement() {
+        return autoIncrement;
+    }
+
+    public void setAutoIncrement(boolean autoIncrement) {
+        this.autoIncrement = autoIncrement;
+    }
+
+    public boolean isGenerated() {
+        return generated;
+    }
+
+    public void setGenerated(boolean generated) {
+        this.generated = generated;
+    }
+}
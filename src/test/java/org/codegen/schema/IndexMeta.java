@@ -0,0 +1,48 @@
+package org.codegen.schema;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 索引元数据, 字段按索引中的顺序排列
+ */
+public class IndexMeta {
+    // 索引名
+    private String name;
+    // 是否唯一索引
+    private boolean unique;
+    // 索引字段
+    private List<String> columns = new ArrayList<>();
+
+    public IndexMeta() {
+    }
+
+    public IndexMeta(String name, boolean unique) {
+        this.name = name;
+        this.unique = unique;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public boolean isUnique() {
+        return unique;
+    }
+
+    public void setUnique(boolean unique) {
+        this.unique = unique;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public void setColumns(List<String> columns) {
+        this.columns = columns;
+    }
+}
@@ -0,0 +1,251 @@
+package org.codegen.schema;
+
+import org.mybatis.generator.api.ConnectionFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MyBatis Generator 连接工厂, 从内存中的 SchemaModel 提供表结构, 不访问数据库
+ * MyBatis Generator 通过类名反射创建连接工厂, 因此 SchemaModel 需先注册, 再以 schemaId 属性传入
+ */
+public class SchemaConnectionFactory implements ConnectionFactory {
+
+    // 连接工厂属性: 已注册的 SchemaModel 编号
+    public static final String SCHEMA_ID = "schemaId";
+
+    private static final Map<String, SchemaModel> SCHEMAS = new ConcurrentHashMap<>();
+
+    private static final List<String> COLUMN_LABELS = Arrays.asList("TABLE_CAT", "TABLE_SCHEM", "TABLE_NAME",
+            "COLUMN_NAME", "DATA_TYPE", "TYPE_NAME", "COLUMN_SIZE", "DECIMAL_DIGITS", "NULLABLE", "REMARKS",
+            "COLUMN_DEF", "IS_AUTOINCREMENT", "IS_GENERATEDCOLUMN");
+
+    private static final List<String> PRIMARY_KEY_LABELS = Arrays.asList("TABLE_CAT", "TABLE_SCHEM", "TABLE_NAME",
+            "COLUMN_NAME", "KEY_SEQ");
+
+    private static final List<String> TABLE_LABELS = Arrays.asList("TABLE_CAT", "TABLE_SCHEM", "TABLE_NAME",
+            "TABLE_TYPE", "REMARKS");
+
+    private SchemaModel schema;
+
+    /**
+     * 注册 SchemaModel
+     * @param schema 表结构模型
+     * @return schemaId
+     */
+    public static String register(SchemaModel schema) {
+        String schemaId = UUID.randomUUID().toString();
+        SCHEMAS.put(schemaId, schema);
+        return schemaId;
+    }
+
+    /**
+     * 取消注册
+     * @param schemaId
+     */
+    public static void unregister(String schemaId) {
+        SCHEMAS.remove(schemaId);
+    }
+
+    @Override
+    public void addConfigurationProperties(Properties properties) {
+        schema = SCHEMAS.get(properties.getProperty(SCHEMA_ID));
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (schema == null) {
+            throw new SQLException("SchemaModel 未注册!");
+        }
+        final DatabaseMetaData metaData = proxy(DatabaseMetaData.class, new MetaDataHandler(schema));
+        return proxy(Connection.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "getMetaData":
+                        return metaData;
+                    case "close":
+                        return null;
+                    case "isClosed":
+                        return false;
+                    default:
+                        return unsupported(proxy, method, args);
+                }
+            }
+        });
+    }
+
+    /**
+     * 只实现 MyBatis Generator 读取表结构时用到的方法
+     */
+    private static class MetaDataHandler implements InvocationHandler {
+        private final SchemaModel schema;
+
+        MetaDataHandler(SchemaModel schema) {
+            this.schema = schema;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "storesLowerCaseIdentifiers":
+                case "storesUpperCaseIdentifiers":
+                    return false;
+                case "getSearchStringEscape":
+                    return "\\";
+                case "getTables":
+                    return getTables((String) args[2]);
+                case "getColumns":
+                    return getColumns((String) args[2]);
+                case "getPrimaryKeys":
+                    return getPrimaryKeys((String) args[2]);
+                default:
+                    return unsupported(proxy, method, args);
+            }
+        }
+
+        private ResultSet getTables(String tableName) {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            TableMeta table = schema.getTable(tableName);
+            if (table != null) {
+                Map<String, Object> row = new HashMap<>();
+                row.put("TABLE_NAME", table.getName());
+                row.put("TABLE_TYPE", table.getTableType());
+                row.put("REMARKS", table.getRemarks());
+                rows.add(row);
+            }
+            return resultSet(TABLE_LABELS, rows);
+        }
+
+        private ResultSet getColumns(String tableName) {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            TableMeta table = schema.getTable(tableName);
+            if (table != null) {
+                for (ColumnMeta column : table.getColumns()) {
+                    Map<String, Object> row = new HashMap<>();
+                    row.put("TABLE_NAME", table.getName());
+                    row.put("COLUMN_NAME", column.getName());
+                    row.put("DATA_TYPE", column.getDataType());
+                    row.put("TYPE_NAME", column.getTypeName());
+                    row.put("COLUMN_SIZE", column.getColumnSize());
+                    row.put("DECIMAL_DIGITS", column.getDecimalDigits());
+                    row.put("NULLABLE", column.getNullable());
+                    row.put("REMARKS", column.getRemarks());
+                    row.put("COLUMN_DEF", column.getDefaultValue());
+                    row.put("IS_AUTOINCREMENT", column.isAutoIncrement() ? "YES" : "NO");
+                    row.put("IS_GENERATEDCOLUMN", column.isGenerated() ? "YES" : "NO");
+                    rows.add(row);
+                }
+            }
+            return resultSet(COLUMN_LABELS, rows);
+        }
+
+        private ResultSet getPrimaryKeys(String tableName) {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            TableMeta table = schema.getTable(tableName);
+            if (table != null) {
+                for (int i = 0; i < table.getPrimaryKeys().size(); i++) {
+                    Map<String, Object> row = new HashMap<>();
+                    row.put("TABLE_NAME", table.getName());
+                    row.put("COLUMN_NAME", table.getPrimaryKeys().get(i));
+                    row.put("KEY_SEQ", (short) (i + 1));
+                    rows.add(row);
+                }
+            }
+            return resultSet(PRIMARY_KEY_LABELS, rows);
+        }
+    }
+
+    /**
+     * 基于内存数据的只读结果集
+     */
+    private static ResultSet resultSet(final List<String> labels, final List<Map<String, Object>> rows) {
+        final ResultSetMetaData rsmd = proxy(ResultSetMetaData.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "getColumnCount":
+                        return labels.size();
+                    case "getColumnName":
+                    case "getColumnLabel":
+                        return labels.get((Integer) args[0] - 1);
+                    default:
+                        return unsupported(proxy, method, args);
+                }
+            }
+        });
+        return proxy(ResultSet.class, new InvocationHandler() {
+            private int index = -1;
+            private Object lastValue;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "next":
+                        return ++index < rows.size();
+                    case "getMetaData":
+                        return rsmd;
+                    case "close":
+                        return null;
+                    case "wasNull":
+                        return lastValue == null;
+                    case "getString":
+                        lastValue = value(args[0]);
+                        return lastValue == null ? null : lastValue.toString();
+                    case "getInt":
+                        lastValue = value(args[0]);
+                        return lastValue == null ? 0 : ((Number) lastValue).intValue();
+                    case "getShort":
+                        lastValue = value(args[0]);
+                        return lastValue == null ? (short) 0 : ((Number) lastValue).shortValue();
+                    default:
+                        return unsupported(proxy, method, args);
+                }
+            }
+
+            private Object value(Object column) throws SQLException {
+                if (index < 0 || index >= rows.size()) {
+                    throw new SQLException("结果集游标位置不正确!");
+                }
+                String label = column instanceof Integer ? labels.get((Integer) column - 1) : column.toString();
+                return rows.get(index).get(label.toUpperCase());
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(SchemaConnectionFactory.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    /**
+     * 处理 Object 方法, 其余方法不支持
+     */
+    private static Object unsupported(Object proxy, Method method, Object[] args) throws SQLException {
+        switch (method.getName()) {
+            case "toString":
+                return proxy.getClass().getInterfaces()[0].getSimpleName() + "@" + SchemaConnectionFactory.class.getSimpleName();
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            default:
+                throw new SQLFeatureNotSupportedException(method.getName());
+        }
+    }
+}
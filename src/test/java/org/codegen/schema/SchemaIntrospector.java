@@ -0,0 +1,541 @@
+package org.codegen.schema;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * 表结构读取器
+ * 使用同一个连接读取表的字段, 主键和索引信息; 指定表名时只查询这些表或它们的公共前缀, 不遍历整个库
+ */
+public class SchemaIntrospector {
+
+    private static final String MYSQL_TABLE_SQL = "SELECT TABLE_NAME, TABLE_TYPE, TABLE_COMMENT"
+            + " FROM information_schema.TABLES WHERE TABLE_SCHEMA = ?";
+
+    private static final String MYSQL_INDEX_SQL = "SELECT TABLE_NAME, INDEX_NAME, NON_UNIQUE, COLUMN_NAME"
+            + " FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = ?";
+
+    private static final String MYSQL_INDEX_ORDER = " ORDER BY TABLE_NAME, INDEX_NAME, SEQ_IN_INDEX";
+
+    private static final String PRIMARY_INDEX_NAME = "PRIMARY";
+
+    // 指定的表不超过该数量时逐表查询, 否则按表名公共前缀查询
+    private static final int PER_TABLE_LIMIT = 16;
+
+    private final Connection connection;
+
+    public SchemaIntrospector(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * 读取指定表的结构
+     * @param tableNames 表名, 忽略大小写, 不存在的表不会出现在结果中
+     * @return 表结构模型
+     * @throws SQLException
+     */
+    public SchemaModel introspect(Collection<String> tableNames) throws SQLException {
+        Map<String, TableMeta> tables = new LinkedHashMap<>();
+        for (String tableName : tableNames) {
+            tables.put(tableName.toLowerCase(), null);
+        }
+        return introspect(tables, false);
+    }
+
+    /**
+     * 读取当前库中所有表的结构
+     * @return 表结构模型
+     * @throws SQLException
+     */
+    public SchemaModel introspectAll() throws SQLException {
+        return introspect(new LinkedHashMap<String, TableMeta>(), true);
+    }
+
+    /**
+     * 流式读取匹配的表, 每凑满 chunkSize 张表交给 consumer 处理一次, 处理完即丢弃
+     * 字段按 JDBC 规定的表名顺序逐行读取, 内存中只保留一批表的结构, 与库中表的总数无关
+     * @param tablePattern 表名模式, 语法同 SQL LIKE, eg: sys_%
+     * @param filter 表名正则过滤, 为 null 时不过滤
+     * @param chunkSize 每批表数
+     * @param consumer 每批表结构的处理
+     * @return 读取的表总数
+     * @throws SQLException
+     */
+    public int introspect(String tablePattern, Pattern filter, int chunkSize, Consumer<SchemaModel> consumer)
+            throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String catalog = connection.getCatalog();
+        String schema = getSchema();
+
+        int count = 0;
+        Map<String, TableMeta> chunk = new LinkedHashMap<>();
+        try (ResultSet rs = metaData.getColumns(catalog, schema, tablePattern, "%")) {
+            boolean hasAutoIncrement = hasColumn(rs, "IS_AUTOINCREMENT");
+            boolean hasGenerated = hasColumn(rs, "IS_GENERATEDCOLUMN");
+            while (rs.next()) {
+                String tableName = rs.getString("TABLE_NAME");
+                if (filter != null && !filter.matcher(tableName).matches()) {
+                    continue;
+                }
+                TableMeta table = chunk.get(tableName.toLowerCase());
+                if (table == null) {
+                    if (chunk.size() >= chunkSize) {
+                        count += flush(metaData, catalog, schema, chunk, consumer);
+                        chunk = new LinkedHashMap<>();
+                    }
+                    table = new TableMeta(tableName);
+                    chunk.put(tableName.toLowerCase(), table);
+                }
+                table.getColumns().add(readColumn(rs, hasAutoIncrement, hasGenerated));
+            }
+        }
+        count += flush(metaData, catalog, schema, chunk, consumer);
+        return count;
+    }
+
+    /**
+     * 计算匹配的表的结构摘要, 用于低开销地发现表结构变化
+     * 只遍历一次字段定义, MySQL 另外一次读取所有索引, 不读取表注释; 其他数据库不含索引
+     * @param tablePattern 表名模式, 语法同 SQL LIKE, eg: sys_%
+     * @param filter 表名正则过滤, 为 null 时不过滤
+     * @return 表名 ==> 结构摘要
+     * @throws SQLException
+     */
+    public Map<String, String> checksums(String tablePattern, Pattern filter) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String catalog = connection.getCatalog();
+        Map<String, Hasher> hashers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        try (ResultSet rs = metaData.getColumns(catalog, getSchema(), tablePattern, "%")) {
+            boolean hasAutoIncrement = hasColumn(rs, "IS_AUTOINCREMENT");
+            boolean hasGenerated = hasColumn(rs, "IS_GENERATEDCOLUMN");
+            while (rs.next()) {
+                String tableName = rs.getString("TABLE_NAME");
+                if (filter != null && !filter.matcher(tableName).matches()) {
+                    continue;
+                }
+                Hasher hasher = hashers.get(tableName);
+                if (hasher == null) {
+                    hasher = Hashing.murmur3_128().newHasher();
+                    hashers.put(tableName, hasher);
+                }
+                ColumnMeta column = readColumn(rs, hasAutoIncrement, hasGenerated);
+                hasher.putString(column.getName() + '|' + column.getDataType() + '|' + column.getTypeName() + '|'
+                        + column.getColumnSize() + '|' + column.getDecimalDigits() + '|' + column.getNullable() + '|'
+                        + column.getDefaultValue() + '|' + column.getRemarks() + '|' + column.isAutoIncrement() + '|'
+                        + column.isGenerated() + '\n', StandardCharsets.UTF_8);
+            }
+        }
+        if (isMysql(metaData) && !hashers.isEmpty()) {
+            try (PreparedStatement ps = prepareMysql(MYSQL_INDEX_SQL, MYSQL_INDEX_ORDER, catalog, null, true)) {
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Hasher hasher = hashers.get(rs.getString("TABLE_NAME"));
+                        if (hasher != null) {
+                            hasher.putString("INDEX|" + rs.getString("INDEX_NAME") + '|' + rs.getInt("NON_UNIQUE")
+                                    + '|' + rs.getString("COLUMN_NAME") + '\n', StandardCharsets.UTF_8);
+                        }
+                    }
+                }
+            }
+        }
+
+        Map<String, String> checksums = new LinkedHashMap<>();
+        for (Map.Entry<String, Hasher> entry : hashers.entrySet()) {
+            checksums.put(entry.getKey(), entry.getValue().hash().toString());
+        }
+        return checksums;
+    }
+
+    /**
+     * 补全一批表的类型, 注释, 主键和索引后交给 consumer
+     */
+    private int flush(DatabaseMetaData metaData, String catalog, String schema, Map<String, TableMeta> chunk,
+                      Consumer<SchemaModel> consumer) throws SQLException {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        if (isMysql(metaData)) {
+            readMysqlTables(catalog, chunk);
+        } else {
+            for (TableMeta table : chunk.values()) {
+                readTable(metaData, catalog, schema, table);
+            }
+        }
+        readIndexes(metaData, catalog, schema, chunk, false);
+
+        SchemaModel model = new SchemaModel();
+        for (TableMeta table : chunk.values()) {
+            // getColumns 不区分表类型, 系统表等其他对象不生成
+            if ("TABLE".equals(table.getTableType()) || "VIEW".equals(table.getTableType())) {
+                model.addTable(table);
+            }
+        }
+        consumer.accept(model);
+        return model.size();
+    }
+
+    /**
+     * @param tables 需要读取的表, key 为小写表名
+     * @param all 是否读取所有表
+     */
+    private SchemaModel introspect(Map<String, TableMeta> tables, boolean all) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String catalog = connection.getCatalog();
+        String schema = getSchema();
+
+        if (all) {
+            readTables(metaData, catalog, schema, "%", tables, true);
+            readColumns(metaData, catalog, schema, "%", tables);
+        } else {
+            readRequestedTables(metaData, catalog, schema, tables);
+        }
+        readIndexes(metaData, catalog, schema, tables, all);
+
+        SchemaModel model = new SchemaModel();
+        for (TableMeta table : tables.values()) {
+            if (table != null) {
+                model.addTable(table);
+            }
+        }
+        return model;
+    }
+
+    /**
+     * 读取指定表的类型, 注释和字段, 只查询需要的表
+     * 表数不超过 PER_TABLE_LIMIT 时逐表查询; 否则按表名公共前缀查询表, 需要的表占匹配表的一半以上时按该前缀一次读取字段,
+     * 否则逐表读取字段. 表名大小写与数据库存储不一致等原因未找到的表, 再查询整库的表名补充
+     */
+    private void readRequestedTables(DatabaseMetaData metaData, String catalog, String schema,
+                                     Map<String, TableMeta> tables) throws SQLException {
+        if (tables.isEmpty()) {
+            return;
+        }
+        List<String> names = new ArrayList<>(tables.keySet());
+        String prefixPattern = null;
+        int matched = 0;
+        if (names.size() <= PER_TABLE_LIMIT) {
+            for (String name : names) {
+                readTables(metaData, catalog, schema, toPattern(metaData, name, false), tables, false);
+            }
+        } else {
+            prefixPattern = toPattern(metaData, commonPrefix(names), true);
+            matched = readTables(metaData, catalog, schema, prefixPattern, tables, false);
+        }
+        if (tables.containsValue(null)) {
+            readTables(metaData, catalog, schema, "%", tables, false);
+        }
+
+        List<TableMeta> found = new ArrayList<>();
+        for (TableMeta table : tables.values()) {
+            if (table != null) {
+                found.add(table);
+            }
+        }
+        if (prefixPattern != null && found.size() * 2 >= matched) {
+            readColumns(metaData, catalog, schema, prefixPattern, tables);
+        } else {
+            for (TableMeta table : found) {
+                readColumns(metaData, catalog, schema, toPattern(metaData, table.getName(), false), tables);
+            }
+        }
+    }
+
+    /**
+     * 读取表名, 类型和注释
+     * @param tablePattern 表名模式
+     * @param all 是否保留所有表, 否则只补全 tables 中尚未读取的表
+     * @return 模式匹配的表数
+     */
+    private int readTables(DatabaseMetaData metaData, String catalog, String schema, String tablePattern,
+                           Map<String, TableMeta> tables, boolean all) throws SQLException {
+        int count = 0;
+        try (ResultSet rs = metaData.getTables(catalog, schema, tablePattern, new String[]{"TABLE", "VIEW"})) {
+            while (rs.next()) {
+                count++;
+                String tableName = rs.getString("TABLE_NAME");
+                String key = tableName.toLowerCase();
+                if ((all || tables.containsKey(key)) && tables.get(key) == null) {
+                    TableMeta table = new TableMeta(tableName);
+                    table.setTableType(rs.getString("TABLE_TYPE"));
+                    table.setRemarks(rs.getString("REMARKS"));
+                    tables.put(key, table);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 表名的公共前缀
+     */
+    private static String commonPrefix(List<String> names) {
+        String prefix = names.get(0);
+        for (String name : names) {
+            int i = 0;
+            while (i < prefix.length() && i < name.length() && prefix.charAt(i) == name.charAt(i)) {
+                i++;
+            }
+            prefix = prefix.substring(0, i);
+        }
+        return prefix;
+    }
+
+    /**
+     * 转换为数据库存储的大小写, 并转义 LIKE 通配符的表名模式
+     * @param prefix 是否为前缀, 是则末尾追加 %
+     */
+    private static String toPattern(DatabaseMetaData metaData, String name, boolean prefix) throws SQLException {
+        if (metaData.storesUpperCaseIdentifiers()) {
+            name = name.toUpperCase();
+        } else if (metaData.storesLowerCaseIdentifiers()) {
+            name = name.toLowerCase();
+        }
+        String escape = metaData.getSearchStringEscape();
+        StringBuilder sb = new StringBuilder();
+        for (char c : name.toCharArray()) {
+            if (escape != null && !escape.isEmpty() && (c == '_' || c == '%' || escape.indexOf(c) >= 0)) {
+                sb.append(escape);
+            }
+            sb.append(c);
+        }
+        return prefix ? sb.append('%').toString() : sb.toString();
+    }
+
+    /**
+     * 读取单张表的类型和注释
+     */
+    private void readTable(DatabaseMetaData metaData, String catalog, String schema, TableMeta table)
+            throws SQLException {
+        try (ResultSet rs = metaData.getTables(catalog, schema, table.getName(), null)) {
+            while (rs.next()) {
+                if (table.getName().equals(rs.getString("TABLE_NAME"))) {
+                    table.setTableType(rs.getString("TABLE_TYPE"));
+                    table.setRemarks(rs.getString("REMARKS"));
+                }
+            }
+        }
+    }
+
+    /**
+     * MySQL 通过 information_schema.TABLES 一次读取一批表的类型和注释
+     */
+    private void readMysqlTables(String catalog, Map<String, TableMeta> tables) throws SQLException {
+        try (PreparedStatement ps = prepareMysql(MYSQL_TABLE_SQL, "", catalog, tables, false)) {
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    TableMeta table = tables.get(rs.getString("TABLE_NAME").toLowerCase());
+                    if (table != null) {
+                        // information_schema 中普通表为 BASE TABLE, 与 JDBC 的 TABLE 保持一致
+                        String tableType = rs.getString("TABLE_TYPE");
+                        table.setTableType("BASE TABLE".equals(tableType) ? "TABLE" : tableType);
+                        table.setRemarks(rs.getString("TABLE_COMMENT"));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 读取匹配表名模式的字段, 只保留需要的表
+     */
+    private void readColumns(DatabaseMetaData metaData, String catalog, String schema, String tablePattern,
+                             Map<String, TableMeta> tables) throws SQLException {
+        try (ResultSet rs = metaData.getColumns(catalog, schema, tablePattern, "%")) {
+            boolean hasAutoIncrement = hasColumn(rs, "IS_AUTOINCREMENT");
+            boolean hasGenerated = hasColumn(rs, "IS_GENERATEDCOLUMN");
+            while (rs.next()) {
+                String tableName = rs.getString("TABLE_NAME");
+                TableMeta table = tables.get(tableName.toLowerCase());
+                // 只取与 readTables 读到的表名完全相同的表, 避免大小写不同的同名表重复添加字段
+                if (table == null || !table.getName().equals(tableName)) {
+                    continue;
+                }
+                table.getColumns().add(readColumn(rs, hasAutoIncrement, hasGenerated));
+            }
+        }
+    }
+
+    /**
+     * 读取结果集当前行的字段信息
+     */
+    private ColumnMeta readColumn(ResultSet rs, boolean hasAutoIncrement, boolean hasGenerated) throws SQLException {
+        ColumnMeta column = new ColumnMeta();
+        column.setName(rs.getString("COLUMN_NAME"));
+        column.setDataType(rs.getInt("DATA_TYPE"));
+        column.setTypeName(rs.getString("TYPE_NAME"));
+        column.setColumnSize(rs.getInt("COLUMN_SIZE"));
+        column.setDecimalDigits(rs.getInt("DECIMAL_DIGITS"));
+        column.setNullable(rs.getInt("NULLABLE"));
+        column.setRemarks(rs.getString("REMARKS"));
+        column.setDefaultValue(rs.getString("COLUMN_DEF"));
+        column.setAutoIncrement(hasAutoIncrement && "YES".equals(rs.getString("IS_AUTOINCREMENT")));
+        column.setGenerated(hasGenerated && "YES".equals(rs.getString("IS_GENERATEDCOLUMN")));
+        return column;
+    }
+
+    /**
+     * 读取主键和索引, MySQL 一次读取, 其他数据库按表读取
+     * @param all 是否为整库读取, 整库读取时 MySQL 不按表名过滤
+     */
+    private void readIndexes(DatabaseMetaData metaData, String catalog, String schema, Map<String, TableMeta> tables,
+                             boolean all) throws SQLException {
+        if (tables.isEmpty()) {
+            return;
+        }
+        if (isMysql(metaData)) {
+            readMysqlIndexes(catalog, tables, all);
+            return;
+        }
+        for (TableMeta table : tables.values()) {
+            if (table != null) {
+                readIndexes(metaData, catalog, schema, table);
+            }
+        }
+    }
+
+    /**
+     * MySQL 通过 information_schema.STATISTICS 一次读取所有表的主键和索引
+     */
+    private void readMysqlIndexes(String catalog, Map<String, TableMeta> tables, boolean all) throws SQLException {
+        try (PreparedStatement ps = prepareMysql(MYSQL_INDEX_SQL, MYSQL_INDEX_ORDER, catalog, tables, all)) {
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    TableMeta table = tables.get(rs.getString("TABLE_NAME").toLowerCase());
+                    if (table == null) {
+                        continue;
+                    }
+                    addIndexColumn(table, rs.getString("INDEX_NAME"), rs.getInt("NON_UNIQUE") == 0,
+                            rs.getString("COLUMN_NAME"));
+                }
+            }
+        }
+    }
+
+    /**
+     * 其他数据库按表读取主键和索引, JDBC 规定这两项必须指定表名, 但仍复用同一个连接
+     */
+    private void readIndexes(DatabaseMetaData metaData, String catalog, String schema, TableMeta table)
+            throws SQLException {
+        Map<Short, String> primaryKeys = new TreeMap<>();
+        try (ResultSet rs = metaData.getPrimaryKeys(catalog, schema, table.getName())) {
+            while (rs.next()) {
+                primaryKeys.put(rs.getShort("KEY_SEQ"), rs.getString("COLUMN_NAME"));
+            }
+        }
+        table.getPrimaryKeys().addAll(primaryKeys.values());
+
+        Map<String, Map<Short, String>> indexColumns = new LinkedHashMap<>();
+        Map<String, Boolean> uniques = new HashMap<>();
+        try (ResultSet rs = metaData.getIndexInfo(catalog, schema, table.getName(), false, true)) {
+            while (rs.next()) {
+                String indexName = rs.getString("INDEX_NAME");
+                String columnName = rs.getString("COLUMN_NAME");
+                if (indexName == null || columnName == null || rs.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic) {
+                    continue;
+                }
+                if (!indexColumns.containsKey(indexName)) {
+                    indexColumns.put(indexName, new TreeMap<Short, String>());
+                    uniques.put(indexName, !rs.getBoolean("NON_UNIQUE"));
+                }
+                indexColumns.get(indexName).put(rs.getShort("ORDINAL_POSITION"), columnName);
+            }
+        }
+        for (Map.Entry<String, Map<Short, String>> entry : indexColumns.entrySet()) {
+            // 主键对应的索引已记录在 primaryKeys 中
+            if (entry.getValue().values().containsAll(primaryKeys.values())
+                    && primaryKeys.values().containsAll(entry.getValue().values())
+                    && uniques.get(entry.getKey())) {
+                continue;
+            }
+            for (String columnName : entry.getValue().values()) {
+                addIndexColumn(table, entry.getKey(), uniques.get(entry.getKey()), columnName);
+            }
+        }
+    }
+
+    /**
+     * 按顺序追加索引字段, PRIMARY 索引记为主键
+     */
+    private void addIndexColumn(TableMeta table, String indexName, boolean unique, String columnName) {
+        if (PRIMARY_INDEX_NAME.equalsIgnoreCase(indexName)) {
+            table.getPrimaryKeys().add(columnName);
+            return;
+        }
+        IndexMeta index = table.getIndex(indexName);
+        if (index == null) {
+            index = new IndexMeta(indexName, unique);
+            table.getIndexes().add(index);
+        }
+        index.getColumns().add(columnName);
+    }
+
+    /**
+     * 构造 information_schema 查询, 非整库读取时按表名过滤
+     */
+    private PreparedStatement prepareMysql(String sql, String orderBy, String catalog, Map<String, TableMeta> tables,
+                                           boolean all) throws SQLException {
+        StringBuilder sb = new StringBuilder(sql);
+        if (!all) {
+            sb.append(" AND TABLE_NAME IN (");
+            for (int i = 0; i < tables.size(); i++) {
+                sb.append(i == 0 ? "?" : ", ?");
+            }
+            sb.append(")");
+        }
+        sb.append(orderBy);
+        PreparedStatement ps = connection.prepareStatement(sb.toString());
+        int index = 1;
+        ps.setString(index++, catalog);
+        if (!all) {
+            for (Map.Entry<String, TableMeta> entry : tables.entrySet()) {
+                ps.setString(index++, entry.getValue() == null ? entry.getKey() : entry.getValue().getName());
+            }
+        }
+        return ps;
+    }
+
+    private static boolean isMysql(DatabaseMetaData metaData) throws SQLException {
+        return "MySQL".equalsIgnoreCase(metaData.getDatabaseProductName());
+    }
+
+    /**
+     * 获取当前 schema, 旧驱动不支持时返回 null
+     */
+    private String getSchema() {
+        try {
+            return connection.getSchema();
+        } catch (SQLException | AbstractMethodError e) {
+            return null;
+        }
+    }
+
+    /**
+     * 结果集中是否包含某列, 不同驱动返回的列不完全相同
+     */
+    private static boolean hasColumn(ResultSet rs, String columnName) throws SQLException {
+        ResultSetMetaData rsmd = rs.getMetaData();
+        for (int i = 1; i <= rsmd.getColumnCount(); i++) {
+            if (columnName.equalsIgnoreCase(rsmd.getColumnName(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
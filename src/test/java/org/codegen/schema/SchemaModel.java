@@ -0,0 +1,53 @@
+package org.codegen.schema;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 内存中的表结构模型, 表名忽略大小写
+ * 一次读取后供各生成阶段共享, 不再重复访问数据库
+ */
+public class SchemaModel {
+
+    private final Map<String, TableMeta> tables = new LinkedHashMap<>();
+
+    /**
+     * 添加表, 同名表会被覆盖
+     * @param table 表元数据
+     */
+    public synchronized void addTable(TableMeta table) {
+        tables.put(table.getName().toLowerCase(), table);
+    }
+
+    /**
+     * 通过表名获取表
+     * @param tableName 表名
+     * @return 不存在时返回 null
+     */
+    public synchronized TableMeta getTable(String tableName) {
+        return tableName == null ? null : tables.get(tableName.toLowerCase());
+    }
+
+    /**
+     * 是否包含表
+     * @param tableName 表名
+     * @return
+     */
+    public boolean contains(String tableName) {
+        return getTable(tableName) != null;
+    }
+
+    /**
+     * 获取所有表
+     * @return
+     */
+    public synchronized List<TableMeta> getTables() {
+        return new ArrayList<>(tables.values());
+    }
+
+    public synchronized int size() {
+        return tables.size();
+    }
+}
@@ -0,0 +1,73 @@
+package org.codegen.schema;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 表结构快照
+ * 每行一个表的 JSON (JSON Lines), 导出一次后可脱离数据库生成代码
+ */
+public class SchemaSnapshot {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private SchemaSnapshot() {
+    }
+
+    /**
+     * 导出表结构快照
+     * @param schema 表结构模型
+     * @param file 快照文件
+     * @throws IOException
+     */
+    public static void write(SchemaModel schema, File file) throws IOException {
+        if (file.getParentFile() != null && !file.getParentFile().exists()) {
+            file.getParentFile().mkdirs();
+        }
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            for (TableMeta table : schema.getTables()) {
+                writer.write(MAPPER.writeValueAsString(table));
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * 读取表结构快照, 文件以内存映射方式读取, 直接从映射区解析
+     * @param file 快照文件
+     * @return 表结构模型
+     * @throws IOException
+     */
+    public static SchemaModel read(File file) throws IOException {
+        SchemaModel schema = new SchemaModel();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            if (channel.size() == 0) {
+                return schema;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try (MappingIterator<TableMeta> it = MAPPER.readerFor(TableMeta.class)
+                    .readValues(new ByteBufferBackedInputStream(buffer))) {
+                while (it.hasNextValue()) {
+                    schema.addTable(it.nextValue());
+                }
+            }
+        }
+        return schema;
+    }
+}
@@ -0,0 +1,130 @@
+package org.codegen.schema;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 表元数据, 包含字段, 主键和索引
+ */
+public class TableMeta {
+    // 数据库中的实际表名
+    private String name;
+    // 表类型, eg: TABLE
+    private String tableType = "TABLE";
+    // 表注释
+    private String remarks;
+    // 字段, 按表中顺序排列
+    private List<ColumnMeta> columns = new ArrayList<>();
+    // 主键字段, 按主键中顺序排列
+    private List<String> primaryKeys = new ArrayList<>();
+    // 索引, 不含主键
+    private List<IndexMeta> indexes = new ArrayList<>();
+
+    public TableMeta() {
+    }
+
+    public TableMeta(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 通过字段名获取字段, 忽略大小写
+     * @param columnName 字段名
+     * @return 不存在时返回 null
+     */
+    public ColumnMeta getColumn(String columnName) {
+        for (ColumnMeta column : columns) {
+            if (column.getName().equalsIgnoreCase(columnName)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 通过索引名获取索引, 忽略大小写
+     * @param indexName 索引名
+     * @return 不存在时返回 null
+     */
+    public IndexMeta getIndex(String indexName) {
+        for (IndexMeta index : indexes) {
+            if (index.getName().equalsIgnoreCase(indexName)) {
+                return index;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 单列唯一索引的字段, 按索引顺序排列, 不含单列主键
+     * @return 字段名, 同一字段只出现一次
+     */
+    public List<String> getUniqueColumns() {
+        List<String> result = new ArrayList<>();
+        for (IndexMeta index : indexes) {
+            if (!index.isUnique() || index.getColumns().size() != 1) {
+                continue;
+            }
+            String columnName = index.getColumns().get(0);
+            if (primaryKeys.size() == 1 && primaryKeys.get(0).equalsIgnoreCase(columnName)) {
+                continue;
+            }
+            boolean exists = false;
+            for (String existing : result) {
+                exists |= existing.equalsIgnoreCase(columnName);
+            }
+            if (!exists) {
+                result.add(columnName);
+            }
+        }
+        return result;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getTableType() {
+        return tableType;
+    }
+
+    public void setTableType(String tableType) {
+        this.tableType = tableType;
+    }
+
+    public String getRemarks() {
+        return remarks;
+    }
+
+    public void setRemarks(String remarks) {
+        this.remarks = remarks;
+    }
+
+    public List<ColumnMeta> getColumns() {
+        return columns;
+    }
+
+    public void setColumns(List<ColumnMeta> columns) {
+        this.columns = columns;
+    }
+
+    public List<String> getPrimaryKeys() {
+        return primaryKeys;
+    }
+
+    public void setPrimaryKeys(List<String> primaryKeys) {
+        this.primaryKeys = primaryKeys;
+    }
+
+    public List<IndexMeta> getIndexes() {
+        return indexes;
+    }
+
+    public void setIndexes(List<IndexMeta> indexes) {
+        this.indexes = indexes;
+    }
+}
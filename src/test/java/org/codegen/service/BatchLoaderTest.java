@@ -0,0 +1,168 @@
+package org.codegen.service;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 编译生成的 BatchLoader, 以桩查询从多个线程并发加载: 收集窗口内的请求合并为一次查询, 查询失败时所有调用方收到同一异常
+ */
+public class BatchLoaderTest {
+
+    private static final int THREADS = 16;
+
+    // 收集窗口, 足够所有线程在第一次查询前排队
+    private static final long WINDOW_MILLIS = 500;
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static Class<?> loaderClass;
+
+    @BeforeClass
+    public static void compileLoader() throws Exception {
+        GenerationSession session = new GenerationSession(new CodeGeneratorManager().getFreemarkerConfiguration(), null,
+                null);
+        File source = new File(folder.newFolder("src"), "BatchLoader.java");
+        try (Writer out = new OutputStreamWriter(Files.newOutputStream(source.toPath()), StandardCharsets.UTF_8)) {
+            session.getTemplate("basebatchloader.ftl").process(session.newDataModel(), out);
+        }
+        File classes = folder.newFolder("classes");
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("需要 JDK 编译生成的代码", compiler);
+        assertEquals(0, compiler.run(null, null, null, "-encoding", "UTF-8", "-d", classes.getPath(), source.getPath()));
+        ClassLoader classLoader = new URLClassLoader(new URL[]{classes.toURI().toURL()}, BatchLoaderTest.class.getClassLoader());
+        loaderClass = classLoader.loadClass(CodeGeneratorConfig.BASE_PACKAGE + ".service.BatchLoader");
+    }
+
+    @Test
+    public void mergesConcurrentLoads() throws Exception {
+        final List<String> queries = new ArrayList<>();
+        final Object loader = newLoader(new Function<String, List<String>>() {
+            @Override
+            public List<String> apply(String ids) {
+                synchronized (queries) {
+                    queries.add(ids);
+                }
+                List<String> models = new ArrayList<>();
+                for (String id : ids.split(",")) {
+                    models.add("model-" + id);
+                }
+                return models;
+            }
+        });
+
+        List<Future<Object>> results = loadConcurrently(loader);
+        for (int i = 0; i < THREADS; i++) {
+            assertEquals("model-" + i, results.get(i).get());
+        }
+        assertEquals(1L, invoke(loader, "getBatchCount"));
+        assertEquals((long) THREADS, invoke(loader, "getRequestCount"));
+        assertEquals(1, queries.size());
+        assertEquals(THREADS, queries.get(0).split(",").length);
+    }
+
+    @Test
+    public void failedQueryFailsEveryCaller() throws Exception {
+        final RuntimeException error = new IllegalStateException("query failed");
+        Object loader = newLoader(new Function<String, List<String>>() {
+            @Override
+            public List<String> apply(String ids) {
+                throw error;
+            }
+        });
+
+        for (Future<Object> result : loadConcurrently(loader)) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                assertSame(error, e.getCause());
+                continue;
+            }
+            throw new AssertionError("查询失败时调用方应收到异常");
+        }
+        assertEquals(1L, invoke(loader, "getBatchCount"));
+        assertEquals((long) THREADS, invoke(loader, "getRequestCount"));
+    }
+
+    private static Object newLoader(Function<String, List<String>> query) throws Exception {
+        Constructor<?> constructor = loaderClass.getConstructor(Function.class, Function.class, long.class, int.class);
+        Function<String, Object> keyFunction = new Function<String, Object>() {
+            @Override
+            public Object apply(String model) {
+                return model.substring("model-".length());
+            }
+        };
+        return constructor.newInstance(query, keyFunction, WINDOW_MILLIS, THREADS);
+    }
+
+    /**
+     * 所有线程同时开始, 第 i 个线程加载主键 i
+     * @return 各线程的加载结果, 按主键排列
+     */
+    private static List<Future<Object>> loadConcurrently(final Object loader) throws Exception {
+        final Method load = loaderClass.getMethod("load", Object.class);
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                final long id = i;
+                results.add(executor.submit(new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+                        start.await();
+                        try {
+                            return load.invoke(loader, id);
+                        } catch (InvocationTargetException e) {
+                            throw (Exception) e.getCause();
+                        }
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Object> result : results) {
+                try {
+                    result.get(10, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    // 由调用方检查
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Object invoke(Object loader, String methodName) throws Exception {
+        return loaderClass.getMethod(methodName).invoke(loader);
+    }
+}
@@ -1,5 +1,10 @@
 package org.codegen.service;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * 配置信息变量
  * Created by zhh on 2017/09/27.
@@ -55,4 +60,79 @@ public class CodeGeneratorConfig {
     protected static String AUTHOR;
     // 模板注释中 @date
     protected static String DATE;
+
+    // 生成键集分页: Mapper 的 selectAfter, Service 的 findAfter 和按 cursor 翻页的 Controller
+    protected static boolean TEMPLATE_KEYSET_PAGINATION;
+    // 批量插入每批条数, 小于等于 0 时 save(List) 一次插入整个列表
+    protected static int TEMPLATE_BATCH_SIZE;
+    // 批量插入方式: multi_row 每批一条多行 INSERT, batch 使用 BATCH 执行器
+    protected static String TEMPLATE_BATCH_STRATEGY;
+    // 为单列唯一索引生成 Mapper 的 selectByXxx 和 Service 的 findByXxx
+    protected static boolean TEMPLATE_UNIQUE_FINDERS;
+    // 为主键和索引的前缀字段生成等值和范围查询 selectByXxx / findByXxx
+    protected static boolean TEMPLATE_INDEX_FINDERS;
+    // 主键集合每批 IN 列表的长度, 小于等于 0 时不生成 Collection<Long> / long[] 重载
+    protected static int TEMPLATE_IDS_CHUNK_SIZE;
+    // 生成异步 Controller 和对应的 Service 异步方法
+    protected static boolean TEMPLATE_ASYNC_CONTROLLER;
+    // 异步方法数据库执行器的线程数和队列容量
+    protected static int TEMPLATE_ASYNC_POOL_SIZE;
+    protected static int TEMPLATE_ASYNC_QUEUE_CAPACITY;
+    // 异步方法在 JDK 21 及以上时使用虚拟线程
+    protected static boolean TEMPLATE_ASYNC_VIRTUAL_THREADS;
+    // 为每个 Model 生成 JsonWriter, Controller 通过它直接写入响应
+    protected static boolean TEMPLATE_JSON_WRITER;
+    // 生成按游标逐行读取的 streamAll 和 Controller 的 export 导出接口
+    protected static boolean TEMPLATE_STREAM_EXPORT;
+    // 游标查询的 fetchSize, MySQL 驱动默认为 Integer.MIN_VALUE (逐行返回), 其他驱动默认为 1000
+    protected static int TEMPLATE_STREAM_FETCH_SIZE;
+    // 开启实体缓存的表名, 小写, 为空时不生成缓存
+    protected static Set<String> TEMPLATE_CACHE_TABLES = Collections.emptySet();
+    // 每张表实体缓存的最大条数
+    protected static int TEMPLATE_CACHE_MAX_SIZE;
+    // 实体缓存过期时间(s), 小于等于 0 时只按条数淘汰
+    protected static long TEMPLATE_CACHE_TTL_SECONDS;
+    // 开启批量加载器的表名, 小写, 为空时不生成
+    protected static Set<String> TEMPLATE_BATCH_LOADER_TABLES = Collections.emptySet();
+    // 批量加载器每次查询前收集请求的时间(ms)
+    protected static long TEMPLATE_BATCH_LOADER_WINDOW_MILLIS;
+    // 批量加载器每次查询的最大请求数
+    protected static int TEMPLATE_BATCH_LOADER_MAX_SIZE;
+    // 小写表名 ==> 分页列表的总行数统计方式 (none, cached, estimate), 未配置的表精确 COUNT(*)
+    protected static Map<String, String> TEMPLATE_PAGE_COUNT_MODES = Collections.emptyMap();
+    // 分页总行数 cached 方式的缓存时间(s)
+    protected static long TEMPLATE_PAGE_COUNT_TTL_SECONDS;
+    // 小写表名 ==> 投影名 (大驼峰) ==> 字段名, 为空时不生成投影
+    protected static Map<String, Map<String, List<String>>> TEMPLATE_PROJECTIONS = Collections.emptyMap();
+    // 实体跟踪 setter 修改过的字段, Service.update 只更新这些字段
+    protected static boolean TEMPLATE_DIRTY_TRACKING;
+    // 生成按语句统计耗时, 行数和失败次数的 MyBatis 插件
+    protected static boolean TEMPLATE_STATEMENT_METRICS;
+    // 语句统计注册为 JMX MXBean
+    protected static boolean TEMPLATE_STATEMENT_METRICS_JMX;
+    // 生成插入或更新 (upsert) 语句和 Service.upsert / upsertAll
+    protected static boolean TEMPLATE_UPSERT;
+    // Service.upsertAll 每条多行 upsert 语句的行数
+    protected static int TEMPLATE_UPSERT_CHUNK_SIZE;
+
+    // 并行生成的工作线程数, 小于等于 1 时逐表生成
+    protected static int GEN_PARALLELISM;
+    // 是否增量生成, 输入未变化的文件不再重新生成
+    protected static boolean GEN_INCREMENTAL;
+    // 增量生成清单文件路径
+    protected static String GEN_MANIFEST_PATH;
+    // 是否离线生成, 表结构从快照文件读取而不访问数据库
+    protected static boolean GEN_OFFLINE;
+    // 表结构快照文件路径
+    protected static String GEN_SNAPSHOT_PATH;
+    // 按表名模式生成时每批读取并生成的表数
+    protected static int GEN_BATCH_SIZE;
+    // 生成结果写入的 zip 文件路径, 为空时写入项目目录
+    protected static String GEN_OUTPUT_ZIP;
+    // 生成耗时报告 (JSON) 路径, 为空时不输出
+    protected static String GEN_REPORT_PATH;
+    // 监听表结构变化的轮询间隔(ms)
+    protected static long GEN_WATCH_INTERVAL;
+    // 配置信息摘要, 不含 gen.* 运行参数
+    protected static String CONFIG_HASH;
 }
@@ -1,8 +1,17 @@
 package org.codegen.service;
 
 import com.google.common.base.CaseFormat;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import freemarker.template.Configuration;
 import freemarker.template.TemplateExceptionHandler;
+import org.codegen.output.FileSystemOutputSink;
+import org.codegen.output.OutputSink;
+import org.codegen.output.ZipOutputSink;
+import org.codegen.schema.SchemaIntrospector;
+import org.codegen.schema.SchemaModel;
+import org.codegen.schema.SchemaSnapshot;
+import org.codegen.schema.TableMeta;
 import org.codegen.service.impl.CommonGenerator;
 import org.codegen.service.impl.ControllerGenerator;
 import org.codegen.service.impl.ModelAndMapperGenerator;
@@ -15,15 +24,39 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 public class CodeGeneratorManager extends CodeGeneratorConfig {
 
     protected static final Logger logger = LoggerFactory.getLogger(CodeGeneratorManager.class);
 
-    private static Configuration configuration = null;
+    // 表名模式的正则前缀, 其余按 SQL LIKE 语法处理
+    private static final String REGEX_PATTERN_PREFIX = "regex:";
+
+    private static volatile Configuration configuration = null;
+
+    // 自定义输出目标, 为 null 时按配置创建, 由调用方负责关闭
+    private OutputSink outputSink;
 
     static {
         // 初始化配置信息
@@ -35,8 +68,72 @@ public class CodeGeneratorManager extends CodeGeneratorConfig {
      * @return
      */
     public Configuration getFreemarkerConfiguration() {
+        return freemarkerConfiguration();
+    }
+
+    /**
+     * 设置输出目标, 如 MemoryOutputSink, 不设置时按配置写入文件系统或 zip 文件
+     * @param outputSink 输出目标, 由调用方负责关闭
+     */
+    public void setOutputSink(OutputSink outputSink) {
+        this.outputSink = outputSink;
+    }
+
+    /**
+     * 创建写入文件系统的生成会话, 模板, 包路径和通用类名在会话内只计算一次
+     * @param manifest 增量生成清单, 为 null 时总是生成
+     * @return
+     */
+    protected static GenerationSession newSession(GenerationManifest manifest) {
+        return new GenerationSession(freemarkerConfiguration(), manifest, new FileSystemOutputSink());
+    }
+
+    /**
+     * 创建本次运行的生成会话
+     * 写入文件系统时总是加载生成清单, 记录基础类的生成输入; 开启增量生成时还跳过输入未变化的文件
+     * @return
+     */
+    protected GenerationSession newSession() {
+        return newSession(GEN_INCREMENTAL);
+    }
+
+    /**
+     * 创建本次运行的生成会话
+     * @param incremental 是否增量生成
+     * @return
+     */
+    private GenerationSession newSession(boolean incremental) {
+        OutputSink sink = newOutputSink();
+        GenerationManifest manifest = incremental || sink instanceof FileSystemOutputSink
+                ? newManifest(incremental).load() : null;
+        return new GenerationSession(freemarkerConfiguration(), manifest, sink);
+    }
+
+    /**
+     * 创建输出目标: 已设置的输出目标, 配置了 gen.output.zip 时写入 zip 文件, 否则写入文件系统
+     * @return
+     */
+    protected OutputSink newOutputSink() {
+        if (outputSink != null) {
+            return outputSink;
+        }
+        if (StringUtils.isNullOrEmpty(GEN_OUTPUT_ZIP)) {
+            return new FileSystemOutputSink();
+        }
+        try {
+            return new ZipOutputSink(new File(PROJECT_PATH + GEN_OUTPUT_ZIP), new File(PROJECT_PATH));
+        } catch (IOException e) {
+            throw new RuntimeException("创建 zip 文件异常!", e);
+        }
+    }
+
+    private static Configuration freemarkerConfiguration() {
         if (configuration == null) {
-            configuration = initFreemarkerConfiguration();
+            synchronized (CodeGeneratorManager.class) {
+                if (configuration == null) {
+                    configuration = initFreemarkerConfiguration();
+                }
+            }
         }
         return configuration;
     }
@@ -46,23 +143,127 @@ public class CodeGeneratorManager extends CodeGeneratorConfig {
      * eg:
      * 	genCode("gen_test_demo");  gen_test_demo ==> Demo
      * @param tableNames 表名, 可以多表
+     * @return 每张表的生成结果
      */
-    public void genCodeWithSimpleName(String ...tableNames) {
-        genCodeByTableName(true, tableNames);
+    public GenerateReport genCodeWithSimpleName(String ...tableNames) {
+        return genCodeByTableName(true, true, tableNames);
     }
 
     /**
      * 不划分子模块生成代码.
      * @author wj
      * @param tableNames
+     * @return 每张表的生成结果
      */
-    public void genCodeNoModulize(String ...tableNames) {
-        for (String tableName : tableNames) {
-            new ModelAndMapperGenerator().genCode(tableName, null, null);
-            new ServiceGenerator().genCode(tableName, null, null);
-            new ControllerGenerator().genCode(tableName, null, null);
-            new CommonGenerator().genCommonMapper().genCommonService().genCommonAbstractService();
+    public GenerateReport genCodeNoModulize(String ...tableNames) {
+        return genCodeByTableName(false, false, tableNames);
+    }
+
+    /**
+     * 按表名模式生成整库代码, 表按区分字段划分子模块, 使用具体名称
+     * 表结构按 GEN_BATCH_SIZE 分批流式读取, 每批生成完即释放, 内存占用与库中表的总数无关
+     * 不符合 gen_test_demo 格式 (不含下划线) 的表不划分子模块
+     * eg:
+     * 	genCodeByPattern("sys_%");  SQL LIKE 语法
+     * 	genCodeByPattern("regex:sys_(area|log)");  正则, 需匹配完整表名
+     * 	genCodeByPattern(null);  当前库所有表
+     * @param pattern 表名模式
+     * @return 每张表的生成结果
+     */
+    public GenerateReport genCodeByPattern(String pattern) {
+        String likePattern = getLikePattern(pattern);
+        Pattern filter = getPatternFilter(pattern);
+
+        final GenerateReport report = new GenerateReport();
+        final GenerationSession session = newSession();
+        new CommonGenerator(session).genCommonCode();
+
+        final ExecutorService executor = newExecutor(GEN_BATCH_SIZE);
+        try {
+            // 读取与生成交替进行, 读取耗时 = 总耗时 - 各批生成耗时
+            final long[] generating = {0};
+            Consumer<SchemaModel> consumer = schema -> {
+                long start = System.nanoTime();
+                List<TableTask> tasks = new ArrayList<>();
+                for (TableMeta table : schema.getTables()) {
+                    tasks.add(newPatternTask(table.getName()));
+                }
+                genCodeBySchema(schema, tasks, session, executor, report);
+                generating[0] += System.nanoTime() - start;
+            };
+            long start = System.nanoTime();
+            if (GEN_OFFLINE) {
+                introspectSnapshot(likePattern, filter, consumer);
+            } else {
+                try (Connection connection = openConnection()) {
+                    new SchemaIntrospector(connection).introspect(likePattern, filter, GEN_BATCH_SIZE, consumer);
+                }
+            }
+            session.getMetrics().record(null, GenerationMetrics.Phase.INTROSPECT,
+                    System.nanoTime() - start - generating[0], 0);
+        } catch (Exception e) {
+            closeSink(session);
+            throw new RuntimeException("按表名模式生成代码异常!", e);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        return finish(session, report);
+    }
+
+    /**
+     * 表名模式中的 SQL LIKE 部分, 正则模式或为空时匹配所有表
+     * @param pattern 表名模式
+     * @return
+     */
+    protected static String getLikePattern(String pattern) {
+        if (StringUtils.isNullOrEmpty(pattern) || pattern.startsWith(REGEX_PATTERN_PREFIX)) {
+            return "%";
         }
+        return pattern;
+    }
+
+    /**
+     * 表名模式中的正则部分
+     * @param pattern 表名模式
+     * @return 表名正则, 非正则模式时为 null
+     */
+    protected static Pattern getPatternFilter(String pattern) {
+        if (StringUtils.isNullOrEmpty(pattern) || !pattern.startsWith(REGEX_PATTERN_PREFIX)) {
+            return null;
+        }
+        return Pattern.compile(pattern.substring(REGEX_PATTERN_PREFIX.length()));
+    }
+
+    /**
+     * 按表名模式生成时的任务: 使用具体名称, 不含下划线的表不划分子模块
+     * @param tableName 表名
+     * @return
+     */
+    protected TableTask newPatternTask(String tableName) {
+        return new TableTask(tableName, null, tableName.contains("_") ? getSign(tableName) : null);
+    }
+
+    /**
+     * 从数据库导出表结构快照, 供离线生成使用 (gen.offline=true)
+     * @param tableNames 表名, 为空时导出当前库所有表
+     * @return 快照文件
+     */
+    public File exportSchemaSnapshot(String ...tableNames) {
+        File file = new File(GEN_SNAPSHOT_PATH);
+        try {
+            try (Connection connection = openConnection()) {
+                SchemaIntrospector introspector = new SchemaIntrospector(connection);
+                SchemaModel schema = tableNames.length == 0 ? introspector.introspectAll()
+                        : introspector.introspect(Arrays.asList(tableNames));
+                SchemaSnapshot.write(schema, file);
+                logger.info("表结构快照导出成功: {} 张表, {}", schema.size(), file.getPath());
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("导出表结构快照异常!", e);
+        }
+        return file;
     }
 
     /**
@@ -70,9 +271,10 @@ public class CodeGeneratorManager extends CodeGeneratorConfig {
      * eg:
      * 	genCode("gen_test_demo");  gen_test_demo ==> GenTestDemo
      * @param tableNames 表名, 可以多表
+     * @return 每张表的生成结果
      */
-    public void genCodeWithDetailName(String ...tableNames) {
-        genCodeByTableName(false, tableNames);
+    public GenerateReport genCodeWithDetailName(String ...tableNames) {
+        return genCodeByTableName(true, false, tableNames);
     }
 
     /**
@@ -132,7 +334,7 @@ public class CodeGeneratorManager extends CodeGeneratorConfig {
      * @param tableName 表名, eg: gen_test_demo
      * @return 区分字段 eg: test
      */
-    private String getSign(String tableName) {
+    protected String getSign(String tableName) {
         return getTableNameSplit(tableName)[1];
     }
 
@@ -141,7 +343,7 @@ public class CodeGeneratorManager extends CodeGeneratorConfig {
      * @param tableName 表名
      * @return
      */
-    private String getDefModelName(String tableName) {
+    protected String getDefModelName(String tableName) {
         String[] strs = getTableNameSplit(tableName);
         StringBuilder sb = new StringBuilder();
         for (int i = 2; i < strs.length; i++) {
@@ -167,13 +369,330 @@ public class CodeGeneratorManager extends CodeGeneratorConfig {
      * 通过数据库表名, 生成代码
      * 如表名为 gen_test_demo
      * 将生成  Demo & DemoMapper & DemoService & DemoServiceImpl & DemoController
-     * @param flag 标志
+     * 表结构一次读取, Model & Mapper 批量生成, 其余按 GEN_PARALLELISM 并行生成
+     * 单表失败不影响其他表, 结束时汇总输出
+     * @param modulize 是否按区分字段划分子模块
+     * @param flag 标志, 是否使用简单名称
      * @param tableNames 表名数组
+     * @return 每张表的生成结果
      */
-    private void genCodeByTableName(boolean flag, String ...tableNames) {
+    private GenerateReport genCodeByTableName(boolean modulize, boolean flag, String ...tableNames) {
+        GenerateReport report = new GenerateReport();
+        List<TableTask> tasks = new ArrayList<>();
         for (String tableName : tableNames) {
-            genCodeByTableName(tableName, null, flag);
+            try {
+                String sign = modulize ? getSign(tableName) : null;
+                String modelName = modulize && flag ? getDefModelName(tableName) : null;
+                tasks.add(new TableTask(tableName, modelName, sign));
+            } catch (RuntimeException e) {
+                report.failure(tableName, 0, e);
+            }
         }
+        return genCodeByTasks(tasks, report);
+    }
+
+    /**
+     * 生成一组表的代码
+     * 表结构一次读取, Model & Mapper 批量生成, 其余按 GEN_PARALLELISM 并行生成
+     * @param tasks 生成任务
+     * @param report 生成结果, 可已包含创建任务时失败的表
+     * @return 每张表的生成结果
+     */
+    protected GenerateReport genCodeByTasks(List<TableTask> tasks, GenerateReport report) {
+        // 模板, 包路径等在会话中只准备一次, 供所有表共享
+        final GenerationSession session = newSession();
+        // 通用类只生成一次, 且需在工作线程开始前完成, 避免并发检查和写入同一文件
+        new CommonGenerator(session).genCommonCode();
+
+        SchemaModel schema;
+        try {
+            List<String> names = new ArrayList<>();
+            for (TableTask task : tasks) {
+                names.add(task.getTableName());
+            }
+            long start = System.nanoTime();
+            schema = introspectSchema(names);
+            session.getMetrics().record(null, GenerationMetrics.Phase.INTROSPECT, System.nanoTime() - start, 0);
+        } catch (RuntimeException e) {
+            for (TableTask task : tasks) {
+                report.failure(task.getTableName(), 0, e);
+            }
+            return finish(session, report);
+        }
+
+        ExecutorService executor = newExecutor(tasks.size());
+        try {
+            genCodeBySchema(schema, tasks, session, executor, report);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        return finish(session, report);
+    }
+
+    /**
+     * 生成一批已读取结构的表: Model & Mapper 批量生成, 其余交给 executor 并行生成
+     * @param schema 表结构
+     * @param tasks 生成任务
+     * @param session 生成会话
+     * @param executor 工作线程池, 为 null 时逐表生成
+     * @param report 生成结果
+     */
+    private void genCodeBySchema(SchemaModel schema, List<TableTask> tasks, GenerationSession session,
+                                 ExecutorService executor, final GenerateReport report) {
+        tasks = genModelAndMapper(schema, tasks, session, report);
+        // 生成器只依赖会话, 无其他状态, 所有表共用
+        final ServiceGenerator serviceGenerator = new ServiceGenerator(session);
+        final ControllerGenerator controllerGenerator = new ControllerGenerator(session);
+        if (executor == null || tasks.size() <= 1) {
+            for (TableTask task : tasks) {
+                genCodeByTableTask(task, serviceGenerator, controllerGenerator, report);
+            }
+            return;
+        }
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (final TableTask task : tasks) {
+                futures.add(executor.submit(() -> genCodeByTableTask(task, serviceGenerator, controllerGenerator, report)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("并行生成代码异常!", e);
+        }
+    }
+
+    /**
+     * 创建工作线程池
+     * @param tasks 任务数上限
+     * @return 线程池, 并行度小于等于 1 时为 null
+     */
+    private ExecutorService newExecutor(int tasks) {
+        int workers = Math.min(GEN_PARALLELISM, tasks);
+        if (workers <= 1) {
+            return null;
+        }
+        return Executors.newFixedThreadPool(workers,
+                new ThreadFactoryBuilder().setNameFormat("codegen-worker-%d").build());
+    }
+
+    /**
+     * 保存生成清单, 关闭输出目标, 输出汇总和耗时报告
+     */
+    private GenerateReport finish(GenerationSession session, GenerateReport report) {
+        if (session.getManifest() != null) {
+            session.getManifest().save();
+        }
+        closeSink(session);
+        report.setMetrics(session.getMetrics());
+        report.logSummary();
+        if (GEN_REPORT_PATH != null) {
+            session.getMetrics().writeJson(new File(GEN_REPORT_PATH), report);
+        }
+        return report;
+    }
+
+    /**
+     * 关闭本次运行创建的输出目标, 调用方设置的输出目标由调用方关闭
+     */
+    private void closeSink(GenerationSession session) {
+        if (session.getSink() == outputSink) {
+            return;
+        }
+        try {
+            session.getSink().close();
+        } catch (IOException e) {
+            throw new RuntimeException("关闭输出目标异常!", e);
+        }
+    }
+
+    /**
+     * 创建生成清单
+     * @param incremental 是否增量生成, 否则只记录基础类
+     * @return
+     */
+    protected GenerationManifest newManifest(boolean incremental) {
+        return new GenerationManifest(new File(PROJECT_PATH), new File(GEN_MANIFEST_PATH), CONFIG_HASH,
+                new File(TEMPLATE_FILE_PATH), incremental);
+    }
+
+    /**
+     * 在一次 MyBatisGenerator 运行中生成所有 Model & Mapper
+     * @param schema 表结构
+     * @param tasks 生成任务
+     * @param session 生成会话
+     * @param report 生成结果, 记录不存在或生成失败的表
+     * @return Model & Mapper 生成成功的任务
+     */
+    private List<TableTask> genModelAndMapper(SchemaModel schema, List<TableTask> tasks, GenerationSession session,
+                                              GenerateReport report) {
+        long start = System.currentTimeMillis();
+        List<TableTask> existing = new ArrayList<>();
+        for (TableTask task : tasks) {
+            if (schema.contains(task.getTableName())) {
+                task.setTable(schema.getTable(task.getTableName()));
+                existing.add(task);
+            } else {
+                report.failure(task.getTableName(), 0, new RuntimeException("表 " + task.getTableName() + " 不存在!"));
+            }
+        }
+        if (existing.isEmpty()) {
+            return existing;
+        }
+
+        Set<String> generated;
+        try {
+            generated = new ModelAndMapperGenerator(session).genCode(schema, existing);
+        } catch (RuntimeException e) {
+            for (TableTask task : existing) {
+                report.failure(task.getTableName(), System.currentTimeMillis() - start, e);
+            }
+            return Collections.emptyList();
+        }
+
+        List<TableTask> succeeded = new ArrayList<>();
+        for (TableTask task : existing) {
+            if (generated.contains(task.getTableName())) {
+                succeeded.add(task);
+            } else {
+                report.failure(task.getTableName(), 0, new RuntimeException("Model 和  Mapper 生成失败!"));
+            }
+        }
+        return succeeded;
+    }
+
+    /**
+     * 生成单张表的 Service & Controller, 并将结果记录到 report 中
+     * @param task 生成任务
+     * @param serviceGenerator Service 生成器
+     * @param controllerGenerator Controller 生成器
+     * @param report 生成结果
+     */
+    private void genCodeByTableTask(TableTask task, ServiceGenerator serviceGenerator,
+                                    ControllerGenerator controllerGenerator, GenerateReport report) {
+        long start = System.currentTimeMillis();
+        try {
+            serviceGenerator.genCode(task);
+            controllerGenerator.genCode(task);
+            report.success(task.getTableName(), System.currentTimeMillis() - start);
+            // 每张表都有 findAll 等无条件查询, 逐条输出在 debug 级别, 汇总和报告中可查看全部
+            List<ScanRisk> risks = ScanRisk.analyze(task);
+            report.scanRisks(task.getTableName(), risks);
+            for (ScanRisk risk : risks) {
+                logger.debug("{} 可能全表扫描 {}", task.getTableName(), risk);
+            }
+        } catch (RuntimeException e) {
+            report.failure(task.getTableName(), System.currentTimeMillis() - start, e);
+        }
+    }
+
+    /**
+     * 通过一个数据库连接读取多张表的结构, 离线生成时从快照文件读取
+     * @param tableNames 表名
+     * @return 表结构, 不存在的表不包含在内
+     */
+    protected SchemaModel introspectSchema(Collection<String> tableNames) {
+        if (GEN_OFFLINE) {
+            try {
+                return SchemaSnapshot.read(new File(GEN_SNAPSHOT_PATH));
+            } catch (IOException e) {
+                throw new RuntimeException("读取表结构快照异常!", e);
+            }
+        }
+        try (Connection connection = openConnection()) {
+            return new SchemaIntrospector(connection).introspect(tableNames);
+        } catch (Exception e) {
+            throw new RuntimeException("读取表结构异常!", e);
+        }
+    }
+
+    /**
+     * 离线按表名模式读取快照中的表, 与在线读取一样分批交给 consumer
+     * @param likePattern 表名模式, SQL LIKE 语法
+     * @param filter 表名正则过滤, 为 null 时不过滤
+     * @param consumer 每批表结构的处理
+     * @throws IOException
+     */
+    private void introspectSnapshot(String likePattern, Pattern filter, Consumer<SchemaModel> consumer)
+            throws IOException {
+        Pattern like = Pattern.compile(likeConvertRegex(likePattern), Pattern.CASE_INSENSITIVE);
+        SchemaModel chunk = new SchemaModel();
+        for (TableMeta table : SchemaSnapshot.read(new File(GEN_SNAPSHOT_PATH)).getTables()) {
+            if (!like.matcher(table.getName()).matches()
+                    || (filter != null && !filter.matcher(table.getName()).matches())) {
+                continue;
+            }
+            if (chunk.size() >= GEN_BATCH_SIZE) {
+                consumer.accept(chunk);
+                chunk = new SchemaModel();
+            }
+            chunk.addTable(table);
+        }
+        if (chunk.size() > 0) {
+            consumer.accept(chunk);
+        }
+    }
+
+    /**
+     * 打开数据库连接
+     * @return
+     * @throws Exception
+     */
+    protected Connection openConnection() throws Exception {
+        Class.forName(JDBC_DRIVER_CLASS_NAME);
+        return DriverManager.getConnection(JDBC_URL, connectionProperties());
+    }
+
+    /**
+     * 读取表结构的连接属性, 不修改配置的 jdbc.url
+     * MySQL 驱动开启 useInformationSchema, 按表名模式读取表和字段时只查询一次 information_schema, 而不是逐表 SHOW
+     * @return
+     */
+    protected static Properties connectionProperties() {
+        Properties props = new Properties();
+        if (JDBC_USERNAME != null) {
+            props.setProperty("user", JDBC_USERNAME);
+        }
+        if (JDBC_PASSWORD != null) {
+            props.setProperty("password", JDBC_PASSWORD);
+        }
+        if (JDBC_URL != null && JDBC_URL.startsWith("jdbc:mysql:")) {
+            props.setProperty("useInformationSchema", "true");
+        }
+        return props;
+    }
+
+    /**
+     * SQL LIKE 模式转成正则
+     * eg: sys\_% ==> \Qsys_\E.*
+     * @param likePattern
+     * @return
+     */
+    private static String likeConvertRegex(String likePattern) {
+        StringBuilder sb = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < likePattern.length(); i++) {
+            char c = likePattern.charAt(i);
+            if (c == '\\' && i + 1 < likePattern.length()) {
+                literal.append(likePattern.charAt(++i));
+                continue;
+            }
+            if (c != '%' && c != '_') {
+                literal.append(c);
+                continue;
+            }
+            if (literal.length() > 0) {
+                sb.append(Pattern.quote(literal.toString()));
+                literal.setLength(0);
+            }
+            sb.append(c == '%' ? ".*" : ".");
+        }
+        if (literal.length() > 0) {
+            sb.append(Pattern.quote(literal.toString()));
+        }
+        return sb.toString();
     }
 
     /**
@@ -189,10 +708,21 @@ public class CodeGeneratorManager extends CodeGeneratorConfig {
         if (flag) {
             modelName = getDefModelName(tableName);
         }
-        new ModelAndMapperGenerator().genCode(tableName, modelName, sign);
-        new ServiceGenerator().genCode(tableName, modelName, sign);
-        new ControllerGenerator().genCode(tableName, modelName, sign);
-        new CommonGenerator().genCommonMapper().genCommonService().genCommonAbstractService();
+        // 自定义 modelName 时不增量生成
+        GenerationSession session = newSession(false);
+        try {
+            // Model & Mapper 生成时读取的表结构保存在任务中, Service 和 Controller 共用
+            TableTask task = new TableTask(tableName, modelName, sign);
+            new ModelAndMapperGenerator(session).genCode(task);
+            new ServiceGenerator(session).genCode(task);
+            new ControllerGenerator(session).genCode(task);
+            new CommonGenerator(session).genCommonCode();
+            if (session.getManifest() != null) {
+                session.getManifest().save();
+            }
+        } finally {
+            closeSink(session);
+        }
     }
 
     /**
@@ -200,7 +730,7 @@ public class CodeGeneratorManager extends CodeGeneratorConfig {
      * @return
      * @throws IOException
      */
-    private Configuration initFreemarkerConfiguration() {
+    private static Configuration initFreemarkerConfiguration() {
         Configuration cfg = null;
         try {
             cfg = new Configuration(Configuration.VERSION_2_3_23);
@@ -220,7 +750,7 @@ public class CodeGeneratorManager extends CodeGeneratorConfig {
      * @param packageName
      * @return
      */
-    private static String packageConvertPath(String packageName) {
+    protected static String packageConvertPath(String packageName) {
         return String.format("/%s/", packageName.contains(".") ? packageName.replaceAll("\\.", "/") : packageName);
     }
 
@@ -264,6 +794,181 @@ public class CodeGeneratorManager extends CodeGeneratorConfig {
         AUTHOR = prop.getProperty("author");
         String dateFormat = "".equals(prop.getProperty("date-format")) ? "yyyy/MM/dd" : prop.getProperty("date-format");
         DATE = new SimpleDateFormat(dateFormat).format(new Date());
+
+        TEMPLATE_KEYSET_PAGINATION = Boolean.parseBoolean(prop.getProperty("template.keyset.pagination"));
+        String batchSizeOption = prop.getProperty("template.batch.size");
+        TEMPLATE_BATCH_SIZE = StringUtils.isNullOrEmpty(batchSizeOption) ? 0 : Integer.parseInt(batchSizeOption.trim());
+        String batchStrategy = prop.getProperty("template.batch.strategy");
+        TEMPLATE_BATCH_STRATEGY = StringUtils.isNullOrEmpty(batchStrategy) ? "multi_row" : batchStrategy.trim().toLowerCase();
+        if (!"multi_row".equals(TEMPLATE_BATCH_STRATEGY) && !"batch".equals(TEMPLATE_BATCH_STRATEGY)) {
+            throw new RuntimeException("template.batch.strategy 只能为 multi_row 或 batch!");
+        }
+        TEMPLATE_UNIQUE_FINDERS = Boolean.parseBoolean(prop.getProperty("template.unique.finders"));
+        TEMPLATE_INDEX_FINDERS = Boolean.parseBoolean(prop.getProperty("template.index.finders"));
+        String idsChunkSize = prop.getProperty("template.ids.chunk.size");
+        TEMPLATE_IDS_CHUNK_SIZE = StringUtils.isNullOrEmpty(idsChunkSize) ? 0 : Integer.parseInt(idsChunkSize.trim());
+        TEMPLATE_ASYNC_CONTROLLER = Boolean.parseBoolean(prop.getProperty("template.async.controller"));
+        String asyncPoolSize = prop.getProperty("template.async.pool.size");
+        TEMPLATE_ASYNC_POOL_SIZE = StringUtils.isNullOrEmpty(asyncPoolSize) ? 16 : Integer.parseInt(asyncPoolSize.trim());
+        String asyncQueueCapacity = prop.getProperty("template.async.queue.capacity");
+        TEMPLATE_ASYNC_QUEUE_CAPACITY = StringUtils.isNullOrEmpty(asyncQueueCapacity) ? 1000 : Integer.parseInt(asyncQueueCapacity.trim());
+        if (TEMPLATE_ASYNC_POOL_SIZE <= 0 || TEMPLATE_ASYNC_QUEUE_CAPACITY <= 0) {
+            throw new RuntimeException("template.async.pool.size 和 template.async.queue.capacity 必须大于 0!");
+        }
+        TEMPLATE_ASYNC_VIRTUAL_THREADS = Boolean.parseBoolean(prop.getProperty("template.async.virtual.threads"));
+        TEMPLATE_JSON_WRITER = Boolean.parseBoolean(prop.getProperty("template.json.writer"));
+        TEMPLATE_STREAM_EXPORT = Boolean.parseBoolean(prop.getProperty("template.stream.export"));
+        String fetchSize = prop.getProperty("template.stream.fetch.size");
+        // MySQL 驱动默认逐行返回 (Integer.MIN_VALUE), 其他驱动不接受负数, 默认每次读取 1000 行
+        boolean mysql = JDBC_URL != null && JDBC_URL.startsWith("jdbc:mysql:");
+        TEMPLATE_STREAM_FETCH_SIZE = StringUtils.isNullOrEmpty(fetchSize) ? (mysql ? Integer.MIN_VALUE : 1000)
+                : Integer.parseInt(fetchSize.trim());
+        if (TEMPLATE_STREAM_FETCH_SIZE <= 0 && !(mysql && TEMPLATE_STREAM_FETCH_SIZE == Integer.MIN_VALUE)) {
+            throw new RuntimeException("template.stream.fetch.size 必须大于 0, 只有 MySQL 驱动可以为 -2147483648 (逐行返回)!");
+        }
+        TEMPLATE_CACHE_TABLES = tableNames(prop.getProperty("template.cache.tables"));
+        String cacheMaxSize = prop.getProperty("template.cache.max.size");
+        TEMPLATE_CACHE_MAX_SIZE = StringUtils.isNullOrEmpty(cacheMaxSize) ? 1000 : Integer.parseInt(cacheMaxSize.trim());
+        if (TEMPLATE_CACHE_MAX_SIZE <= 0) {
+            throw new RuntimeException("template.cache.max.size 必须大于 0!");
+        }
+        String cacheTtl = prop.getProperty("template.cache.ttl.seconds");
+        TEMPLATE_CACHE_TTL_SECONDS = StringUtils.isNullOrEmpty(cacheTtl) ? 0 : Long.parseLong(cacheTtl.trim());
+        TEMPLATE_BATCH_LOADER_TABLES = tableNames(prop.getProperty("template.batch.loader.tables"));
+        String loaderWindow = prop.getProperty("template.batch.loader.window.millis");
+        TEMPLATE_BATCH_LOADER_WINDOW_MILLIS = StringUtils.isNullOrEmpty(loaderWindow) ? 0 : Math.max(0, Long.parseLong(loaderWindow.trim()));
+        String loaderMaxSize = prop.getProperty("template.batch.loader.max.size");
+        TEMPLATE_BATCH_LOADER_MAX_SIZE = StringUtils.isNullOrEmpty(loaderMaxSize) ? 100 : Integer.parseInt(loaderMaxSize.trim());
+        if (TEMPLATE_BATCH_LOADER_MAX_SIZE <= 0) {
+            throw new RuntimeException("template.batch.loader.max.size 必须大于 0!");
+        }
+        TEMPLATE_PAGE_COUNT_MODES = pageCountModes(prop.getProperty("template.page.count.tables"));
+        String countTtl = prop.getProperty("template.page.count.ttl.seconds");
+        TEMPLATE_PAGE_COUNT_TTL_SECONDS = StringUtils.isNullOrEmpty(countTtl) ? 60 : Math.max(0, Long.parseLong(countTtl.trim()));
+        TEMPLATE_PROJECTIONS = projections(prop);
+        TEMPLATE_DIRTY_TRACKING = Boolean.parseBoolean(prop.getProperty("template.dirty.tracking"));
+        if (TEMPLATE_DIRTY_TRACKING && !TEMPLATE_CACHE_TABLES.isEmpty()) {
+            // 缓存把同一个实体对象交给所有调用方, 修改记录会被共享
+            throw new RuntimeException("template.cache.tables 与 template.dirty.tracking 不能同时开启!");
+        }
+        TEMPLATE_STATEMENT_METRICS = Boolean.parseBoolean(prop.getProperty("template.statement.metrics"));
+        TEMPLATE_STATEMENT_METRICS_JMX = Boolean.parseBoolean(prop.getProperty("template.statement.metrics.jmx"));
+        TEMPLATE_UPSERT = Boolean.parseBoolean(prop.getProperty("template.upsert"));
+        String upsertChunkSize = prop.getProperty("template.upsert.chunk.size");
+        TEMPLATE_UPSERT_CHUNK_SIZE = StringUtils.isNullOrEmpty(upsertChunkSize) ? 500 : Integer.parseInt(upsertChunkSize.trim());
+        if (TEMPLATE_UPSERT_CHUNK_SIZE <= 0) {
+            throw new RuntimeException("template.upsert.chunk.size 必须大于 0!");
+        }
+
+        String parallelism = prop.getProperty("gen.parallelism");
+        GEN_PARALLELISM = StringUtils.isNullOrEmpty(parallelism) ? 1 : Integer.parseInt(parallelism.trim());
+        GEN_INCREMENTAL = Boolean.parseBoolean(prop.getProperty("gen.incremental"));
+        String manifestPath = prop.getProperty("gen.manifest.path");
+        GEN_MANIFEST_PATH = PROJECT_PATH + (StringUtils.isNullOrEmpty(manifestPath) ? "/.codegen/manifest.properties" : manifestPath);
+        GEN_OFFLINE = Boolean.parseBoolean(prop.getProperty("gen.offline"));
+        String snapshotPath = prop.getProperty("gen.snapshot.path");
+        GEN_SNAPSHOT_PATH = PROJECT_PATH + (StringUtils.isNullOrEmpty(snapshotPath) ? "/.codegen/schema.jsonl" : snapshotPath);
+        GEN_OUTPUT_ZIP = prop.getProperty("gen.output.zip");
+        String batchSize = prop.getProperty("gen.batch.size");
+        GEN_BATCH_SIZE = StringUtils.isNullOrEmpty(batchSize) ? 200 : Math.max(1, Integer.parseInt(batchSize.trim()));
+        String reportPath = prop.getProperty("gen.report.path");
+        GEN_REPORT_PATH = StringUtils.isNullOrEmpty(reportPath) ? null : PROJECT_PATH + reportPath.trim();
+        String watchInterval = prop.getProperty("gen.watch.interval");
+        GEN_WATCH_INTERVAL = StringUtils.isNullOrEmpty(watchInterval) ? 5000 : Math.max(100, Long.parseLong(watchInterval.trim()));
+        CONFIG_HASH = configHash(prop);
+    }
+
+    /**
+     * 解析逗号分隔的表名配置
+     * @param option 配置值
+     * @return 小写表名, 为空时返回空集合
+     */
+    private static Set<String> tableNames(String option) {
+        Set<String> tableNames = new LinkedHashSet<>();
+        if (!StringUtils.isNullOrEmpty(option)) {
+            for (String tableName : option.split(",")) {
+                if (!tableName.trim().isEmpty()) {
+                    tableNames.add(tableName.trim().toLowerCase());
+                }
+            }
+        }
+        return Collections.unmodifiableSet(tableNames);
+    }
+
+    /**
+     * 解析分页总行数统计方式配置, eg: sys_log:estimate,sys_area:cached
+     * @param option 配置值
+     * @return 小写表名 ==> 统计方式, 不含 exact
+     */
+    private static Map<String, String> pageCountModes(String option) {
+        Map<String, String> modes = new LinkedHashMap<>();
+        if (StringUtils.isNullOrEmpty(option)) {
+            return Collections.unmodifiableMap(modes);
+        }
+        for (String entry : option.split(",")) {
+            if (entry.trim().isEmpty()) {
+                continue;
+            }
+            String[] pair = entry.split(":");
+            String mode = pair.length == 2 ? pair[1].trim().toLowerCase() : "";
+            if (!"exact".equals(mode) && !"none".equals(mode) && !"cached".equals(mode) && !"estimate".equals(mode)) {
+                throw new RuntimeException("template.page.count.tables 格式为 表名:exact|none|cached|estimate, 错误配置: " + entry.trim() + "!");
+            }
+            if (!"exact".equals(mode)) {
+                modes.put(pair[0].trim().toLowerCase(), mode);
+            }
+        }
+        return Collections.unmodifiableMap(modes);
+    }
+
+    /**
+     * 解析字段投影配置, eg: template.projection.sys_log.summary=id,user_name,created_at
+     * @param prop 配置信息
+     * @return 小写表名 ==> 投影名 (大驼峰) ==> 字段名
+     */
+    private static Map<String, Map<String, List<String>>> projections(Properties prop) {
+        String prefix = "template.projection.";
+        Map<String, Map<String, List<String>>> projections = new LinkedHashMap<>();
+        for (String key : new TreeSet<>(prop.stringPropertyNames())) {
+            String value = prop.getProperty(key);
+            if (!key.startsWith(prefix) || StringUtils.isNullOrEmpty(value) || value.trim().isEmpty()) {
+                continue;
+            }
+            String tableAndName = key.substring(prefix.length());
+            int dot = tableAndName.lastIndexOf('.');
+            String name = dot < 0 ? "" : tableAndName.substring(dot + 1);
+            if (!name.matches("[A-Za-z][A-Za-z0-9_]*")) {
+                throw new RuntimeException(key + " 格式为 template.projection.表名.投影名, 投影名只能包含字母, 数字和下划线!");
+            }
+            List<String> columns = new ArrayList<>();
+            for (String column : value.split(",")) {
+                if (!column.trim().isEmpty()) {
+                    columns.add(column.trim());
+                }
+            }
+            String table = tableAndName.substring(0, dot).toLowerCase();
+            if (!projections.containsKey(table)) {
+                projections.put(table, new LinkedHashMap<String, List<String>>());
+            }
+            projections.get(table).put(StringUtils.toUpperCaseFirstOne(StringUtils.underScoreCase2CamelCase(name)),
+                    Collections.unmodifiableList(columns));
+        }
+        return Collections.unmodifiableMap(projections);
+    }
+
+    /**
+     * 配置信息摘要, gen.* 为运行参数, 不影响生成内容, 不计入摘要
+     * @param prop 配置信息
+     * @return
+     */
+    private static String configHash(Properties prop) {
+        StringBuilder sb = new StringBuilder();
+        for (String key : new TreeSet<>(prop.stringPropertyNames())) {
+            if (!key.startsWith("gen.")) {
+                sb.append(key).append('=').append(prop.getProperty(key)).append('\n');
+            }
+        }
+        return Hashing.sha256().hashString(sb, StandardCharsets.UTF_8).toString();
     }
 
     /**
@@ -0,0 +1,130 @@
+package org.codegen.service;
+
+import org.codegen.schema.ColumnMeta;
+import org.codegen.schema.TableMeta;
+import org.codegen.util.StringUtils;
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.dom.java.FullyQualifiedJavaType;
+import org.mybatis.generator.internal.types.JavaTypeResolverDefaultImpl;
+import org.mybatis.generator.internal.util.JavaBeansUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 字段对应的实体属性, 属性名和 Java 类型与 MyBatis Generator 生成的实体一致, 供模板使用
+ */
+public class ColumnProperty {
+
+    // 与通用 Mapper 和 Service 已有方法重名的属性, 不生成 selectByXxx / findByXxx
+    private static final Set<String> RESERVED_FINDER_NAMES = new HashSet<>(Arrays.asList(
+            "id", "ids", "condition", "example", "primaryKey", "rowBounds"));
+
+    // 类型映射表在构造时建立, 之后只读
+    private static final JavaTypeResolverDefaultImpl TYPE_RESOLVER = new JavaTypeResolverDefaultImpl();
+
+    // 字段名
+    private final String columnName;
+    // 属性名, eg: parentId
+    private final String name;
+    // 属性类型
+    private final FullyQualifiedJavaType type;
+
+    private ColumnProperty(String columnName, String name, FullyQualifiedJavaType type) {
+        this.columnName = columnName;
+        this.name = name;
+        this.type = type;
+    }
+
+    /**
+     * 按 MyBatis Generator 的规则计算字段对应的属性
+     * @param column 字段
+     * @return
+     */
+    public static ColumnProperty of(ColumnMeta column) {
+        IntrospectedColumn introspectedColumn = new IntrospectedColumn();
+        introspectedColumn.setActualColumnName(column.getName());
+        introspectedColumn.setJdbcType(column.getDataType());
+        introspectedColumn.setLength(column.getColumnSize());
+        introspectedColumn.setScale(column.getDecimalDigits());
+        FullyQualifiedJavaType type = TYPE_RESOLVER.calculateJavaType(introspectedColumn);
+        return new ColumnProperty(column.getName(), JavaBeansUtil.getCamelCaseString(column.getName(), false),
+                type == null ? FullyQualifiedJavaType.getObjectInstance() : type);
+    }
+
+    /**
+     * 需要生成按唯一索引查询方法的字段: 单列唯一索引, 不含单列主键和与已有方法重名的属性
+     * @param table 表结构, 未读取时为 null
+     * @return
+     */
+    public static List<ColumnProperty> uniqueFinders(TableMeta table) {
+        List<ColumnProperty> result = new ArrayList<>();
+        if (table == null) {
+            return result;
+        }
+        for (String columnName : table.getUniqueColumns()) {
+            ColumnMeta column = table.getColumn(columnName);
+            if (column == null) {
+                continue;
+            }
+            ColumnProperty property = of(column);
+            if (!RESERVED_FINDER_NAMES.contains(property.getName())) {
+                result.add(property);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 属性名是否与通用 Mapper 和 Service 已有方法重名, 重名时不生成单字段查询方法
+     */
+    static boolean isReservedFinderName(String name) {
+        return RESERVED_FINDER_NAMES.contains(name);
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 首字母大写的属性名, 用于拼接方法名, eg: ParentId
+     */
+    public String getUpperName() {
+        return StringUtils.toUpperCaseFirstOne(name);
+    }
+
+    /**
+     * 实体中属性的 getter 名称, eg: getParentId
+     */
+    public String getGetterName() {
+        return JavaBeansUtil.getGetterMethodName(name, type);
+    }
+
+    /**
+     * 实体中属性的 setter 名称, eg: setParentId
+     */
+    public String getSetterName() {
+        return JavaBeansUtil.getSetterMethodName(name);
+    }
+
+    /**
+     * 属性类型的简单名称, eg: String
+     */
+    public String getJavaType() {
+        return type.getShortName();
+    }
+
+    /**
+     * 属性类型需要的 import, java.lang 和基本类型为 null
+     */
+    public String getImportType() {
+        return type.isExplicitlyImported() ? type.getFullyQualifiedNameWithoutTypeParameters() : null;
+    }
+}
@@ -0,0 +1,126 @@
+package org.codegen.service;
+
+import freemarker.template.Configuration;
+import org.codegen.output.MemoryOutputSink;
+import org.codegen.output.OutputSink;
+import org.codegen.service.impl.CommonGenerator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 基础类按生成清单中记录的模板选项重新生成, 已被修改的过期基础类使生成失败
+ */
+public class CommonGenerationTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Configuration configuration;
+    private boolean keysetPagination;
+    private File manifestFile;
+    private MemoryOutputSink sink;
+    private String abstractServicePath;
+
+    @Before
+    public void setUp() throws Exception {
+        // 触发 CodeGeneratorManager 加载配置, 之后再修改模板选项
+        configuration = new CodeGeneratorManager().getFreemarkerConfiguration();
+        keysetPagination = CodeGeneratorConfig.TEMPLATE_KEYSET_PAGINATION;
+        CodeGeneratorConfig.TEMPLATE_KEYSET_PAGINATION = false;
+        manifestFile = new File(folder.getRoot(), "manifest.properties");
+        sink = new MemoryOutputSink(new File(CodeGeneratorConfig.PROJECT_PATH));
+        GenerationSession session = newSession();
+        abstractServicePath = OutputSink.relativePath(new File(CodeGeneratorConfig.PROJECT_PATH), session.javaFile(
+                CodeGeneratorConfig.PACKAGE_PATH_SERVICE, null, session.getAbstractServiceName() + ".java"));
+    }
+
+    @After
+    public void tearDown() {
+        CodeGeneratorConfig.TEMPLATE_KEYSET_PAGINATION = keysetPagination;
+    }
+
+    @Test
+    public void regeneratesWhenOptionChanges() {
+        generate();
+        assertFalse(sink.getContent(abstractServicePath).contains("findAfter"));
+
+        CodeGeneratorConfig.TEMPLATE_KEYSET_PAGINATION = true;
+        generate();
+        assertTrue(sink.getContent(abstractServicePath).contains("findAfter"));
+        assertTrue(hasFile("KeysetMapper.java"));
+    }
+
+    @Test
+    public void keepsEditedFileWhileOptionsUnchanged() {
+        generate();
+        String edited = sink.getContent(abstractServicePath) + "// edited\n";
+        sink.write(new File(CodeGeneratorConfig.PROJECT_PATH, abstractServicePath), edited);
+
+        generate();
+        assertEquals(edited, sink.getContent(abstractServicePath));
+    }
+
+    @Test
+    public void failsWhenEditedFileIsStale() {
+        generate();
+        String edited = sink.getContent(abstractServicePath) + "// edited\n";
+        sink.write(new File(CodeGeneratorConfig.PROJECT_PATH, abstractServicePath), edited);
+
+        CodeGeneratorConfig.TEMPLATE_KEYSET_PAGINATION = true;
+        try {
+            generate();
+            fail("已修改的过期基础类应使生成失败");
+        } catch (RuntimeException e) {
+            assertTrue(String.valueOf(e.getCause()).contains("删除该文件重新生成"));
+        }
+        assertEquals(edited, sink.getContent(abstractServicePath));
+    }
+
+    @Test
+    public void failsWhenUnrecordedFileIsStale() {
+        // 未使用清单时生成的基础类
+        new CommonGenerator(new GenerationSession(configuration, null, sink)).genCommonCode();
+
+        CodeGeneratorConfig.TEMPLATE_KEYSET_PAGINATION = true;
+        try {
+            generate();
+            fail("未记录的过期基础类应使生成失败");
+        } catch (RuntimeException e) {
+            assertTrue(String.valueOf(e.getCause()).contains("删除该文件重新生成"));
+        }
+    }
+
+    /**
+     * 生成基础类并保存清单, 与一次生成运行相同
+     */
+    private void generate() {
+        GenerationSession session = newSession();
+        new CommonGenerator(session).genCommonCode();
+        session.getManifest().save();
+    }
+
+    private GenerationSession newSession() {
+        GenerationManifest manifest = new GenerationManifest(new File(CodeGeneratorConfig.PROJECT_PATH), manifestFile,
+                CodeGeneratorConfig.CONFIG_HASH, new File(CodeGeneratorConfig.TEMPLATE_FILE_PATH), false).load();
+        return new GenerationSession(configuration, manifest, sink);
+    }
+
+    private boolean hasFile(String name) {
+        for (String path : sink.getFiles().keySet()) {
+            if (path.endsWith("/" + name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,88 @@
+package org.codegen.service;
+
+import org.apache.ibatis.plugin.Interceptor;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.codegen.service.GeneratedProject.call;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 在内嵌 H2 上运行生成的修改跟踪: update 只写入 setter 修改过的列 (包括设为 null 的列), 没有修改时不执行 UPDATE
+ */
+public class DirtyTrackingTest {
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static GeneratedProject project;
+
+    private Object service;
+
+    @BeforeClass
+    public static void generate() throws Exception {
+        project = new GeneratedProject("codegen_dirty", folder.getRoot());
+        project.execute("CREATE TABLE sys_area (id INT AUTO_INCREMENT PRIMARY KEY, code VARCHAR(32), name VARCHAR(64), remark VARCHAR(255))");
+        CodeGeneratorConfig.TEMPLATE_DIRTY_TRACKING = true;
+        project.generate("sys_area");
+        project.addInterceptor((Interceptor) project.loadClass("dao.DirtyTrackingInterceptor").newInstance());
+    }
+
+    @AfterClass
+    public static void close() throws Exception {
+        project.close();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        project.execute("DELETE FROM sys_area", "INSERT INTO sys_area (id, code, name, remark) VALUES (1, 'c1', 'n1', 'r1')");
+        service = project.newService("service.impl.area.SysAreaServiceImpl");
+    }
+
+    @After
+    public void tearDown() {
+        project.clearStatements();
+    }
+
+    @Test
+    public void updatesOnlyChangedColumns() throws Exception {
+        Object area = call(service, "findById", 1);
+        assertEquals(false, call(area, "hasDirtyFields"));
+        call(area, "setName", "changed");
+        call(area, "setRemark", (Object) null);
+        // 读取之后由其他写入修改的列不应被覆盖
+        project.execute("UPDATE sys_area SET code = 'other' WHERE id = 1");
+        project.clearStatements();
+
+        call(service, "update", area);
+        assertEquals(Collections.singletonList("updateDirtyByPrimaryKey"), project.getStatements());
+        String sql = project.getSqls().get(0).toLowerCase();
+        assertTrue(sql, sql.contains("name = ?") && sql.contains("remark = ?"));
+        assertFalse(sql, sql.contains("code"));
+        assertEquals(false, call(area, "hasDirtyFields"));
+
+        Map<String, Object> row = project.query("SELECT code, name, remark FROM sys_area WHERE id = 1").get(0);
+        assertEquals("other", row.get("CODE"));
+        assertEquals("changed", row.get("NAME"));
+        assertNull(row.get("REMARK"));
+    }
+
+    @Test
+    public void unchangedModelSkipsUpdate() throws Exception {
+        Object area = call(service, "findById", 1);
+        project.clearStatements();
+        call(service, "update", area);
+        assertEquals(Collections.emptyList(), project.getStatements());
+    }
+}
@@ -0,0 +1,132 @@
+package org.codegen.service;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Collections;
+
+import static org.codegen.service.GeneratedProject.call;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 在内嵌 H2 上运行生成的带实体缓存的 Service: 命中, 未命中和淘汰计数, 写入在事务提交后失效, 回滚和插入不失效
+ */
+public class EntityCacheTest {
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static GeneratedProject project;
+
+    private Object service;
+    private Object cache;
+
+    @BeforeClass
+    public static void generate() throws Exception {
+        project = new GeneratedProject("codegen_cache", folder.getRoot());
+        project.execute("CREATE TABLE sys_area (id INT AUTO_INCREMENT PRIMARY KEY, code VARCHAR(32), name VARCHAR(64))");
+        CodeGeneratorConfig.TEMPLATE_CACHE_TABLES = Collections.singleton("sys_area");
+        CodeGeneratorConfig.TEMPLATE_CACHE_MAX_SIZE = 2;
+        CodeGeneratorConfig.TEMPLATE_CACHE_TTL_SECONDS = 0;
+        project.generate("sys_area");
+    }
+
+    @AfterClass
+    public static void close() throws Exception {
+        project.close();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        project.execute("DELETE FROM sys_area",
+                "INSERT INTO sys_area (id, code, name) VALUES (1, 'c1', 'n1'), (2, 'c2', 'n2'), (3, 'c3', 'n3')");
+        service = project.newService("service.impl.area.SysAreaServiceImpl");
+        cache = call(service, "getCache");
+    }
+
+    @After
+    public void tearDown() {
+        project.clearStatements();
+    }
+
+    @Test
+    public void countsHitsMissesAndEvictions() throws Exception {
+        assertEquals("n1", name(call(service, "findById", 1)));
+        assertEquals("n1", name(call(service, "findById", 1)));
+        assertEquals(1L, call(cache, "getHitCount"));
+        assertEquals(1L, call(cache, "getMissCount"));
+        assertEquals(1, project.getStatements().size());
+
+        // 上限 2 条, 第 3 条淘汰最久未访问的
+        call(service, "findById", 2);
+        call(service, "findById", 3);
+        assertEquals(2, call(cache, "size"));
+        assertEquals(1L, call(cache, "getEvictionCount"));
+        assertEquals(3L, call(cache, "getMissCount"));
+    }
+
+    @Test
+    public void updateInvalidatesAfterCommit() throws Exception {
+        call(service, "findById", 1);
+        project.inTransaction(() -> {
+            try {
+                call(service, "update", area(1, "changed"));
+                // 提交前缓存不变, 事务中读取本事务的修改
+                assertEquals(1, call(cache, "size"));
+                assertEquals("changed", name(call(service, "findById", 1)));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertEquals(0, call(cache, "size"));
+        assertEquals("changed", name(call(service, "findById", 1)));
+        assertEquals(2L, call(cache, "getMissCount"));
+    }
+
+    @Test
+    public void rollbackKeepsCachedEntity() throws Exception {
+        call(service, "findById", 1);
+        project.inRollbackTransaction(() -> {
+            try {
+                call(service, "update", area(1, "changed"));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertEquals(1, call(cache, "size"));
+        assertEquals("n1", name(call(service, "findById", 1)));
+        assertEquals("n1", project.query("SELECT name FROM sys_area WHERE id = 1").get(0).get("NAME"));
+    }
+
+    @Test
+    public void insertKeepsCachedEntities() throws Exception {
+        call(service, "findById", 1);
+        call(service, "findById", 2);
+        Object area = area(4, "n4");
+        call(area, "setCode", "c4");
+        call(service, "save", area);
+        assertEquals(2, call(cache, "size"));
+
+        call(service, "deleteByIds", "1, 4");
+        assertEquals(1, call(cache, "size"));
+        assertNull(call(service, "findById", 1));
+        assertEquals("n2", name(call(service, "findById", 2)));
+    }
+
+    private static Object area(int id, String name) throws Exception {
+        Object area = project.loadClass("model.area.SysArea").newInstance();
+        call(area, "setId", id);
+        call(area, "setName", name);
+        return area;
+    }
+
+    private static Object name(Object area) throws Exception {
+        return call(area, "getName");
+    }
+}
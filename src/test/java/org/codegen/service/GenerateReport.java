@@ -0,0 +1,173 @@
+package org.codegen.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 一次生成任务的结果汇总, 记录每张表的成功或失败
+ * 可被多个工作线程同时写入
+ */
+public class GenerateReport {
+
+    private static final Logger logger = LoggerFactory.getLogger(GenerateReport.class);
+
+    private final List<TableResult> results = Collections.synchronizedList(new ArrayList<TableResult>());
+
+    // 表名 ==> 可能全表扫描的方法
+    private final Map<String, List<ScanRisk>> scanRisks = new ConcurrentHashMap<>();
+
+    private final long startTime = System.currentTimeMillis();
+
+    // 分阶段耗时统计, 生成结束时设置
+    private volatile GenerationMetrics metrics;
+
+    /**
+     * 记录表生成成功
+     * @param tableName 表名
+     * @param elapsed 耗时(ms)
+     */
+    public void success(String tableName, long elapsed) {
+        results.add(new TableResult(tableName, elapsed, null));
+    }
+
+    /**
+     * 记录表生成失败
+     * @param tableName 表名
+     * @param elapsed 耗时(ms)
+     * @param error 失败原因
+     */
+    public void failure(String tableName, long elapsed, Throwable error) {
+        results.add(new TableResult(tableName, elapsed, error));
+    }
+
+    /**
+     * 记录表中可能全表扫描的方法
+     * @param tableName 表名
+     * @param risks 可能全表扫描的方法
+     */
+    public void scanRisks(String tableName, List<ScanRisk> risks) {
+        scanRisks.put(tableName, risks);
+    }
+
+    /**
+     * 获取表中可能全表扫描的方法
+     * @param tableName 表名
+     * @return 未分析时为空
+     */
+    public List<ScanRisk> getScanRisks(String tableName) {
+        List<ScanRisk> risks = scanRisks.get(tableName);
+        return risks == null ? Collections.<ScanRisk>emptyList() : risks;
+    }
+
+    /**
+     * 获取所有表的生成结果
+     * @return
+     */
+    public List<TableResult> getResults() {
+        synchronized (results) {
+            return new ArrayList<>(results);
+        }
+    }
+
+    /**
+     * 获取生成失败的表
+     * @return
+     */
+    public List<TableResult> getFailures() {
+        List<TableResult> failures = new ArrayList<>();
+        for (TableResult result : getResults()) {
+            if (!result.isSuccess()) {
+                failures.add(result);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * 是否所有表都生成成功
+     * @return
+     */
+    public boolean isAllSuccess() {
+        return getFailures().isEmpty();
+    }
+
+    /**
+     * 获取自开始以来的耗时(ms)
+     * @return
+     */
+    public long getElapsed() {
+        return System.currentTimeMillis() - startTime;
+    }
+
+    /**
+     * 获取分阶段耗时统计, 生成结束前为 null
+     * @return
+     */
+    public GenerationMetrics getMetrics() {
+        return metrics;
+    }
+
+    void setMetrics(GenerationMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * 输出汇总日志
+     */
+    public void logSummary() {
+        List<TableResult> all = getResults();
+        List<TableResult> failures = getFailures();
+        logger.info("代码生成结束: 共 {} 张表, 成功 {} 张, 失败 {} 张, 耗时 {} ms",
+                all.size(), all.size() - failures.size(), failures.size(), getElapsed());
+        for (TableResult failure : failures) {
+            logger.error("{} 生成失败!", failure.getTableName(), failure.getError());
+        }
+        int risks = 0;
+        for (List<ScanRisk> tableRisks : scanRisks.values()) {
+            risks += tableRisks.size();
+        }
+        if (risks > 0) {
+            logger.warn("{} 张表共有 {} 处可能全表扫描的查询, 详见生成报告", scanRisks.size(), risks);
+        }
+        if (metrics != null) {
+            metrics.logSummary();
+        }
+    }
+
+    /**
+     * 单张表的生成结果
+     */
+    public static class TableResult {
+        private final String tableName;
+        private final long elapsed;
+        private final Throwable error;
+
+        TableResult(String tableName, long elapsed, Throwable error) {
+            this.tableName = tableName;
+            this.elapsed = elapsed;
+            this.error = error;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        public long getElapsed() {
+            return elapsed;
+        }
+
+        public Throwable getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+}
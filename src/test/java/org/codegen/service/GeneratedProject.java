@@ -0,0 +1,447 @@
+package org.codegen.service;
+
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.codegen.output.MemoryOutputSink;
+import org.h2.jdbcx.JdbcDataSource;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.mybatis.spring.transaction.SpringManagedTransactionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tk.mybatis.mapper.mapperhelper.MapperHelper;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 测试用的生成项目: 从内嵌 H2 (MySQL 模式) 读取表结构生成代码, 用 JDK 编译器编译,
+ * 再按 Spring Boot 项目的方式 (mybatis-spring, 通用 Mapper, Spring 事务) 运行生成的 Mapper 和 Service
+ * 创建时保存 CodeGeneratorConfig 的配置, close 时恢复, 测试可在 generate 前直接修改模板选项
+ */
+class GeneratedProject implements Closeable {
+
+    private final String url;
+    private final File dir;
+    private final JdbcDataSource dataSource = new JdbcDataSource();
+    private final Map<Field, Object> savedConfig = new HashMap<>();
+
+    // 执行过的 MappedStatement id, 按执行顺序
+    private final List<String> statements = Collections.synchronizedList(new ArrayList<String>());
+    // 实际执行的 SQL, 按执行顺序
+    private final List<String> sqls = Collections.synchronizedList(new ArrayList<String>());
+
+    private MemoryOutputSink sink;
+    private ClassLoader classLoader;
+    private SqlSessionFactory sqlSessionFactory;
+    private SqlSessionTemplate sqlSessionTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * @param name 内存数据库名
+     * @param dir 生成和编译的目录
+     */
+    GeneratedProject(String name, File dir) throws Exception {
+        this.url = "jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+        this.dir = dir;
+        // 触发 CodeGeneratorManager 加载配置, 之后再修改运行参数
+        new CodeGeneratorManager();
+        for (Field field : CodeGeneratorConfig.class.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && !Modifier.isFinal(field.getModifiers())) {
+                field.setAccessible(true);
+                savedConfig.put(field, field.get(null));
+            }
+        }
+        CodeGeneratorConfig.JDBC_URL = url;
+        CodeGeneratorConfig.JDBC_USERNAME = "sa";
+        CodeGeneratorConfig.JDBC_PASSWORD = "";
+        CodeGeneratorConfig.JDBC_DRIVER_CLASS_NAME = "org.h2.Driver";
+        CodeGeneratorConfig.GEN_REPORT_PATH = null;
+        dataSource.setURL(url);
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+        execute("DROP ALL OBJECTS");
+    }
+
+    /**
+     * 按当前配置生成并编译这些表的代码, 再创建运行生成代码的 SqlSessionFactory
+     * @param tableNames 表名
+     * @return 生成报告
+     */
+    GenerateReport generate(String... tableNames) throws Exception {
+        sink = new MemoryOutputSink(new File(CodeGeneratorConfig.PROJECT_PATH));
+        CodeGeneratorManager manager = new CodeGeneratorManager();
+        manager.setOutputSink(sink);
+        GenerateReport report = manager.genCodeWithSimpleName(tableNames);
+        if (!report.isAllSuccess()) {
+            throw new IllegalStateException("生成失败: " + report.getFailures().get(0).getTableName(),
+                    report.getFailures().get(0).getError());
+        }
+        compile();
+        start();
+        return report;
+    }
+
+    /**
+     * 生成的文件
+     * @return 相对路径 ==> 文件内容
+     */
+    Map<String, String> getFiles() {
+        return sink.getFiles();
+    }
+
+    /**
+     * 生成的 Java 类的源码
+     * @param className 相对 base.package 的类名, eg: service.AbstractService
+     * @return 不存在时为 null
+     */
+    String getSource(String className) {
+        return sink.getContent("src/main/java/" + (CodeGeneratorConfig.BASE_PACKAGE + "." + className)
+                .replace('.', '/') + ".java");
+    }
+
+    /**
+     * 创建生成的 Service 实现并注入 @Autowired 的 Mapper 和 SqlSessionFactory
+     * @param className 相对 base.package 的类名, eg: service.impl.area.SysAreaServiceImpl
+     */
+    Object newService(String className) throws Exception {
+        Object service = loadClass(className).newInstance();
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> type = service.getClass(); type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (field.isAnnotationPresent(Autowired.class)) {
+                    field.setAccessible(true);
+                    fields.add(field);
+                }
+            }
+        }
+        // 先注入具体的 Mapper 接口, 再把它注入到泛型的通用 Mapper 字段
+        List<Object> mappers = new ArrayList<>();
+        for (Field field : fields) {
+            if (sqlSessionFactory.getConfiguration().hasMapper(field.getType())) {
+                Object mapper = sqlSessionTemplate.getMapper(field.getType());
+                field.set(service, mapper);
+                mappers.add(mapper);
+            } else if (field.getType() == SqlSessionFactory.class) {
+                field.set(service, sqlSessionFactory);
+            }
+        }
+        for (Field field : fields) {
+            for (Object mapper : mappers) {
+                if (field.get(service) == null && field.getType().isInstance(mapper)) {
+                    field.set(service, mapper);
+                }
+            }
+        }
+        return service;
+    }
+
+    /**
+     * 加载编译后的类
+     * @param className 相对 base.package 的类名
+     */
+    Class<?> loadClass(String className) throws ClassNotFoundException {
+        return classLoader.loadClass(CodeGeneratorConfig.BASE_PACKAGE + "." + className);
+    }
+
+    /**
+     * 按方法名和参数个数调用生成的类的公有方法
+     */
+    static Object call(Object target, String methodName, Object... args) throws Exception {
+        for (Method method : target.getClass().getMethods()) {
+            if (method.getName().equals(methodName) && method.getParameterCount() == args.length
+                    && isApplicable(method.getParameterTypes(), args)) {
+                try {
+                    return method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+        }
+        throw new NoSuchMethodException(target.getClass().getName() + "." + methodName);
+    }
+
+    /**
+     * 注册 MyBatis 插件, 之后执行的语句生效
+     */
+    void addInterceptor(Interceptor interceptor) {
+        sqlSessionFactory.getConfiguration().addInterceptor(interceptor);
+    }
+
+    /**
+     * 在 Spring 事务中执行, 结束后提交
+     */
+    void inTransaction(final Runnable action) {
+        transactionTemplate.execute(status -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * 在 Spring 事务中执行, 结束后回滚
+     */
+    void inRollbackTransaction(final Runnable action) {
+        transactionTemplate.execute(status -> {
+            action.run();
+            status.setRollbackOnly();
+            return null;
+        });
+    }
+
+    /**
+     * 执行过的 MappedStatement id 的最后一段, eg: insertList, 按执行顺序
+     */
+    List<String> getStatements() {
+        List<String> names = new ArrayList<>();
+        synchronized (statements) {
+            for (String id : statements) {
+                names.add(id.substring(id.lastIndexOf('.') + 1));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * 实际执行的 SQL, 连续空白合并为一个空格, 按执行顺序
+     */
+    List<String> getSqls() {
+        List<String> result = new ArrayList<>();
+        synchronized (sqls) {
+            for (String sql : sqls) {
+                result.add(sql.trim().replaceAll("\\s+", " "));
+            }
+        }
+        return result;
+    }
+
+    void clearStatements() {
+        statements.clear();
+        sqls.clear();
+    }
+
+    void execute(String... sqls) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (String sql : sqls) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    /**
+     * 查询, 每行为 列名(大写) ==> 值
+     */
+    List<Map<String, Object>> query(String sql) throws SQLException {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+                    row.put(rs.getMetaData().getColumnLabel(i).toUpperCase(), rs.getObject(i));
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            execute("DROP ALL OBJECTS");
+        } catch (SQLException e) {
+            throw new IOException(e);
+        } finally {
+            for (Map.Entry<Field, Object> entry : savedConfig.entrySet()) {
+                try {
+                    entry.getKey().set(null, entry.getValue());
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+
+    private static boolean isApplicable(Class<?>[] types, Object[] args) {
+        for (int i = 0; i < types.length; i++) {
+            if (args[i] != null && !types[i].isInstance(args[i]) && !types[i].isPrimitive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 编译生成的所有 Java 文件, 类路径与运行测试的相同
+     */
+    private void compile() throws IOException {
+        File sources = new File(dir, "src");
+        File classes = new File(dir, "classes");
+        classes.mkdirs();
+        List<String> args = new ArrayList<>();
+        Collections.addAll(args, "-nowarn", "-encoding", "UTF-8", "-parameters", "-d", classes.getPath(),
+                "-classpath", System.getProperty("java.class.path"));
+        for (Map.Entry<String, String> entry : sink.getFiles().entrySet()) {
+            if (entry.getKey().endsWith(".java")) {
+                File file = new File(sources, entry.getKey());
+                file.getParentFile().mkdirs();
+                Files.write(file.toPath(), entry.getValue().getBytes(StandardCharsets.UTF_8));
+                args.add(file.getPath());
+            }
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("需要 JDK 编译生成的代码");
+        }
+        if (compiler.run(null, null, null, args.toArray(new String[0])) != 0) {
+            throw new IllegalStateException("生成的代码编译失败");
+        }
+        classLoader = new GeneratedClassLoader(new URL[]{classes.toURI().toURL(),
+                MapperHelper.class.getProtectionDomain().getCodeSource().getLocation()});
+    }
+
+    /**
+     * 解析生成的 Mapper XML, 由通用 Mapper 处理继承的方法, 数据库为 h2
+     */
+    private void start() throws Exception {
+        Configuration configuration = new Configuration(
+                new Environment("test", new SpringManagedTransactionFactory(), dataSource));
+        configuration.setDatabaseId("h2");
+        configuration.addInterceptor(new StatementRecorder());
+        configuration.addInterceptor(new SqlRecorder());
+        ClassLoader defaultClassLoader = Resources.getDefaultClassLoader();
+        Resources.setDefaultClassLoader(classLoader);
+        try {
+            for (Map.Entry<String, String> entry : sink.getFiles().entrySet()) {
+                if (entry.getKey().endsWith(".xml")) {
+                    new XMLMapperBuilder(new ByteArrayInputStream(entry.getValue().getBytes(StandardCharsets.UTF_8)),
+                            configuration, entry.getKey(), configuration.getSqlFragments()).parse();
+                }
+            }
+            // 通用 Mapper 以 Class.forName 加载 Mapper 接口, 须与生成的类在同一个 ClassLoader 中
+            Object mapperHelper = classLoader.loadClass(MapperHelper.class.getName()).newInstance();
+            call(mapperHelper, "setConfig", classLoader.loadClass("tk.mybatis.mapper.entity.Config").newInstance());
+            call(mapperHelper, "registerMapper", classLoader.loadClass(CodeGeneratorConfig.MAPPER_INTERFACE_REFERENCE));
+            call(mapperHelper, "processConfiguration", configuration);
+        } finally {
+            Resources.setDefaultClassLoader(defaultClassLoader);
+        }
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+        sqlSessionTemplate = new SqlSessionTemplate(sqlSessionFactory);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    /**
+     * 加载生成的类, 通用 Mapper 的类优先自己加载, 其余委托给测试的 ClassLoader
+     */
+    private static class GeneratedClassLoader extends URLClassLoader {
+
+        GeneratedClassLoader(URL[] urls) {
+            super(urls, GeneratedProject.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.startsWith("tk.mybatis.")) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> type = findLoadedClass(name);
+                if (type == null) {
+                    type = findClass(name);
+                }
+                if (resolve) {
+                    resolveClass(type);
+                }
+                return type;
+            }
+        }
+    }
+
+    /**
+     * 记录执行的语句
+     */
+    @Intercepts({
+            @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+            @Signature(type = Executor.class, method = "query",
+                    args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class})})
+    private class StatementRecorder implements Interceptor {
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            statements.add(((MappedStatement) invocation.getArgs()[0]).getId());
+            return invocation.proceed();
+        }
+
+        @Override
+        public Object plugin(Object target) {
+            return Plugin.wrap(target, this);
+        }
+
+        @Override
+        public void setProperties(Properties properties) {
+        }
+    }
+
+    /**
+     * 记录实际执行的 SQL
+     */
+    @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}))
+    private class SqlRecorder implements Interceptor {
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            sqls.add(((StatementHandler) invocation.getTarget()).getBoundSql().getSql());
+            return invocation.proceed();
+        }
+
+        @Override
+        public Object plugin(Object target) {
+            return Plugin.wrap(target, this);
+        }
+
+        @Override
+        public void setProperties(Properties properties) {
+        }
+    }
+}
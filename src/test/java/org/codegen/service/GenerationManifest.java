@@ -0,0 +1,238 @@
+package org.codegen.service;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.codegen.schema.ColumnMeta;
+import org.codegen.schema.IndexMeta;
+import org.codegen.schema.TableMeta;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 生成清单
+ * 增量生成时记录每个生成文件的输入摘要 (表结构, 模板, 配置), 输入未变化且文件存在时跳过生成
+ * 基础类总是记录输入摘要 (模板和模板选项) 和写入内容的摘要, 输入变化后重新生成
+ */
+public class GenerationManifest {
+
+    // MyBatis Generator 生成的文件没有模板, 以此代替模板摘要
+    private static final String MYBATIS_GENERATOR = "mybatis-generator";
+
+    // 基础类记录的分隔符, 记录格式为 输入摘要:内容摘要
+    private static final char BASE_SEPARATOR = ':';
+
+    // 基础类不是由记录的输入生成时的内容摘要 (如沿用的手工修改文件), 输入变化后不会被覆盖
+    public static final String UNKNOWN_CONTENT = "-";
+
+    // 项目根目录, 清单中的路径相对于该目录
+    private final Path projectPath;
+    // 清单文件
+    private final File manifestFile;
+    // 配置信息摘要
+    private final String configHash;
+    // 模板目录
+    private final File templateDir;
+    // 是否增量生成, 否则只记录基础类
+    private final boolean incremental;
+
+    private final Map<String, String> hashes = new ConcurrentHashMap<>();
+    private final Map<String, String> templateHashes = new ConcurrentHashMap<>();
+
+    public GenerationManifest(File projectDir, File manifestFile, String configHash, File templateDir,
+            boolean incremental) {
+        this.projectPath = projectDir.getAbsoluteFile().toPath().normalize();
+        this.manifestFile = manifestFile;
+        this.configHash = configHash;
+        this.templateDir = templateDir;
+        this.incremental = incremental;
+    }
+
+    /**
+     * 加载清单文件, 文件不存在时为空清单
+     * @return
+     */
+    public GenerationManifest load() {
+        if (!manifestFile.exists()) {
+            return this;
+        }
+        try (Reader in = new InputStreamReader(new FileInputStream(manifestFile), StandardCharsets.UTF_8)) {
+            Properties prop = new Properties();
+            prop.load(in);
+            for (String key : prop.stringPropertyNames()) {
+                hashes.put(key, prop.getProperty(key));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("加载生成清单异常!", e);
+        }
+        return this;
+    }
+
+    /**
+     * 保存清单文件, 按路径排序
+     */
+    public void save() {
+        if (!manifestFile.getParentFile().exists()) {
+            manifestFile.getParentFile().mkdirs();
+        }
+        // 路径只含目录分隔符和文件名字符, 按行写出即可被 Properties 读取, 排序后便于比对
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(manifestFile), StandardCharsets.UTF_8)) {
+            out.write("# codegen manifest\n");
+            for (Map.Entry<String, String> entry : new TreeMap<>(hashes).entrySet()) {
+                out.write(entry.getKey() + "=" + entry.getValue() + "\n");
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("保存生成清单异常!", e);
+        }
+    }
+
+    /**
+     * 计算生成文件的输入摘要
+     * @param task 生成任务, 需包含表结构
+     * @param templateName 模板名称, MyBatis Generator 生成的文件为 null
+     * @return
+     */
+    public String inputHash(TableTask task, String templateName) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(configHash, StandardCharsets.UTF_8).putChar('\n');
+        hasher.putString(tableFingerprint(task.getTable()), StandardCharsets.UTF_8).putChar('\n');
+        hasher.putString(nullToEmpty(task.getModelName()), StandardCharsets.UTF_8).putChar('\n');
+        hasher.putString(nullToEmpty(task.getSign()), StandardCharsets.UTF_8).putChar('\n');
+        hasher.putString(templateName == null ? MYBATIS_GENERATOR : templateHash(templateName), StandardCharsets.UTF_8);
+        return hasher.hash().toString();
+    }
+
+    /**
+     * 文件是否已是最新: 输入摘要与上次生成时一致, 文件是否存在由调用方通过输出目标检查
+     * @param file 生成文件
+     * @param inputHash 输入摘要
+     * @return
+     */
+    public boolean isUpToDate(File file, String inputHash) {
+        return inputHash.equals(hashes.get(relativePath(file)));
+    }
+
+    /**
+     * 记录文件的输入摘要, 需在文件生成成功后调用
+     * @param file 生成文件
+     * @param inputHash 输入摘要
+     */
+    public void update(File file, String inputHash) {
+        hashes.put(relativePath(file), inputHash);
+    }
+
+    /**
+     * 计算基础类的输入摘要: 模板内容和模板数据, 不含生成日期
+     * @param templateName 模板名称
+     * @param data 模板数据
+     * @return
+     */
+    public String baseInputHash(String templateName, Map<String, Object> data) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(templateHash(templateName), StandardCharsets.UTF_8).putChar('\n');
+        for (Map.Entry<String, Object> entry : new TreeMap<>(data).entrySet()) {
+            if (!"date".equals(entry.getKey())) {
+                hasher.putString(entry.getKey() + "=" + entry.getValue(), StandardCharsets.UTF_8).putChar('\n');
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * 基础类上次生成时的记录
+     * @param file 基础类文件
+     * @return {输入摘要, 内容摘要}, 没有记录时为 null
+     */
+    public String[] getBaseRecord(File file) {
+        String record = hashes.get(relativePath(file));
+        int index = record == null ? -1 : record.indexOf(BASE_SEPARATOR);
+        if (index < 0) {
+            return null;
+        }
+        return new String[]{record.substring(0, index), record.substring(index + 1)};
+    }
+
+    /**
+     * 记录基础类的输入摘要和内容摘要
+     * @param file 基础类文件
+     * @param inputHash 输入摘要
+     * @param contentHash 内容摘要, 内容不是由该输入生成时为 UNKNOWN_CONTENT
+     */
+    public void updateBase(File file, String inputHash, String contentHash) {
+        hashes.put(relativePath(file), inputHash + BASE_SEPARATOR + contentHash);
+    }
+
+    /**
+     * 文件内容摘要
+     * @param content 文件内容
+     * @return
+     */
+    public static String contentHash(String content) {
+        return Hashing.sha256().hashString(content, StandardCharsets.UTF_8).toString();
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * 模板内容摘要, 每个模板只读取一次
+     */
+    private String templateHash(String templateName) {
+        String hash = templateHashes.get(templateName);
+        if (hash == null) {
+            try {
+                hash = Files.asByteSource(new File(templateDir, templateName)).hash(Hashing.sha256()).toString();
+            } catch (IOException e) {
+                throw new RuntimeException("读取模板 " + templateName + " 异常!", e);
+            }
+            templateHashes.put(templateName, hash);
+        }
+        return hash;
+    }
+
+    private String relativePath(File file) {
+        Path path = file.getAbsoluteFile().toPath().normalize();
+        return (path.startsWith(projectPath) ? projectPath.relativize(path) : path).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * 表结构指纹, 字段, 主键或索引任一变化都会改变
+     * @param table 表结构
+     * @return
+     */
+    public static String tableFingerprint(TableMeta table) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(table.getName()).append('|').append(table.getTableType()).append('|')
+                .append(nullToEmpty(table.getRemarks())).append('\n');
+        for (ColumnMeta column : table.getColumns()) {
+            sb.append(column.getName()).append('|').append(column.getDataType()).append('|')
+                    .append(column.getTypeName()).append('|').append(column.getColumnSize()).append('|')
+                    .append(column.getDecimalDigits()).append('|').append(column.getNullable()).append('|')
+                    .append(nullToEmpty(column.getDefaultValue())).append('|').append(nullToEmpty(column.getRemarks()))
+                    .append('|').append(column.isAutoIncrement()).append('|').append(column.isGenerated()).append('\n');
+        }
+        sb.append("PK").append(table.getPrimaryKeys()).append('\n');
+        for (IndexMeta index : table.getIndexes()) {
+            sb.append(index.getName()).append('|').append(index.isUnique()).append(index.getColumns()).append('\n');
+        }
+        return Hashing.sha256().hashString(sb, StandardCharsets.UTF_8).toString();
+    }
+
+    private static String nullToEmpty(String str) {
+        return str == null ? "" : str;
+    }
+}
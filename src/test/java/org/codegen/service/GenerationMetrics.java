@@ -0,0 +1,318 @@
+package org.codegen.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 生成过程的分阶段耗时和字节数统计, 可被多个工作线程同时写入
+ * 读取表结构和 MyBatis Generator 为整批执行, 记录为批量耗时; 模板渲染和写入文件按表记录
+ * 多线程生成时各阶段为累计耗时, 总和可能大于实际耗时
+ */
+public class GenerationMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(GenerationMetrics.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    // 汇总中列出的最慢表数
+    private static final int SLOWEST_TABLES = 10;
+
+    /**
+     * 生成阶段
+     */
+    public enum Phase {
+        INTROSPECT("读取表结构"),
+        MYBATIS_GENERATOR("MyBatis Generator"),
+        RENDER("模板渲染"),
+        WRITE("写入文件");
+
+        private final String description;
+
+        Phase(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    // 批量阶段, 不属于某张表
+    private final Map<Phase, Stats> batch = newStats();
+    // 表名 ==> 各阶段统计
+    private final Map<String, Map<Phase, Stats>> tables = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次阶段耗时
+     * @param tableName 表名, 批量阶段或不属于某张表 (如通用类) 时为 null
+     * @param phase 阶段
+     * @param nanos 耗时(ns)
+     * @param bytes 字节数, 无输出时为 0
+     */
+    public void record(String tableName, Phase phase, long nanos, long bytes) {
+        Map<Phase, Stats> stats = batch;
+        if (tableName != null) {
+            stats = tables.get(tableName);
+            if (stats == null) {
+                tables.putIfAbsent(tableName, newStats());
+                stats = tables.get(tableName);
+            }
+        }
+        stats.get(phase).add(nanos, bytes);
+    }
+
+    /**
+     * 输出汇总表: 各阶段总计, 单表耗时分位数和最慢的表
+     */
+    public void logSummary() {
+        StringBuilder sb = new StringBuilder("生成耗时统计:\n");
+        sb.append(String.format("  %-20s %8s %12s %12s %10s %10s %10s %10s%n",
+                "阶段", "次数", "总耗时(ms)", "字节", "单表P50", "单表P90", "单表P99", "单表最大"));
+        for (Phase phase : Phase.values()) {
+            Stats total = total(phase);
+            if (total.count.sum() == 0) {
+                continue;
+            }
+            long[] samples = tableSamples(phase);
+            sb.append(String.format("  %-20s %8d %12.1f %12d %10s %10s %10s %10s%n", phase.getDescription(),
+                    total.count.sum(), millis(total.nanos.sum()), total.bytes.sum(),
+                    percentileText(samples, 50), percentileText(samples, 90), percentileText(samples, 99),
+                    percentileText(samples, 100)));
+        }
+        List<Map.Entry<String, Long>> slowest = slowestTables();
+        if (!slowest.isEmpty()) {
+            sb.append("  最慢的表 (ms):\n");
+            for (Map.Entry<String, Long> entry : slowest) {
+                sb.append(String.format("    %-40s %10.1f%s%n", entry.getKey(), millis(entry.getValue()),
+                        phaseText(tables.get(entry.getKey()))));
+            }
+        }
+        logger.info(sb.toString());
+    }
+
+    /**
+     * 输出 JSON 报告
+     * @param file 报告文件
+     * @param report 生成结果
+     */
+    public void writeJson(File file, GenerateReport report) {
+        Map<String, Object> root = new LinkedHashMap<>();
+        List<GenerateReport.TableResult> results = report.getResults();
+        int failed = report.getFailures().size();
+        root.put("tables", results.size());
+        root.put("succeeded", results.size() - failed);
+        root.put("failed", failed);
+        root.put("elapsedMs", report.getElapsed());
+
+        Map<String, Object> phases = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            Stats total = total(phase);
+            long[] samples = tableSamples(phase);
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("count", total.count.sum());
+            item.put("totalMs", millis(total.nanos.sum()));
+            item.put("batchMs", millis(batch.get(phase).nanos.sum()));
+            item.put("bytes", total.bytes.sum());
+            item.put("tableP50Ms", millis(percentile(samples, 50)));
+            item.put("tableP90Ms", millis(percentile(samples, 90)));
+            item.put("tableP99Ms", millis(percentile(samples, 99)));
+            item.put("tableMaxMs", millis(percentile(samples, 100)));
+            phases.put(phase.name(), item);
+        }
+        root.put("phases", phases);
+
+        List<Object> items = new ArrayList<>();
+        for (GenerateReport.TableResult result : results) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("table", result.getTableName());
+            item.put("success", result.isSuccess());
+            item.put("elapsedMs", result.getElapsed());
+            if (!result.isSuccess()) {
+                item.put("error", String.valueOf(result.getError().getMessage()));
+            }
+            Map<Phase, Stats> stats = tables.get(result.getTableName());
+            if (stats != null) {
+                Map<String, Object> tablePhases = new LinkedHashMap<>();
+                for (Phase phase : Phase.values()) {
+                    Stats s = stats.get(phase);
+                    if (s.count.sum() > 0) {
+                        Map<String, Object> p = new LinkedHashMap<>();
+                        p.put("ms", millis(s.nanos.sum()));
+                        p.put("bytes", s.bytes.sum());
+                        tablePhases.put(phase.name(), p);
+                    }
+                }
+                item.put("phases", tablePhases);
+            }
+            List<Object> risks = new ArrayList<>();
+            for (ScanRisk risk : report.getScanRisks(result.getTableName())) {
+                Map<String, Object> r = new LinkedHashMap<>();
+                r.put("method", risk.getMethod());
+                r.put("reason", risk.getReason());
+                risks.add(r);
+            }
+            if (!risks.isEmpty()) {
+                item.put("scanRisks", risks);
+            }
+            items.add(item);
+        }
+        root.put("tableResults", items);
+
+        try {
+            if (file.getParentFile() != null && !file.getParentFile().exists()) {
+                file.getParentFile().mkdirs();
+            }
+            MAPPER.writeValue(file, root);
+            logger.info("生成报告: {}", file.getPath());
+        } catch (IOException e) {
+            logger.warn("生成报告写入失败: {}", file.getPath(), e);
+        }
+    }
+
+    /**
+     * 某阶段的总计, 含批量和所有表
+     */
+    private Stats total(Phase phase) {
+        Stats total = new Stats();
+        total.add(batch.get(phase));
+        for (Map<Phase, Stats> stats : tables.values()) {
+            total.add(stats.get(phase));
+        }
+        return total;
+    }
+
+    /**
+     * 某阶段各表的耗时, 升序
+     */
+    private long[] tableSamples(Phase phase) {
+        List<Long> samples = new ArrayList<>();
+        for (Map<Phase, Stats> stats : tables.values()) {
+            if (stats.get(phase).count.sum() > 0) {
+                samples.add(stats.get(phase).nanos.sum());
+            }
+        }
+        Collections.sort(samples);
+        long[] result = new long[samples.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = samples.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * 按各阶段耗时之和排序的最慢表
+     */
+    private List<Map.Entry<String, Long>> slowestTables() {
+        Map<String, Long> totals = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<Phase, Stats>> entry : tables.entrySet()) {
+            long nanos = 0;
+            for (Stats stats : entry.getValue().values()) {
+                nanos += stats.nanos.sum();
+            }
+            totals.put(entry.getKey(), nanos);
+        }
+        List<Map.Entry<String, Long>> sorted = new ArrayList<>(totals.entrySet());
+        sorted.sort(Collections.reverseOrder(Comparator.comparing(Map.Entry<String, Long>::getValue)));
+        return sorted.subList(0, Math.min(SLOWEST_TABLES, sorted.size()));
+    }
+
+    /**
+     * 字符串按 UTF-8 编码后的字节数, 不实际编码
+     * @param content 内容
+     * @return
+     */
+    public static long utf8Length(CharSequence content) {
+        long bytes = 0;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < content.length()
+                    && Character.isLowSurrogate(content.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private static String phaseText(Map<Phase, Stats> stats) {
+        StringBuilder sb = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            if (stats.get(phase).count.sum() > 0) {
+                sb.append(sb.length() == 0 ? "  (" : ", ").append(phase.getDescription()).append(' ')
+                        .append(String.format("%.1f", millis(stats.get(phase).nanos.sum())));
+            }
+        }
+        return sb.length() == 0 ? "" : sb.append(')').toString();
+    }
+
+    /**
+     * 最近秩法分位数
+     * @param sorted 升序样本
+     * @param percent 百分位, 100 为最大值
+     */
+    private static long percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static String percentileText(long[] sorted, int percent) {
+        return sorted.length == 0 ? "-" : String.format("%.2f", millis(percentile(sorted, percent)));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static Map<Phase, Stats> newStats() {
+        Map<Phase, Stats> stats = new EnumMap<>(Phase.class);
+        for (Phase phase : Phase.values()) {
+            stats.put(phase, new Stats());
+        }
+        return stats;
+    }
+
+    /**
+     * 单个阶段的累计值
+     */
+    private static class Stats {
+        final LongAdder count = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+
+        void add(long nanos, long bytes) {
+            this.count.increment();
+            this.nanos.add(nanos);
+            this.bytes.add(bytes);
+        }
+
+        void add(Stats other) {
+            count.add(other.count.sum());
+            nanos.add(other.nanos.sum());
+            bytes.add(other.bytes.sum());
+        }
+    }
+}
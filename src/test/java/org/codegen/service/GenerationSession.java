@@ -0,0 +1,321 @@
+package org.codegen.service;
+
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+import org.codegen.output.OutputSink;
+import org.codegen.util.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 一次生成运行的共享状态
+ * Freemarker 配置, 已解析的模板, 包路径和通用类名在创建时计算一次, 由各表的生成阶段共享, 可被多个工作线程同时使用
+ * 所有生成文件经由 OutputSink 输出, 模板渲染和写入的耗时记录到 GenerationMetrics
+ */
+public class GenerationSession {
+
+    private static final Logger logger = LoggerFactory.getLogger(GenerationSession.class);
+
+    // 每张表都会用到的模板, 创建会话时解析
+    private static final String[] TABLE_TEMPLATES = {"service.ftl", "service-impl.ftl", "controller.ftl", "model-json-writer.ftl", "model-projection.ftl"};
+
+    private final Configuration configuration;
+    // 生成清单, 为 null 时总是生成, 不记录基础类
+    private final GenerationManifest manifest;
+    // 输出目标
+    private final OutputSink sink;
+    // 分阶段耗时统计
+    private final GenerationMetrics metrics = new GenerationMetrics();
+
+    private final Map<String, Template> templates = new ConcurrentHashMap<>();
+
+    // 模板公共数据: date, author, basePackage 和模板选项
+    private final Map<String, Object> commonData;
+    // 是否开启了模板选项, 开启后基础类的内容与默认生成的不同
+    private final boolean templateOptions;
+    // 通用 Mapper, Service 接口和抽象 Service 的类名
+    private final String mapperName;
+    private final String serviceName;
+    private final String abstractServiceName;
+
+    public GenerationSession(Configuration configuration, GenerationManifest manifest, OutputSink sink) {
+        this.configuration = configuration;
+        this.manifest = manifest;
+        this.sink = sink;
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("date", CodeGeneratorConfig.DATE);
+        data.put("author", CodeGeneratorConfig.AUTHOR);
+        data.put("basePackage", CodeGeneratorConfig.BASE_PACKAGE);
+        data.put("keysetPagination", CodeGeneratorConfig.TEMPLATE_KEYSET_PAGINATION);
+        data.put("batchSize", Math.max(0, CodeGeneratorConfig.TEMPLATE_BATCH_SIZE));
+        data.put("batchStrategy", CodeGeneratorConfig.TEMPLATE_BATCH_SIZE > 0 ? CodeGeneratorConfig.TEMPLATE_BATCH_STRATEGY : "");
+        data.put("idsChunkSize", Math.max(0, CodeGeneratorConfig.TEMPLATE_IDS_CHUNK_SIZE));
+        data.put("asyncController", CodeGeneratorConfig.TEMPLATE_ASYNC_CONTROLLER);
+        data.put("asyncPoolSize", CodeGeneratorConfig.TEMPLATE_ASYNC_POOL_SIZE);
+        data.put("asyncQueueCapacity", CodeGeneratorConfig.TEMPLATE_ASYNC_QUEUE_CAPACITY);
+        data.put("asyncVirtualThreads", CodeGeneratorConfig.TEMPLATE_ASYNC_VIRTUAL_THREADS);
+        data.put("jsonWriter", CodeGeneratorConfig.TEMPLATE_JSON_WRITER);
+        data.put("streamExport", CodeGeneratorConfig.TEMPLATE_STREAM_EXPORT);
+        data.put("streamFetchSize", CodeGeneratorConfig.TEMPLATE_STREAM_FETCH_SIZE);
+        data.put("entityCache", !CodeGeneratorConfig.TEMPLATE_CACHE_TABLES.isEmpty());
+        data.put("batchLoader", !CodeGeneratorConfig.TEMPLATE_BATCH_LOADER_TABLES.isEmpty());
+        data.put("pageCount", !CodeGeneratorConfig.TEMPLATE_PAGE_COUNT_MODES.isEmpty());
+        data.put("estimateCount", CodeGeneratorConfig.TEMPLATE_PAGE_COUNT_MODES.containsValue("estimate"));
+        data.put("pageCountTtlSeconds", CodeGeneratorConfig.TEMPLATE_PAGE_COUNT_TTL_SECONDS);
+        data.put("dirtyTracking", CodeGeneratorConfig.TEMPLATE_DIRTY_TRACKING);
+        data.put("statementMetricsJmx", CodeGeneratorConfig.TEMPLATE_STATEMENT_METRICS_JMX);
+        data.put("upsert", CodeGeneratorConfig.TEMPLATE_UPSERT);
+        data.put("upsertChunkSize", CodeGeneratorConfig.TEMPLATE_UPSERT_CHUNK_SIZE);
+        this.commonData = Collections.unmodifiableMap(data);
+        this.templateOptions = CodeGeneratorConfig.TEMPLATE_KEYSET_PAGINATION
+                || CodeGeneratorConfig.TEMPLATE_BATCH_SIZE > 0
+                || CodeGeneratorConfig.TEMPLATE_UNIQUE_FINDERS
+                || !CodeGeneratorConfig.TEMPLATE_CACHE_TABLES.isEmpty()
+                || CodeGeneratorConfig.TEMPLATE_STREAM_EXPORT
+                || CodeGeneratorConfig.TEMPLATE_IDS_CHUNK_SIZE > 0
+                || CodeGeneratorConfig.TEMPLATE_ASYNC_CONTROLLER
+                || CodeGeneratorConfig.TEMPLATE_JSON_WRITER
+                || !CodeGeneratorConfig.TEMPLATE_BATCH_LOADER_TABLES.isEmpty()
+                || !CodeGeneratorConfig.TEMPLATE_PAGE_COUNT_MODES.isEmpty()
+                || !CodeGeneratorConfig.TEMPLATE_PROJECTIONS.isEmpty()
+                || CodeGeneratorConfig.TEMPLATE_DIRTY_TRACKING
+                || CodeGeneratorConfig.TEMPLATE_INDEX_FINDERS
+                || CodeGeneratorConfig.TEMPLATE_STATEMENT_METRICS
+                || CodeGeneratorConfig.TEMPLATE_UPSERT;
+
+        this.mapperName = simpleClassName(CodeGeneratorConfig.MAPPER_INTERFACE_REFERENCE);
+        this.serviceName = simpleClassName(CodeGeneratorConfig.SERVICE_INTERFACE_REFERENCE);
+        this.abstractServiceName = simpleClassName(CodeGeneratorConfig.ABSTRACT_SERVICE_CLASS_REFERENCE);
+
+        for (String templateName : TABLE_TEMPLATES) {
+            getTemplate(templateName);
+        }
+    }
+
+    /**
+     * 获取已解析的模板, 每个模板只解析一次
+     * @param templateName 模板名称
+     * @return
+     */
+    public Template getTemplate(String templateName) {
+        Template template = templates.get(templateName);
+        if (template == null) {
+            try {
+                template = configuration.getTemplate(templateName);
+            } catch (IOException e) {
+                throw new RuntimeException("加载模板 " + templateName + " 异常!", e);
+            }
+            templates.put(templateName, template);
+        }
+        return template;
+    }
+
+    /**
+     * 创建模板数据, 已包含 date, author, basePackage 和模板选项
+     * @return
+     */
+    public Map<String, Object> newDataModel() {
+        return new HashMap<>(commonData);
+    }
+
+    /**
+     * 获取 java 文件
+     * eg: javaFile(PACKAGE_PATH_SERVICE, "test", "DemoService.java") ==> {PROJECT_PATH}{JAVA_PATH}/com/bigsea/service/test/DemoService.java
+     * @param packagePath 包路径, 以 / 开头和结尾
+     * @param sign 区分字段, 为空时不划分子模块
+     * @param fileName 文件名
+     * @return
+     */
+    public File javaFile(String packagePath, String sign, String fileName) {
+        StringBuilder sb = new StringBuilder(CodeGeneratorConfig.PROJECT_PATH).append(CodeGeneratorConfig.JAVA_PATH)
+                .append(packagePath);
+        if (!StringUtils.isNullOrEmpty(sign)) {
+            sb.append(sign).append('/');
+        }
+        return new File(sb.append(fileName).toString());
+    }
+
+    /**
+     * 渲染模板并写入文件
+     * 开启增量生成时, 输入未变化且输出目标中文件已存在则跳过
+     * @param task 生成任务, 增量生成时需包含表结构
+     * @param templateName 模板名称
+     * @param data 模板数据
+     * @param file 生成文件
+     * @return 是否生成, 跳过时为 false
+     * @throws IOException
+     * @throws TemplateException
+     */
+    public boolean render(TableTask task, String templateName, Map<String, Object> data, File file)
+            throws IOException, TemplateException {
+        String hash = isIncremental() ? manifest.inputHash(task, templateName) : null;
+        if (hash != null && sink.exists(file) && manifest.isUpToDate(file, hash)) {
+            return false;
+        }
+        write(task.getTableName(), templateName, data, file);
+        if (hash != null) {
+            manifest.update(file, hash);
+        }
+        return true;
+    }
+
+    /**
+     * 渲染模板并写入文件, 不检查增量生成清单
+     * 模板先完整渲染到内存, 再一次写入输出目标
+     * @param templateName 模板名称
+     * @param data 模板数据
+     * @param file 生成文件
+     * @throws IOException
+     * @throws TemplateException
+     */
+    public void write(String templateName, Map<String, Object> data, File file) throws IOException, TemplateException {
+        write(null, templateName, data, file);
+    }
+
+    /**
+     * 渲染基础类模板, 文件不存在或上次生成后模板和模板选项有变化时写入
+     * 清单中记录上次生成的输入摘要和内容摘要, 输入变化且文件未被修改时覆盖, 已被修改时报错, 避免覆盖手工修改
+     * 没有记录的已有文件 (未使用清单时生成) 与当前渲染结果除生成日期外相同时直接记录;
+     * 不同时, 开启了模板选项则报错, 否则保留现有文件
+     * @param templateName 模板名称
+     * @param data 模板数据
+     * @param file 生成文件
+     * @return 是否写入
+     * @throws IOException
+     * @throws TemplateException
+     */
+    public boolean writeBase(String templateName, Map<String, Object> data, File file) throws IOException, TemplateException {
+        String hash = manifest == null ? null : manifest.baseInputHash(templateName, data);
+        String[] record = manifest == null ? null : manifest.getBaseRecord(file);
+        boolean exists = sink.exists(file);
+        if (exists && record != null && record[0].equals(hash)) {
+            return false;
+        }
+        String content = render(null, templateName, data);
+        String existing = exists ? sink.read(file) : null;
+        if (existing != null) {
+            if (record != null) {
+                // 输入已变化, 文件未被修改时才覆盖
+                if (!GenerationManifest.contentHash(existing).equals(record[1])) {
+                    throw new RuntimeException(staleMessage(file, "的模板或模板选项已变化, 但生成后已被修改"));
+                }
+            } else if (withoutDate(existing).equals(withoutDate(content))) {
+                if (manifest != null) {
+                    manifest.updateBase(file, hash, GenerationManifest.contentHash(existing));
+                }
+                return false;
+            } else if (templateOptions) {
+                throw new RuntimeException(staleMessage(file, "与当前模板选项生成的内容不同"));
+            } else {
+                logger.warn("{} 与当前模板生成的内容不同, 保留现有文件", file.getName());
+                if (manifest != null) {
+                    manifest.updateBase(file, hash, GenerationManifest.UNKNOWN_CONTENT);
+                }
+                return false;
+            }
+        }
+        write(null, file, content);
+        if (manifest != null) {
+            manifest.updateBase(file, hash, GenerationManifest.contentHash(content));
+        }
+        return true;
+    }
+
+    /**
+     * 渲染模板并写入文件
+     * @param tableName 表名, 不属于某张表时为 null
+     */
+    private void write(String tableName, String templateName, Map<String, Object> data, File file)
+            throws IOException, TemplateException {
+        write(tableName, file, render(tableName, templateName, data));
+    }
+
+    /**
+     * 渲染模板到内存, 记录渲染耗时
+     * @param tableName 表名, 不属于某张表时为 null
+     */
+    private String render(String tableName, String templateName, Map<String, Object> data)
+            throws IOException, TemplateException {
+        long start = System.nanoTime();
+        StringWriter out = new StringWriter();
+        getTemplate(templateName).process(data, out);
+        String content = out.toString();
+        metrics.record(tableName, GenerationMetrics.Phase.RENDER, System.nanoTime() - start,
+                GenerationMetrics.utf8Length(content));
+        return content;
+    }
+
+    /**
+     * 写入输出目标, 记录写入耗时
+     * @param tableName 表名, 不属于某张表时为 null
+     */
+    private void write(String tableName, File file, String content) throws IOException {
+        long start = System.nanoTime();
+        sink.write(file, content);
+        metrics.record(tableName, GenerationMetrics.Phase.WRITE, System.nanoTime() - start,
+                GenerationMetrics.utf8Length(content));
+    }
+
+    /**
+     * 基础类已过期的提示
+     */
+    private static String staleMessage(File file, String reason) {
+        return file.getPath() + " " + reason + ", 请保存修改后删除该文件重新生成!";
+    }
+
+    /**
+     * 去掉生成日期所在的注释行
+     */
+    private static String withoutDate(String content) {
+        return content.replaceAll("(?m)^.*Auto Generated by .*$", "");
+    }
+
+    /**
+     * 是否增量生成, 跳过输入未变化的文件
+     * @return
+     */
+    public boolean isIncremental() {
+        return manifest != null && manifest.isIncremental();
+    }
+
+    public GenerationManifest getManifest() {
+        return manifest;
+    }
+
+    public GenerationMetrics getMetrics() {
+        return metrics;
+    }
+
+    public OutputSink getSink() {
+        return sink;
+    }
+
+    public String getMapperName() {
+        return mapperName;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public String getAbstractServiceName() {
+        return abstractServiceName;
+    }
+
+    /**
+     * eg: com.bigsea.core.Mapper ==> Mapper
+     */
+    private static String simpleClassName(String reference) {
+        return reference.substring(reference.lastIndexOf('.') + 1);
+    }
+}
@@ -0,0 +1,126 @@
+package org.codegen.service;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.codegen.service.GeneratedProject.call;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 在内嵌 H2 上运行生成的主键集合重载: 去重后按 idsChunkSize 切分 IN 列表, 空集合不执行语句
+ */
+public class IdChunksTest {
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static GeneratedProject project;
+
+    private static final List<Integer> chunkSizes = new ArrayList<>();
+
+    private Object service;
+
+    @BeforeClass
+    public static void generate() throws Exception {
+        project = new GeneratedProject("codegen_ids", folder.getRoot());
+        project.execute("CREATE TABLE sys_log (id BIGINT AUTO_INCREMENT PRIMARY KEY, content VARCHAR(64))");
+        CodeGeneratorConfig.TEMPLATE_IDS_CHUNK_SIZE = 2;
+        project.generate("sys_log");
+        project.addInterceptor(new ChunkRecorder());
+    }
+
+    @AfterClass
+    public static void close() throws Exception {
+        project.close();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        project.execute("DELETE FROM sys_log",
+                "INSERT INTO sys_log (id, content) VALUES (1, 'a'), (2, 'b'), (3, 'c'), (4, 'd'), (5, 'e')");
+        service = project.newService("service.impl.log.SysLogServiceImpl");
+    }
+
+    @After
+    public void tearDown() {
+        project.clearStatements();
+        chunkSizes.clear();
+    }
+
+    @Test
+    public void findsInChunksWithoutDuplicates() throws Exception {
+        List<?> logs = (List<?>) call(service, "findByIds", Arrays.asList(1L, 2L, 2L, 3L, 5L, 6L));
+        assertEquals(Arrays.asList(2, 2, 1), chunkSizes);
+        assertEquals(Collections.nCopies(3, "selectByIdList"), project.getStatements());
+        List<Object> ids = new ArrayList<>();
+        for (Object log : logs) {
+            ids.add(call(log, "getId"));
+        }
+        assertEquals(Arrays.asList(1L, 2L, 3L, 5L), ids);
+    }
+
+    @Test
+    public void deletesInChunks() throws Exception {
+        assertEquals(4, call(service, "deleteByIds", new long[]{1, 2, 3, 4}));
+        assertEquals(Arrays.asList(2, 2), chunkSizes);
+        assertEquals(Collections.nCopies(2, "deleteByIdList"), project.getStatements());
+        assertEquals(1, project.query("SELECT id FROM sys_log").size());
+    }
+
+    @Test
+    public void emptyIdsRunNoStatement() throws Exception {
+        assertEquals(Collections.emptyList(), call(service, "findByIds", Collections.<Long>emptyList()));
+        assertEquals(0, call(service, "deleteByIds", new long[0]));
+        assertEquals(Collections.emptyList(), project.getStatements());
+    }
+
+    /**
+     * 记录每条语句 IN 列表的长度
+     */
+    @Intercepts({
+            @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+            @Signature(type = Executor.class, method = "query",
+                    args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class})})
+    private static class ChunkRecorder implements Interceptor {
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            Object parameter = invocation.getArgs()[1];
+            if (parameter instanceof Map && ((Map<?, ?>) parameter).containsKey("ids")) {
+                chunkSizes.add(((Collection<?>) ((Map<?, ?>) parameter).get("ids")).size());
+            }
+            return invocation.proceed();
+        }
+
+        @Override
+        public Object plugin(Object target) {
+            return Plugin.wrap(target, this);
+        }
+
+        @Override
+        public void setProperties(Properties properties) {
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package org.codegen.service;
+
+import org.codegen.schema.ColumnMeta;
+import org.codegen.schema.IndexMeta;
+import org.codegen.schema.TableMeta;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 按索引前缀查询的方法: 前缀字段等值查询, 或前缀前几列等值, 最后一列范围查询, 供插件和模板使用
+ * eg: 索引 (user_name, created_at) 生成 findByUserName, findByUserNameAndCreatedAt 和 findByUserNameAndCreatedAtBetween
+ * 范围查询只用于数值和日期时间字段
+ */
+public class IndexFinder {
+
+    // 方法名中 By 之后的部分, eg: UserNameAndCreatedAtBetween
+    private final String name;
+    // 使用的索引名, 主键为 PRIMARY
+    private final String indexName;
+    // 等值查询的字段, 按索引顺序排列
+    private final List<ColumnProperty> equalities;
+    // 范围查询的字段, 等值查询时为 null
+    private final ColumnProperty range;
+    // 是否最多返回一条记录: 唯一索引的全部字段等值查询
+    private final boolean unique;
+
+    private IndexFinder(String indexName, List<ColumnProperty> equalities, ColumnProperty range, boolean unique) {
+        StringBuilder sb = new StringBuilder();
+        for (ColumnProperty property : equalities) {
+            if (sb.length() > 0) {
+                sb.append("And");
+            }
+            sb.append(property.getUpperName());
+        }
+        if (range != null) {
+            if (sb.length() > 0) {
+                sb.append("And");
+            }
+            sb.append(range.getUpperName()).append("Between");
+        }
+        this.name = sb.toString();
+        this.indexName = indexName;
+        this.equalities = equalities;
+        this.range = range;
+        this.unique = unique;
+    }
+
+    /**
+     * 按主键和索引计算查询方法, 同名方法只保留第一个
+     * 不含主键全部字段的等值查询 (findById) 和单列唯一索引字段的等值查询 (唯一索引查询方法 findByXxx)
+     * @param table 表结构, 未读取时不生成
+     * @return
+     */
+    public static List<IndexFinder> of(TableMeta table) {
+        Map<String, IndexFinder> finders = new LinkedHashMap<>();
+        if (table == null) {
+            return new ArrayList<>();
+        }
+        List<IndexMeta> indexes = new ArrayList<>();
+        if (!table.getPrimaryKeys().isEmpty()) {
+            IndexMeta primary = new IndexMeta("PRIMARY", true);
+            primary.setColumns(table.getPrimaryKeys());
+            indexes.add(primary);
+        }
+        indexes.addAll(table.getIndexes());
+        List<String> uniqueColumns = table.getUniqueColumns();
+
+        for (IndexMeta index : indexes) {
+            boolean primary = "PRIMARY".equals(index.getName());
+            List<ColumnProperty> prefix = new ArrayList<>();
+            for (int i = 0; i < index.getColumns().size(); i++) {
+                ColumnMeta column = table.getColumn(index.getColumns().get(i));
+                if (column == null) {
+                    break;
+                }
+                ColumnProperty property = ColumnProperty.of(column);
+                boolean full = i == index.getColumns().size() - 1;
+                List<ColumnProperty> equalities = new ArrayList<>(prefix);
+                equalities.add(property);
+                boolean covered = full && primary || i == 0 && containsIgnoreCase(uniqueColumns, column.getName());
+                boolean reserved = i == 0 && ColumnProperty.isReservedFinderName(property.getName());
+                if (!covered && !reserved) {
+                    add(finders, new IndexFinder(index.getName(), equalities, null, full && index.isUnique()));
+                }
+                if (isRangeType(column.getDataType())) {
+                    add(finders, new IndexFinder(index.getName(), new ArrayList<>(prefix), property, false));
+                }
+                prefix.add(property);
+            }
+        }
+        return new ArrayList<>(finders.values());
+    }
+
+    private static boolean containsIgnoreCase(List<String> names, String name) {
+        for (String existing : names) {
+            if (existing.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void add(Map<String, IndexFinder> finders, IndexFinder finder) {
+        if (!finders.containsKey(finder.name)) {
+            finders.put(finder.name, finder);
+        }
+    }
+
+    /**
+     * 适合范围查询的类型: 数值和日期时间
+     */
+    private static boolean isRangeType(int dataType) {
+        switch (dataType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+            case Types.FLOAT:
+            case Types.REAL:
+            case Types.DOUBLE:
+            case Types.DATE:
+            case Types.TIME:
+            case Types.TIMESTAMP:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 传给 IndexFinderPlugin 的表配置属性, 每个方法为 方法名:等值字段:范围字段:是否唯一, 以分号分隔
+     * eg: UserNameAndCreatedAtBetween:user_name:created_at:false;UserName:user_name::false
+     * @param finders 查询方法
+     * @return
+     */
+    public static String toPluginProperty(List<IndexFinder> finders) {
+        StringBuilder sb = new StringBuilder();
+        for (IndexFinder finder : finders) {
+            if (sb.length() > 0) {
+                sb.append(';');
+            }
+            StringBuilder columns = new StringBuilder();
+            for (ColumnProperty property : finder.equalities) {
+                if (columns.length() > 0) {
+                    columns.append(',');
+                }
+                columns.append(property.getColumnName());
+            }
+            sb.append(finder.name).append(':').append(columns).append(':')
+                    .append(finder.range == null ? "" : finder.range.getColumnName()).append(':').append(finder.unique);
+        }
+        return sb.toString();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public List<ColumnProperty> getEqualities() {
+        return equalities;
+    }
+
+    public ColumnProperty getRange() {
+        return range;
+    }
+
+    public boolean isUnique() {
+        return unique;
+    }
+
+    /**
+     * 方法参数声明, 范围字段为 xxxFrom 和 xxxTo, eg: String userName, Date createdAtFrom, Date createdAtTo
+     */
+    public String getParameters() {
+        StringBuilder sb = new StringBuilder();
+        for (ColumnProperty property : equalities) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(property.getJavaType()).append(' ').append(property.getName());
+        }
+        if (range != null) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(range.getJavaType()).append(' ').append(range.getName()).append("From, ")
+                    .append(range.getJavaType()).append(' ').append(range.getName()).append("To");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 调用 Mapper 方法的参数, eg: userName, createdAtFrom, createdAtTo
+     */
+    public String getArguments() {
+        StringBuilder sb = new StringBuilder();
+        for (ColumnProperty property : equalities) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(property.getName());
+        }
+        if (range != null) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(range.getName()).append("From, ").append(range.getName()).append("To");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 查询条件说明, 用于注释, eg: user_name = ? and created_at between ? and ?
+     */
+    public String getCondition() {
+        StringBuilder sb = new StringBuilder();
+        for (ColumnProperty property : equalities) {
+            if (sb.length() > 0) {
+                sb.append(" and ");
+            }
+            sb.append(property.getColumnName()).append(" = ?");
+        }
+        if (range != null) {
+            if (sb.length() > 0) {
+                sb.append(" and ");
+            }
+            sb.append(range.getColumnName()).append(" between ? and ?");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 参数类型需要的 import
+     */
+    public Set<String> getImports() {
+        Set<String> imports = new TreeSet<>();
+        for (ColumnProperty property : equalities) {
+            if (property.getImportType() != null) {
+                imports.add(property.getImportType());
+            }
+        }
+        if (range != null && range.getImportType() != null) {
+            imports.add(range.getImportType());
+        }
+        return imports;
+    }
+}
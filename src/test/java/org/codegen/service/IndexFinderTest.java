@@ -0,0 +1,97 @@
+package org.codegen.service;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.lang.reflect.Method;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.codegen.service.GeneratedProject.call;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 在内嵌 H2 上运行生成的索引前缀查询: 只为主键和索引的前缀生成, 查询结果正确, 生成报告列出可能全表扫描的方法
+ */
+public class IndexFinderTest {
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static GeneratedProject project;
+
+    private static GenerateReport report;
+
+    private static Object service;
+
+    @BeforeClass
+    public static void generate() throws Exception {
+        project = new GeneratedProject("codegen_finder", folder.getRoot());
+        project.execute("CREATE TABLE sys_log (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_name VARCHAR(32), "
+                        + "created_at TIMESTAMP, level INT, content VARCHAR(255), KEY idx_log_user_time (user_name, created_at))",
+                "INSERT INTO sys_log (id, user_name, created_at, level, content) VALUES "
+                        + "(1, 'a', '2020-01-01 00:00:00', 1, 'x'), (2, 'a', '2020-01-02 00:00:00', 2, 'y'), "
+                        + "(3, 'a', '2020-01-03 00:00:00', 1, 'z'), (4, 'b', '2020-01-02 00:00:00', 1, 'w')");
+        CodeGeneratorConfig.TEMPLATE_INDEX_FINDERS = true;
+        report = project.generate("sys_log");
+        service = project.newService("service.impl.log.SysLogServiceImpl");
+    }
+
+    @AfterClass
+    public static void close() throws Exception {
+        project.close();
+    }
+
+    @Test
+    public void findersOnlyForIndexPrefixes() throws Exception {
+        Set<String> finders = new TreeSet<>();
+        for (Method method : project.loadClass("service.log.SysLogService").getDeclaredMethods()) {
+            if (method.getName().startsWith("findBy")) {
+                finders.add(method.getName());
+            }
+        }
+        assertEquals(new TreeSet<>(Arrays.asList("findByIdBetween", "findByUserName", "findByUserNameAndCreatedAt",
+                "findByUserNameAndCreatedAtBetween")), finders);
+    }
+
+    @Test
+    public void findersQueryByIndexPrefix() throws Exception {
+        assertEquals(Arrays.asList(1L, 2L, 3L), ids(call(service, "findByUserName", "a")));
+        assertEquals(Arrays.asList(2L, 3L), ids(call(service, "findByUserNameAndCreatedAtBetween", "a",
+                new Date(Timestamp.valueOf("2020-01-02 00:00:00").getTime()),
+                new Date(Timestamp.valueOf("2020-01-03 00:00:00").getTime()))));
+        assertEquals(Arrays.asList(2L, 3L, 4L), ids(call(service, "findByIdBetween", 2L, 4L)));
+    }
+
+    @Test
+    public void reportsColumnsOutsideIndexes() {
+        List<String> methods = new ArrayList<>();
+        String unindexed = null;
+        for (ScanRisk risk : report.getScanRisks("sys_log")) {
+            methods.add(risk.getMethod());
+            if (risk.getMethod().startsWith("findBy(")) {
+                unindexed = risk.getReason();
+            }
+        }
+        assertTrue(methods.toString(), methods.contains("findAll()"));
+        assertTrue(methods.toString(), methods.contains("Controller list(page, size)"));
+        assertTrue(String.valueOf(unindexed), unindexed != null && unindexed.contains("created_at, level, content"));
+    }
+
+    private static List<Object> ids(Object logs) throws Exception {
+        List<Object> ids = new ArrayList<>();
+        for (Object log : (List<?>) logs) {
+            ids.add(call(log, "getId"));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,123 @@
+package org.codegen.service;
+
+import org.codegen.schema.SchemaModel;
+import org.codegen.schema.TableMeta;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * 表结构快照往返: 从内嵌 H2 (MySQL 模式) 导出快照, 离线读取的表结构与在线读取的完全相同
+ */
+public class OfflineGenerationTest {
+
+    private static final String H2_URL = "jdbc:h2:mem:codegen_offline;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static final String[] TABLES = {"sys_area", "sys_log"};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String url;
+    private String username;
+    private String password;
+    private String driverClassName;
+    private boolean offline;
+    private String snapshotPath;
+
+    @BeforeClass
+    public static void loadConfig() {
+        // 触发 CodeGeneratorManager 加载配置, 之后再修改运行参数
+        new CodeGeneratorManager();
+    }
+
+    @Before
+    public void setUp() throws SQLException {
+        url = CodeGeneratorConfig.JDBC_URL;
+        username = CodeGeneratorConfig.JDBC_USERNAME;
+        password = CodeGeneratorConfig.JDBC_PASSWORD;
+        driverClassName = CodeGeneratorConfig.JDBC_DRIVER_CLASS_NAME;
+        offline = CodeGeneratorConfig.GEN_OFFLINE;
+        snapshotPath = CodeGeneratorConfig.GEN_SNAPSHOT_PATH;
+        CodeGeneratorConfig.JDBC_URL = H2_URL;
+        CodeGeneratorConfig.JDBC_USERNAME = "sa";
+        CodeGeneratorConfig.JDBC_PASSWORD = "";
+        CodeGeneratorConfig.JDBC_DRIVER_CLASS_NAME = "org.h2.Driver";
+        CodeGeneratorConfig.GEN_OFFLINE = false;
+        execute("DROP ALL OBJECTS",
+                "CREATE TABLE sys_area (id INT AUTO_INCREMENT PRIMARY KEY, code VARCHAR(32) NOT NULL, "
+                        + "name VARCHAR(64), parent_id INT, remark TEXT, UNIQUE KEY uk_area_code (code), "
+                        + "KEY idx_area_parent (parent_id, name))",
+                "CREATE TABLE sys_log (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_name VARCHAR(32), "
+                        + "created_at TIMESTAMP, content CLOB, KEY idx_log_user_time (user_name, created_at))",
+                "CREATE TABLE sys_other (id INT PRIMARY KEY)");
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        execute("DROP ALL OBJECTS");
+        CodeGeneratorConfig.JDBC_URL = url;
+        CodeGeneratorConfig.JDBC_USERNAME = username;
+        CodeGeneratorConfig.JDBC_PASSWORD = password;
+        CodeGeneratorConfig.JDBC_DRIVER_CLASS_NAME = driverClassName;
+        CodeGeneratorConfig.GEN_OFFLINE = offline;
+        CodeGeneratorConfig.GEN_SNAPSHOT_PATH = snapshotPath;
+    }
+
+    @Test
+    public void offlineSchemaMatchesOnline() throws Exception {
+        CodeGeneratorManager manager = new CodeGeneratorManager();
+        SchemaModel online = manager.introspectSchema(Arrays.asList(TABLES));
+        assertEquals(TABLES.length, online.size());
+
+        File snapshot = folder.newFile("schema.jsonl");
+        CodeGeneratorConfig.GEN_SNAPSHOT_PATH = snapshot.getPath();
+        assertEquals(snapshot, manager.exportSchemaSnapshot(TABLES));
+
+        // 离线读取时不允许访问数据库
+        CodeGeneratorConfig.GEN_OFFLINE = true;
+        CodeGeneratorConfig.JDBC_URL = null;
+        SchemaModel offline = manager.introspectSchema(Arrays.asList(TABLES));
+        assertEquals(TABLES.length, offline.size());
+        for (String tableName : TABLES) {
+            TableMeta table = offline.getTable(tableName);
+            assertNotNull(tableName, table);
+            assertEquals(tableName, GenerationManifest.tableFingerprint(online.getTable(tableName)),
+                    GenerationManifest.tableFingerprint(table));
+        }
+    }
+
+    @Test
+    public void snapshotOnlyContainsRequestedTables() throws Exception {
+        File snapshot = folder.newFile("schema.jsonl");
+        CodeGeneratorConfig.GEN_SNAPSHOT_PATH = snapshot.getPath();
+        new CodeGeneratorManager().exportSchemaSnapshot(TABLES);
+
+        CodeGeneratorConfig.GEN_OFFLINE = true;
+        CodeGeneratorConfig.JDBC_URL = null;
+        assertFalse(new CodeGeneratorManager().introspectSchema(Arrays.asList("sys_other")).contains("sys_other"));
+    }
+
+    private static void execute(String... sqls) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(H2_URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            for (String sql : sqls) {
+                statement.execute(sql);
+            }
+        }
+    }
+}
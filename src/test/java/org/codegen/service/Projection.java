@@ -0,0 +1,110 @@
+package org.codegen.service;
+
+import org.codegen.schema.ColumnMeta;
+import org.codegen.schema.TableMeta;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 表的字段投影: 只读取部分字段的查询和对应的 DTO, 供插件和模板使用
+ */
+public class Projection {
+
+    // 投影名, 用于拼接方法名, eg: Summary
+    private final String name;
+    // DTO 类名, eg: SysLogSummary
+    private final String className;
+    // 投影包含的字段, 按配置顺序排列
+    private final List<ColumnProperty> properties;
+
+    private Projection(String name, String className, List<ColumnProperty> properties) {
+        this.name = name;
+        this.className = className;
+        this.properties = properties;
+    }
+
+    /**
+     * 按配置解析表的投影
+     * @param table 表结构, 未读取时不生成投影
+     * @param modelName 实体类名
+     * @param projections 投影名 ==> 字段名, 为 null 时不生成投影
+     * @return
+     */
+    public static List<Projection> of(TableMeta table, String modelName, Map<String, List<String>> projections) {
+        List<Projection> result = new ArrayList<>();
+        if (table == null || projections == null) {
+            return result;
+        }
+        for (Map.Entry<String, List<String>> entry : projections.entrySet()) {
+            List<ColumnProperty> properties = new ArrayList<>();
+            for (String columnName : entry.getValue()) {
+                ColumnMeta column = table.getColumn(columnName);
+                if (column == null) {
+                    throw new RuntimeException(table.getName() + " 的投影 " + entry.getKey() + " 中的字段 " + columnName + " 不存在!");
+                }
+                properties.add(ColumnProperty.of(column));
+            }
+            result.add(new Projection(entry.getKey(), modelName + entry.getKey(), properties));
+        }
+        return result;
+    }
+
+    /**
+     * 传给 ProjectionPlugin 的表配置属性, eg: Summary:id,title;Brief:id,name
+     * @param projections 投影
+     * @return
+     */
+    public static String toPluginProperty(List<Projection> projections) {
+        StringBuilder sb = new StringBuilder();
+        for (Projection projection : projections) {
+            if (sb.length() > 0) {
+                sb.append(';');
+            }
+            sb.append(projection.name).append(':').append(projection.getColumnNames());
+        }
+        return sb.toString();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public List<ColumnProperty> getProperties() {
+        return properties;
+    }
+
+    /**
+     * 逗号分隔的字段名, eg: id,title
+     */
+    public String getColumnNames() {
+        StringBuilder sb = new StringBuilder();
+        for (ColumnProperty property : properties) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(property.getColumnName());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * DTO 属性类型需要的 import
+     */
+    public Set<String> getImports() {
+        Set<String> imports = new TreeSet<>();
+        for (ColumnProperty property : properties) {
+            if (property.getImportType() != null) {
+                imports.add(property.getImportType());
+            }
+        }
+        return imports;
+    }
+}
@@ -0,0 +1,86 @@
+package org.codegen.service;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.codegen.service.GeneratedProject.call;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 在内嵌 H2 上运行生成的投影查询: DTO 只有投影的字段, 语句只查询投影的列
+ */
+public class ProjectionTest {
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static GeneratedProject project;
+
+    private static Object service;
+
+    @BeforeClass
+    public static void generate() throws Exception {
+        project = new GeneratedProject("codegen_projection", folder.getRoot());
+        project.execute("CREATE TABLE sys_area (id INT AUTO_INCREMENT PRIMARY KEY, code VARCHAR(32), name VARCHAR(64), remark TEXT)",
+                "INSERT INTO sys_area (id, code, name, remark) VALUES (1, 'c1', 'n1', 'r1'), (2, 'c2', 'n2', 'r2'), (3, 'c3', 'n3', 'r3')");
+        Map<String, List<String>> projections = new LinkedHashMap<>();
+        projections.put("Summary", Arrays.asList("id", "name"));
+        CodeGeneratorConfig.TEMPLATE_PROJECTIONS = Collections.singletonMap("sys_area", projections);
+        project.generate("sys_area");
+        service = project.newService("service.impl.area.SysAreaServiceImpl");
+    }
+
+    @AfterClass
+    public static void close() throws Exception {
+        project.close();
+    }
+
+    @After
+    public void tearDown() {
+        project.clearStatements();
+    }
+
+    @Test
+    public void dtoOnlyHasProjectedFields() throws Exception {
+        List<String> fields = new ArrayList<>();
+        for (Field field : project.loadClass("model.area.SysAreaSummary").getDeclaredFields()) {
+            fields.add(field.getName());
+        }
+        Collections.sort(fields);
+        assertEquals(Arrays.asList("id", "name"), fields);
+    }
+
+    @Test
+    public void selectsOnlyProjectedColumns() throws Exception {
+        assertEquals(Arrays.asList("n1", "n2", "n3"), names((List<?>) call(service, "findSummaryAll")));
+        assertEquals("n2", call(call(service, "findSummaryById", 2), "getName"));
+        assertEquals(Arrays.asList("n1", "n3"), names((List<?>) call(service, "findSummaryByIds", Arrays.asList(1, 3))));
+        assertEquals(3, project.getSqls().size());
+        for (String sql : project.getSqls()) {
+            assertTrue(sql, sql.startsWith("select id, name from sys_area"));
+            assertFalse(sql, sql.contains("code") || sql.contains("remark"));
+        }
+    }
+
+    private static List<Object> names(List<?> summaries) throws Exception {
+        List<Object> names = new ArrayList<>();
+        for (Object summary : summaries) {
+            names.add(call(summary, "getName"));
+        }
+        return names;
+    }
+}
@@ -0,0 +1,87 @@
+package org.codegen.service;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.codegen.service.GeneratedProject.call;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 在内嵌 H2 上运行生成的 Service.saveInChunks: 两种批量策略按 batchSize 切分, 每批返回写入的行数, 在事务中随事务回滚
+ */
+public class SaveInChunksTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private GeneratedProject project;
+
+    @After
+    public void tearDown() throws Exception {
+        project.close();
+    }
+
+    @Test
+    public void multiRowInsertsOneStatementPerChunk() throws Exception {
+        Object service = generate("multi_row");
+        assertEquals(Arrays.asList(3, 3, 1), call(service, "saveInChunks", areas(7)));
+        assertEquals(Collections.nCopies(3, "insertList"), project.getStatements());
+        assertEquals(7L, count());
+    }
+
+    @Test
+    public void batchExecutorFlushesPerChunk() throws Exception {
+        Object service = generate("batch");
+        assertEquals(Arrays.asList(3, 3, 1), call(service, "saveInChunks", areas(7)));
+        // IDENTITY 回填主键的 selectKey 不计入
+        assertEquals(7, Collections.frequency(project.getStatements(), "insert"));
+        assertEquals(7L, count());
+    }
+
+    @Test
+    public void batchExecutorJoinsTransaction() throws Exception {
+        Object service = generate("batch");
+        project.inRollbackTransaction(() -> {
+            try {
+                call(service, "saveInChunks", areas(4));
+                // 事务外的连接看不到未提交的行
+                assertEquals(4, ((List<?>) call(service, "findAll")).size());
+                assertEquals(0L, count());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertEquals(0L, count());
+    }
+
+    private Object generate(String batchStrategy) throws Exception {
+        project = new GeneratedProject("codegen_chunks", folder.getRoot());
+        project.execute("CREATE TABLE sys_area (id INT AUTO_INCREMENT PRIMARY KEY, code VARCHAR(32), name VARCHAR(64))");
+        CodeGeneratorConfig.TEMPLATE_BATCH_SIZE = 3;
+        CodeGeneratorConfig.TEMPLATE_BATCH_STRATEGY = batchStrategy;
+        project.generate("sys_area");
+        return project.newService("service.impl.area.SysAreaServiceImpl");
+    }
+
+    private List<Object> areas(int size) throws Exception {
+        List<Object> areas = new ArrayList<>();
+        for (int i = 1; i <= size; i++) {
+            Object area = project.loadClass("model.area.SysArea").newInstance();
+            call(area, "setCode", "c" + i);
+            call(area, "setName", "n" + i);
+            areas.add(area);
+        }
+        return areas;
+    }
+
+    private long count() throws Exception {
+        return ((Number) project.query("SELECT COUNT(*) AS total FROM sys_area").get(0).get("TOTAL")).longValue();
+    }
+}
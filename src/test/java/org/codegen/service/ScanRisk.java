@@ -0,0 +1,124 @@
+package org.codegen.service;
+
+import org.codegen.schema.ColumnMeta;
+import org.codegen.schema.IndexMeta;
+import org.codegen.schema.TableMeta;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 生成的 Service 方法中可能全表扫描的查询, 按表结构中的主键和索引在生成时分析, 写入生成报告
+ */
+public class ScanRisk {
+
+    // 方法, eg: findAll()
+    private final String method;
+    // 原因
+    private final String reason;
+
+    ScanRisk(String method, String reason) {
+        this.method = method;
+        this.reason = reason;
+    }
+
+    /**
+     * 分析表生成的 Service 和 Controller 方法
+     * @param task 生成任务, 未读取表结构时不分析
+     * @return
+     */
+    public static List<ScanRisk> analyze(TableTask task) {
+        TableMeta table = task.getTable();
+        if (table == null) {
+            return Collections.emptyList();
+        }
+        String tableName = task.getTableName().toLowerCase();
+        List<ScanRisk> risks = new ArrayList<>();
+        if (table.getPrimaryKeys().isEmpty() && table.getIndexes().isEmpty()) {
+            risks.add(new ScanRisk("*", "表没有主键和索引, 所有带条件的查询都会全表扫描"));
+        }
+        risks.add(new ScanRisk("findAll()", "没有查询条件, 读取全表"));
+
+        List<String> unindexed = new ArrayList<>();
+        for (ColumnMeta column : table.getColumns()) {
+            if (!isLeadingColumn(table, column.getName())) {
+                unindexed.add(column.getName());
+            }
+        }
+        if (!unindexed.isEmpty()) {
+            risks.add(new ScanRisk("findBy(fieldName, value), findByCondition(condition)",
+                    "字段 " + String.join(", ", unindexed) + " 不是主键或任何索引的首列, 以这些字段为条件会全表扫描"));
+        }
+
+        if (!CodeGeneratorConfig.TEMPLATE_KEYSET_PAGINATION || !hasIntegerPrimaryKey(table)) {
+            risks.add(new ScanRisk("Controller list(page, size)", "按页码分页使用 LIMIT offset, 页码越大扫描并丢弃的行越多"));
+            String countMode = CodeGeneratorConfig.TEMPLATE_PAGE_COUNT_MODES.get(tableName);
+            if (countMode == null || "exact".equals(countMode)) {
+                risks.add(new ScanRisk("Controller list(page, size)", "每次请求执行 COUNT(*), 扫描整个索引"));
+            }
+        }
+        if (CodeGeneratorConfig.TEMPLATE_STREAM_EXPORT) {
+            risks.add(new ScanRisk("streamAll(consumer), Controller export()", "按游标读取全表"));
+        }
+        Map<String, List<String>> projections = CodeGeneratorConfig.TEMPLATE_PROJECTIONS.get(tableName);
+        if (projections != null) {
+            for (String name : projections.keySet()) {
+                risks.add(new ScanRisk("find" + name + "All()", "没有查询条件, 读取全表的投影字段"));
+            }
+        }
+        return risks;
+    }
+
+    /**
+     * 字段是否为主键或某个索引的首列, 以该字段为条件的查询可以使用索引
+     */
+    private static boolean isLeadingColumn(TableMeta table, String columnName) {
+        if (!table.getPrimaryKeys().isEmpty() && table.getPrimaryKeys().get(0).equalsIgnoreCase(columnName)) {
+            return true;
+        }
+        for (IndexMeta index : table.getIndexes()) {
+            if (!index.getColumns().isEmpty() && index.getColumns().get(0).equalsIgnoreCase(columnName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 是否为单列整数主键, 与 Controller 使用键集分页的条件一致
+     */
+    private static boolean hasIntegerPrimaryKey(TableMeta table) {
+        if (table.getPrimaryKeys().size() != 1) {
+            return false;
+        }
+        ColumnMeta pk = table.getColumn(table.getPrimaryKeys().get(0));
+        if (pk == null) {
+            return false;
+        }
+        switch (pk.getDataType()) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return method + ": " + reason;
+    }
+}
@@ -0,0 +1,179 @@
+package org.codegen.service;
+
+import org.codegen.schema.SchemaIntrospector;
+import org.codegen.schema.SchemaModel;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 监听表结构变化, 只重新生成结构有变化的表
+ * 按 GEN_WATCH_INTERVAL 轮询字段定义摘要, 第一次轮询只记录当前结构; 新增的表和结构有变化的表按 genCodeByPattern 的规则生成
+ * 数据库连接在轮询之间保持, 出错时下次轮询重新建立; 模板由共享的 Freemarker 配置缓存
+ * eg:
+ * 	try (SchemaWatcher watcher = new SchemaWatcher("sys_%")) {
+ * 		watcher.watch();
+ * 	}
+ */
+public class SchemaWatcher extends CodeGeneratorManager implements Closeable {
+
+    // 表名模式的 SQL LIKE 部分
+    private final String likePattern;
+    // 表名正则过滤, 为 null 时不过滤
+    private final Pattern filter;
+
+    private Connection connection;
+    // 表名 ==> 上次轮询的结构摘要, 第一次轮询前为 null
+    private Map<String, String> checksums;
+
+    private volatile boolean running;
+
+    /**
+     * @param pattern 表名模式, 同 genCodeByPattern, 为 null 时监听所有表
+     */
+    public SchemaWatcher(String pattern) {
+        if (GEN_OFFLINE) {
+            throw new RuntimeException("离线模式不支持监听表结构变化!");
+        }
+        this.likePattern = getLikePattern(pattern);
+        this.filter = getPatternFilter(pattern);
+    }
+
+    /**
+     * 按 gen.watch.interval 轮询, 直到调用 stop 或线程被中断
+     */
+    public void watch() {
+        watch(GEN_WATCH_INTERVAL);
+    }
+
+    /**
+     * 轮询表结构变化, 直到调用 stop 或线程被中断, 单次轮询失败不影响后续轮询
+     * @param intervalMillis 轮询间隔(ms)
+     */
+    public void watch(long intervalMillis) {
+        running = true;
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                poll();
+            } catch (RuntimeException e) {
+                logger.error("监听表结构变化异常!", e);
+            }
+            try {
+                Thread.sleep(intervalMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        running = false;
+    }
+
+    /**
+     * 停止 watch, 当前轮询完成后返回
+     */
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * 检查一次表结构, 重新生成新增的表和结构有变化的表
+     * 生成失败的表保留上次的摘要, 下次轮询时重试
+     * @return 本次生成结果, 第一次轮询或无变化时为 null
+     */
+    public synchronized GenerateReport poll() {
+        Map<String, String> current;
+        try {
+            current = new SchemaIntrospector(getConnection()).checksums(likePattern, filter);
+        } catch (Exception e) {
+            closeConnection();
+            throw new RuntimeException("读取表结构摘要异常!", e);
+        }
+        if (checksums == null) {
+            checksums = current;
+            logger.info("开始监听表结构变化, 共 {} 张表", current.size());
+            return null;
+        }
+
+        List<TableTask> tasks = new ArrayList<>();
+        for (Map.Entry<String, String> entry : current.entrySet()) {
+            if (!entry.getValue().equals(checksums.get(entry.getKey()))) {
+                tasks.add(newPatternTask(entry.getKey()));
+            }
+        }
+        for (String tableName : checksums.keySet()) {
+            if (!current.containsKey(tableName)) {
+                logger.info("表 {} 已删除, 已生成的代码不会删除", tableName);
+            }
+        }
+        if (tasks.isEmpty()) {
+            checksums = current;
+            return null;
+        }
+
+        List<String> tableNames = new ArrayList<>();
+        for (TableTask task : tasks) {
+            tableNames.add(task.getTableName());
+        }
+        logger.info("表结构有变化, 重新生成: {}", tableNames);
+        GenerateReport report = genCodeByTasks(tasks, new GenerateReport());
+
+        Map<String, String> previous = checksums;
+        checksums = new HashMap<>(current);
+        for (GenerateReport.TableResult failure : report.getFailures()) {
+            if (previous.containsKey(failure.getTableName())) {
+                checksums.put(failure.getTableName(), previous.get(failure.getTableName()));
+            } else {
+                checksums.remove(failure.getTableName());
+            }
+        }
+        return report;
+    }
+
+    /**
+     * 使用保持的连接读取表结构
+     */
+    @Override
+    protected SchemaModel introspectSchema(Collection<String> tableNames) {
+        try {
+            return new SchemaIntrospector(getConnection()).introspect(tableNames);
+        } catch (Exception e) {
+            closeConnection();
+            throw new RuntimeException("读取表结构异常!", e);
+        }
+    }
+
+    /**
+     * 停止轮询并关闭数据库连接
+     */
+    @Override
+    public synchronized void close() {
+        stop();
+        closeConnection();
+    }
+
+    private Connection getConnection() throws Exception {
+        if (connection == null) {
+            connection = openConnection();
+        }
+        return connection;
+    }
+
+    private void closeConnection() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.warn("关闭数据库连接异常", e);
+        } finally {
+            connection = null;
+        }
+    }
+}
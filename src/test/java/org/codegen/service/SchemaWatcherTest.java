@@ -0,0 +1,128 @@
+package org.codegen.service;
+
+import org.codegen.output.MemoryOutputSink;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 在内嵌 H2 (MySQL 模式) 上执行 DDL 后轮询一次, 只重新生成结构有变化的表
+ */
+public class SchemaWatcherTest {
+
+    private static final String H2_URL = "jdbc:h2:mem:codegen_watcher;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private String reportPath;
+    private MemoryOutputSink sink;
+    private SchemaWatcher watcher;
+
+    @BeforeClass
+    public static void loadConfig() {
+        // 触发 CodeGeneratorManager 加载配置, 之后再修改运行参数
+        new CodeGeneratorManager();
+    }
+
+    @Before
+    public void setUp() throws SQLException {
+        reportPath = CodeGeneratorConfig.GEN_REPORT_PATH;
+        CodeGeneratorConfig.GEN_REPORT_PATH = null;
+        execute("DROP ALL OBJECTS",
+                "CREATE TABLE sys_area (id INT AUTO_INCREMENT PRIMARY KEY, code VARCHAR(32), name VARCHAR(64))",
+                "CREATE TABLE sys_log (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_name VARCHAR(32), created_at TIMESTAMP)",
+                "CREATE TABLE gen_other_demo (id INT PRIMARY KEY)");
+        sink = new MemoryOutputSink(new File(CodeGeneratorConfig.PROJECT_PATH));
+        watcher = new SchemaWatcher("sys_%") {
+            @Override
+            protected Connection openConnection() throws SQLException {
+                return DriverManager.getConnection(H2_URL, "sa", "");
+            }
+        };
+        watcher.setOutputSink(sink);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        watcher.close();
+        CodeGeneratorConfig.GEN_REPORT_PATH = reportPath;
+        execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    public void regeneratesOnlyChangedTable() throws SQLException {
+        // 第一次轮询只记录当前结构
+        assertNull(watcher.poll());
+        assertNull(watcher.poll());
+        assertTrue(sink.getFiles().isEmpty());
+
+        execute("ALTER TABLE sys_log ADD COLUMN level INT", "ALTER TABLE gen_other_demo ADD COLUMN name VARCHAR(20)");
+        GenerateReport report = watcher.poll();
+        assertEquals(Collections.singletonList("sys_log"), tableNames(report));
+        assertTrue(report.isAllSuccess());
+        assertTrue(hasFile("SysLog.java"));
+        assertTrue(sink.getContent(path("SysLog.java")).contains("private Integer level;"));
+        assertFalse(hasFile("SysArea"));
+        assertFalse(hasFile("OtherDemo"));
+
+        // 已生成的变化不再重复生成
+        assertNull(watcher.poll());
+    }
+
+    @Test
+    public void generatesNewTable() throws SQLException {
+        assertNull(watcher.poll());
+
+        execute("CREATE TABLE sys_user (id INT AUTO_INCREMENT PRIMARY KEY, user_name VARCHAR(32))");
+        GenerateReport report = watcher.poll();
+        assertEquals(Collections.singletonList("sys_user"), tableNames(report));
+        assertTrue(hasFile("SysUser.java"));
+        assertFalse(hasFile("SysLog"));
+    }
+
+    private static List<String> tableNames(GenerateReport report) {
+        List<String> tableNames = new ArrayList<>();
+        for (GenerateReport.TableResult result : report.getResults()) {
+            tableNames.add(result.getTableName());
+        }
+        return tableNames;
+    }
+
+    private boolean hasFile(String name) {
+        return path(name) != null;
+    }
+
+    /**
+     * 文件名包含 name 的生成文件路径
+     */
+    private String path(String name) {
+        for (String path : sink.getFiles().keySet()) {
+            if (path.substring(path.lastIndexOf('/') + 1).contains(name)) {
+                return path;
+            }
+        }
+        return null;
+    }
+
+    private static void execute(String... sqls) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(H2_URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            for (String sql : sqls) {
+                statement.execute(sql);
+            }
+        }
+    }
+}
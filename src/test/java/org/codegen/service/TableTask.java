@@ -0,0 +1,43 @@
+package org.codegen.service;
+
+import org.codegen.schema.TableMeta;
+
+/**
+ * 单张表的生成任务
+ */
+public class TableTask {
+    // 表名
+    private final String tableName;
+    // 自定义实体类名, 为null则默认将表名下划线转成大驼峰形式
+    private final String modelName;
+    // 区分字段, 规定如表 gen_test_demo, 则 test 即为区分字段
+    private final String sign;
+    // 表结构, 读取数据库后设置
+    private TableMeta table;
+
+    public TableTask(String tableName, String modelName, String sign) {
+        this.tableName = tableName;
+        this.modelName = modelName;
+        this.sign = sign;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    public String getSign() {
+        return sign;
+    }
+
+    public TableMeta getTable() {
+        return table;
+    }
+
+    public void setTable(TableMeta table) {
+        this.table = table;
+    }
+}
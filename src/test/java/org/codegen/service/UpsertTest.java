@@ -0,0 +1,99 @@
+package org.codegen.service;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.codegen.service.GeneratedProject.call;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 在内嵌 H2 上运行生成的 upsert (databaseId 为 h2 的 MERGE 语句): 主键不存在时插入, 存在时更新全部字段, upsertAll 按 upsertChunkSize 分批
+ */
+public class UpsertTest {
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static GeneratedProject project;
+
+    private Object service;
+
+    @BeforeClass
+    public static void generate() throws Exception {
+        project = new GeneratedProject("codegen_upsert", folder.getRoot());
+        project.execute("CREATE TABLE sys_area (id INT AUTO_INCREMENT PRIMARY KEY, code VARCHAR(32), name VARCHAR(64), remark VARCHAR(255))");
+        CodeGeneratorConfig.TEMPLATE_UPSERT = true;
+        CodeGeneratorConfig.TEMPLATE_UPSERT_CHUNK_SIZE = 2;
+        project.generate("sys_area");
+    }
+
+    @AfterClass
+    public static void close() throws Exception {
+        project.close();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        project.execute("DELETE FROM sys_area");
+        service = project.newService("service.impl.area.SysAreaServiceImpl");
+    }
+
+    @After
+    public void tearDown() {
+        project.clearStatements();
+    }
+
+    @Test
+    public void insertsThenUpdates() throws Exception {
+        call(service, "upsert", area(1, "n1", "r1"));
+        assertEquals(Arrays.asList("c1", "n1", "r1"), row(1));
+
+        // 已存在时更新全部字段, null 值也写入
+        call(service, "upsert", area(1, "changed", null));
+        assertEquals(1, project.query("SELECT id FROM sys_area").size());
+        assertEquals("changed", row(1).get(1));
+        assertNull(row(1).get(2));
+        assertEquals(Collections.nCopies(2, "upsert"), project.getStatements());
+    }
+
+    @Test
+    public void upsertsAllInChunks() throws Exception {
+        project.execute("INSERT INTO sys_area (id, code, name, remark) VALUES (2, 'c2', 'n2', 'r2')");
+        call(service, "upsertAll", Arrays.asList(area(1, "n1", "r1"), area(2, "changed", "r2"), area(3, "n3", "r3")));
+        assertEquals(Collections.nCopies(2, "upsertList"), project.getStatements());
+        assertEquals(3, project.query("SELECT id FROM sys_area").size());
+        assertEquals("changed", row(2).get(1));
+        assertEquals(Arrays.asList("c3", "n3", "r3"), row(3));
+    }
+
+    @Test
+    public void emptyListRunsNoStatement() throws Exception {
+        assertEquals(0, call(service, "upsertAll", Collections.emptyList()));
+        assertEquals(Collections.emptyList(), project.getStatements());
+    }
+
+    private static Object area(int id, String name, String remark) throws Exception {
+        Object area = project.loadClass("model.area.SysArea").newInstance();
+        call(area, "setId", id);
+        call(area, "setCode", "c" + id);
+        call(area, "setName", name);
+        call(area, "setRemark", remark);
+        return area;
+    }
+
+    private static List<Object> row(int id) throws Exception {
+        Map<String, Object> row = project.query("SELECT code, name, remark FROM sys_area WHERE id = " + id).get(0);
+        return Arrays.asList(row.get("CODE"), row.get("NAME"), row.get("REMARK"));
+    }
+}
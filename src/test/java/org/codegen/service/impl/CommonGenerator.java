@@ -1,13 +1,11 @@
 package org.codegen.service.impl;
 
-import freemarker.template.Configuration;
 import freemarker.template.TemplateException;
 import org.codegen.service.CodeGeneratorManager;
+import org.codegen.service.GenerationSession;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -15,26 +13,209 @@ import java.util.Map;
  */
 public class CommonGenerator extends CodeGeneratorManager {
 
+    // 生成会话
+    private final GenerationSession session;
+
+    public CommonGenerator() {
+        this(newSession(null));
+    }
+
+    public CommonGenerator(GenerationSession session) {
+        this.session = session;
+    }
+
+    /**
+     * 生成所有基础辅助类, 已存在的文件只在模板或模板选项变化后覆盖
+     * @return
+     */
+    public CommonGenerator genCommonCode() {
+        return genCommonMapper()
+                .genKeysetMapper()
+                .genStreamMapper()
+                .genIdListMapper()
+                .genEstimateCountMapper()
+                .genDirtyTracking()
+                .genUpsertMapper()
+                .genCommonService()
+                .genCommonAbstractService()
+                .genEntityCache()
+                .genBatchLoader()
+                .genDbExecutorConfig()
+                .genJsonSupport()
+                .genStatementMetrics();
+    }
+
     /**
      * 生成dao中通用的mapper
      */
     public CommonGenerator genCommonMapper() {
         try {
-            String[] namearr = MAPPER_INTERFACE_REFERENCE.split("\\.");
-            String mapperName = namearr[namearr.length-1];
-            File mymapperfile = new File(PROJECT_PATH + JAVA_PATH + PACKAGE_PATH_DAO + mapperName +".java");
-            if (!mymapperfile.getParentFile().exists()) {
-                mymapperfile.getParentFile().mkdirs();
-            }
-            if (!mymapperfile.exists()) {//生成文件
-                Map<String, Object> data = new HashMap<String, Object>();
-                data.put("MapperName", mapperName);
-                save(data, "basemapper.ftl", mymapperfile);
+            String mapperName = session.getMapperName();
+            File mymapperfile = session.javaFile(PACKAGE_PATH_DAO, null, mapperName + ".java");
+            Map<String, Object> data = session.newDataModel();
+            data.put("MapperName", mapperName);
+            if (save(data, "basemapper.ftl", mymapperfile)) {
                 logger.info(MAPPER_INTERFACE_REFERENCE + ".java 生成成功");
             }
         } catch (Exception e) {
             e.printStackTrace();
-            throw new RuntimeException(MAPPER_INTERFACE_REFERENCE + ".java 生成失败");
+            throw new RuntimeException(MAPPER_INTERFACE_REFERENCE + ".java 生成失败", e);
+        }
+        return this;
+    }
+
+    /**
+     * 开启键集分页时, 生成通用 mapper 继承的 KeysetMapper 及其 SQL 提供者
+     * @return
+     */
+    public CommonGenerator genKeysetMapper() {
+        if (!TEMPLATE_KEYSET_PAGINATION) {
+            return this;
+        }
+        try {
+            File keysetMapperFile = session.javaFile(PACKAGE_PATH_DAO, null, "KeysetMapper.java");
+            Map<String, Object> data = session.newDataModel();
+            data.put("MapperName", session.getMapperName());
+            if (save(data, "basekeysetmapper.ftl", keysetMapperFile)) {
+                logger.info(BASE_PACKAGE + ".dao.KeysetMapper.java 生成成功");
+            }
+            File keysetProviderFile = session.javaFile(PACKAGE_PATH_DAO, null, "KeysetProvider.java");
+            if (save(session.newDataModel(), "basekeysetprovider.ftl", keysetProviderFile)) {
+                logger.info(BASE_PACKAGE + ".dao.KeysetProvider.java 生成成功");
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new RuntimeException("KeysetMapper.java 生成失败", e);
+        }
+        return this;
+    }
+
+    /**
+     * 开启流式导出时, 生成通用 mapper 继承的 StreamMapper 及其 SQL 提供者
+     * @return
+     */
+    public CommonGenerator genStreamMapper() {
+        if (!TEMPLATE_STREAM_EXPORT) {
+            return this;
+        }
+        try {
+            File streamMapperFile = session.javaFile(PACKAGE_PATH_DAO, null, "StreamMapper.java");
+            Map<String, Object> data = session.newDataModel();
+            data.put("MapperName", session.getMapperName());
+            if (save(data, "basestreammapper.ftl", streamMapperFile)) {
+                logger.info(BASE_PACKAGE + ".dao.StreamMapper.java 生成成功");
+            }
+            File streamProviderFile = session.javaFile(PACKAGE_PATH_DAO, null, "StreamProvider.java");
+            if (save(session.newDataModel(), "basestreamprovider.ftl", streamProviderFile)) {
+                logger.info(BASE_PACKAGE + ".dao.StreamProvider.java 生成成功");
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new RuntimeException("StreamMapper.java 生成失败", e);
+        }
+        return this;
+    }
+
+    /**
+     * 开启主键集合分批操作时, 生成通用 mapper 继承的 IdListMapper 及其 SQL 提供者
+     * @return
+     */
+    public CommonGenerator genIdListMapper() {
+        if (TEMPLATE_IDS_CHUNK_SIZE <= 0) {
+            return this;
+        }
+        try {
+            File idListMapperFile = session.javaFile(PACKAGE_PATH_DAO, null, "IdListMapper.java");
+            Map<String, Object> data = session.newDataModel();
+            data.put("MapperName", session.getMapperName());
+            if (save(data, "baseidlistmapper.ftl", idListMapperFile)) {
+                logger.info(BASE_PACKAGE + ".dao.IdListMapper.java 生成成功");
+            }
+            File idListProviderFile = session.javaFile(PACKAGE_PATH_DAO, null, "IdListProvider.java");
+            if (save(session.newDataModel(), "baseidlistprovider.ftl", idListProviderFile)) {
+                logger.info(BASE_PACKAGE + ".dao.IdListProvider.java 生成成功");
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new RuntimeException("IdListMapper.java 生成失败", e);
+        }
+        return this;
+    }
+
+    /**
+     * 有表的分页总行数使用 estimate 方式时, 生成通用 mapper 继承的 EstimateCountMapper 及其 SQL 提供者
+     * @return
+     */
+    public CommonGenerator genEstimateCountMapper() {
+        if (!TEMPLATE_PAGE_COUNT_MODES.containsValue("estimate")) {
+            return this;
+        }
+        try {
+            File estimateCountMapperFile = session.javaFile(PACKAGE_PATH_DAO, null, "EstimateCountMapper.java");
+            Map<String, Object> data = session.newDataModel();
+            data.put("MapperName", session.getMapperName());
+            if (save(data, "baseestimatecountmapper.ftl", estimateCountMapperFile)) {
+                logger.info(BASE_PACKAGE + ".dao.EstimateCountMapper.java 生成成功");
+            }
+            File estimateCountProviderFile = session.javaFile(PACKAGE_PATH_DAO, null, "EstimateCountProvider.java");
+            if (save(session.newDataModel(), "baseestimatecountprovider.ftl", estimateCountProviderFile)) {
+                logger.info(BASE_PACKAGE + ".dao.EstimateCountProvider.java 生成成功");
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new RuntimeException("EstimateCountMapper.java 生成失败", e);
+        }
+        return this;
+    }
+
+    /**
+     * 开启插入或更新时, 生成通用 mapper 继承的 UpsertMapper
+     * @return
+     */
+    public CommonGenerator genUpsertMapper() {
+        if (!TEMPLATE_UPSERT) {
+            return this;
+        }
+        try {
+            File upsertMapperFile = session.javaFile(PACKAGE_PATH_DAO, null, "UpsertMapper.java");
+            Map<String, Object> data = session.newDataModel();
+            data.put("MapperName", session.getMapperName());
+            if (save(data, "baseupsertmapper.ftl", upsertMapperFile)) {
+                logger.info(BASE_PACKAGE + ".dao.UpsertMapper.java 生成成功");
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new RuntimeException("UpsertMapper.java 生成失败", e);
+        }
+        return this;
+    }
+
+    /**
+     * 开启修改字段跟踪时, 生成实体实现的 DirtyTracking, 通用 mapper 继承的 DirtyUpdateMapper 和清除查询结果标记的插件
+     * @return
+     */
+    public CommonGenerator genDirtyTracking() {
+        if (!TEMPLATE_DIRTY_TRACKING) {
+            return this;
+        }
+        try {
+            File trackingFile = session.javaFile(PACKAGE_PATH_DAO, null, "DirtyTracking.java");
+            if (save(session.newDataModel(), "basedirtytracking.ftl", trackingFile)) {
+                logger.info(BASE_PACKAGE + ".dao.DirtyTracking.java 生成成功");
+            }
+            File updateMapperFile = session.javaFile(PACKAGE_PATH_DAO, null, "DirtyUpdateMapper.java");
+            Map<String, Object> data = session.newDataModel();
+            data.put("MapperName", session.getMapperName());
+            if (save(data, "basedirtyupdatemapper.ftl", updateMapperFile)) {
+                logger.info(BASE_PACKAGE + ".dao.DirtyUpdateMapper.java 生成成功");
+            }
+            File interceptorFile = session.javaFile(PACKAGE_PATH_DAO, null, "DirtyTrackingInterceptor.java");
+            if (save(session.newDataModel(), "basedirtytrackinginterceptor.ftl", interceptorFile)) {
+                logger.info(BASE_PACKAGE + ".dao.DirtyTrackingInterceptor.java 生成成功");
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new RuntimeException("DirtyTracking.java 生成失败", e);
         }
         return this;
     }
@@ -44,21 +225,16 @@ public class CommonGenerator extends CodeGeneratorManager {
      */
     public CommonGenerator genCommonService() {
         try {
-            String[] temparr2 = SERVICE_INTERFACE_REFERENCE.split("\\.");
-            String serviceName = temparr2[temparr2.length-1];
-            File servicefile = new File(PROJECT_PATH + JAVA_PATH + PACKAGE_PATH_SERVICE + serviceName + ".java");
-            if (!servicefile.getParentFile().exists()) {
-                servicefile.getParentFile().mkdirs();
-            }
-            if (!servicefile.exists()) {//生成文件
-                Map<String, Object> data = new HashMap<String, Object>();
-                data.put("ServiceName", serviceName);
-                save(data, "baseservice.ftl", servicefile);
+            String serviceName = session.getServiceName();
+            File servicefile = session.javaFile(PACKAGE_PATH_SERVICE, null, serviceName + ".java");
+            Map<String, Object> data = session.newDataModel();
+            data.put("ServiceName", serviceName);
+            if (save(data, "baseservice.ftl", servicefile)) {
                 logger.info(SERVICE_INTERFACE_REFERENCE + ".java 生成成功");
             }
         } catch (Exception e) {
             e.printStackTrace();
-            throw new RuntimeException(SERVICE_INTERFACE_REFERENCE + ".java 生成失败");
+            throw new RuntimeException(SERVICE_INTERFACE_REFERENCE + ".java 生成失败", e);
         }
         return this;
     }
@@ -69,40 +245,140 @@ public class CommonGenerator extends CodeGeneratorManager {
      */
     public CommonGenerator genCommonAbstractService() {
         try {
-            String[] temparr = MAPPER_INTERFACE_REFERENCE.split("\\.");
-            String mapperName = temparr[temparr.length-1];
-            String[] temparr2 = ABSTRACT_SERVICE_CLASS_REFERENCE.split("\\.");
-            String absServiceName = temparr2[temparr2.length-1];
-            File abservicefile = new File(PROJECT_PATH + JAVA_PATH + PACKAGE_PATH_SERVICE + absServiceName + ".java");
-            if (!abservicefile.getParentFile().exists()) {
-                abservicefile.getParentFile().mkdirs();
-            }
-            if (!abservicefile.exists()) {
-                Map<String, Object> data = new HashMap<String, Object>();
-                data.put("MAPPER_INTERFACE_REFERENCE", MAPPER_INTERFACE_REFERENCE);
-                data.put("MapperName", mapperName);
-                data.put("AbstractServiceName", absServiceName);
-                save(data, "baseabstractservice.ftl", abservicefile);
+            String mapperName = session.getMapperName();
+            String absServiceName = session.getAbstractServiceName();
+            File abservicefile = session.javaFile(PACKAGE_PATH_SERVICE, null, absServiceName + ".java");
+            Map<String, Object> data = session.newDataModel();
+            data.put("MAPPER_INTERFACE_REFERENCE", MAPPER_INTERFACE_REFERENCE);
+            data.put("MapperName", mapperName);
+            data.put("AbstractServiceName", absServiceName);
+            if (save(data, "baseabstractservice.ftl", abservicefile)) {
                 logger.info(ABSTRACT_SERVICE_CLASS_REFERENCE + ".java 生成成功");
             }
         } catch (Exception e) {
             e.printStackTrace();
-            throw new RuntimeException(ABSTRACT_SERVICE_CLASS_REFERENCE + ".java 生成失败");
+            throw new RuntimeException(ABSTRACT_SERVICE_CLASS_REFERENCE + ".java 生成失败", e);
+        }
+        return this;
+    }
+
+    /**
+     * 有表开启实体缓存时, 生成 AbstractService 使用的 EntityCache
+     * @return
+     */
+    public CommonGenerator genEntityCache() {
+        if (TEMPLATE_CACHE_TABLES.isEmpty()) {
+            return this;
+        }
+        try {
+            File entityCacheFile = session.javaFile(PACKAGE_PATH_SERVICE, null, "EntityCache.java");
+            if (save(session.newDataModel(), "baseentitycache.ftl", entityCacheFile)) {
+                logger.info(BASE_PACKAGE + ".service.EntityCache.java 生成成功");
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new RuntimeException("EntityCache.java 生成失败", e);
+        }
+        return this;
+    }
+
+    /**
+     * 有表开启批量加载器时, 生成 AbstractService 使用的 BatchLoader
+     * @return
+     */
+    public CommonGenerator genBatchLoader() {
+        if (TEMPLATE_BATCH_LOADER_TABLES.isEmpty()) {
+            return this;
+        }
+        try {
+            File batchLoaderFile = session.javaFile(PACKAGE_PATH_SERVICE, null, "BatchLoader.java");
+            if (save(session.newDataModel(), "basebatchloader.ftl", batchLoaderFile)) {
+                logger.info(BASE_PACKAGE + ".service.BatchLoader.java 生成成功");
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new RuntimeException("BatchLoader.java 生成失败", e);
+        }
+        return this;
+    }
+
+    /**
+     * 开启异步 Controller 时, 生成异步 Service 方法使用的 dbExecutor 配置
+     * @return
+     */
+    public CommonGenerator genDbExecutorConfig() {
+        if (!TEMPLATE_ASYNC_CONTROLLER) {
+            return this;
+        }
+        try {
+            File dbExecutorConfigFile = session.javaFile(PACKAGE_PATH_SERVICE, null, "DbExecutorConfig.java");
+            if (save(session.newDataModel(), "basedbexecutorconfig.ftl", dbExecutorConfigFile)) {
+                logger.info(BASE_PACKAGE + ".service.DbExecutorConfig.java 生成成功");
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new RuntimeException("DbExecutorConfig.java 生成失败", e);
+        }
+        return this;
+    }
+
+    /**
+     * 开启 JsonWriter 时, 生成各 JsonWriter 共用的 JsonSupport
+     * @return
+     */
+    public CommonGenerator genJsonSupport() {
+        if (!TEMPLATE_JSON_WRITER) {
+            return this;
+        }
+        try {
+            File jsonSupportFile = session.javaFile(packageConvertPath(MODEL_PACKAGE), null, "JsonSupport.java");
+            if (save(session.newDataModel(), "basejsonsupport.ftl", jsonSupportFile)) {
+                logger.info(MODEL_PACKAGE + ".JsonSupport.java 生成成功");
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new RuntimeException("JsonSupport.java 生成失败", e);
+        }
+        return this;
+    }
+
+    /**
+     * 开启语句统计时, 生成 MyBatis 插件 StatementMetricsInterceptor, 其 JMX 接口和将其加入 SqlSessionFactory 的配置
+     * @return
+     */
+    public CommonGenerator genStatementMetrics() {
+        if (!TEMPLATE_STATEMENT_METRICS) {
+            return this;
+        }
+        try {
+            File interceptorFile = session.javaFile(PACKAGE_PATH_DAO, null, "StatementMetricsInterceptor.java");
+            if (save(session.newDataModel(), "basestatementmetrics.ftl", interceptorFile)) {
+                logger.info(BASE_PACKAGE + ".dao.StatementMetricsInterceptor.java 生成成功");
+            }
+            File mxBeanFile = session.javaFile(PACKAGE_PATH_DAO, null, "StatementMetricsMXBean.java");
+            if (save(session.newDataModel(), "basestatementmetricsmxbean.ftl", mxBeanFile)) {
+                logger.info(BASE_PACKAGE + ".dao.StatementMetricsMXBean.java 生成成功");
+            }
+            File configFile = session.javaFile(PACKAGE_PATH_DAO, null, "StatementMetricsConfig.java");
+            if (save(session.newDataModel(), "basestatementmetricsconfig.ftl", configFile)) {
+                logger.info(BASE_PACKAGE + ".dao.StatementMetricsConfig.java 生成成功");
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new RuntimeException("StatementMetricsInterceptor.java 生成失败", e);
         }
         return this;
     }
 
     /**
-     * 生成文件并保存
+     * 生成文件并保存, 文件已存在且模板和模板选项未变化时不覆盖
      * @param data
      * @param templateName
      * @param file
+     * @return 是否写入
      */
-    private void save(Map data, String templateName, File file) throws IOException, TemplateException {
-        data.put("date", DATE);
-        data.put("author", AUTHOR);
-        data.put("basePackage", BASE_PACKAGE);
-        getFreemarkerConfiguration().getTemplate(templateName).process(data, new FileWriter(file));
+    private boolean save(Map<String, Object> data, String templateName, File file) throws IOException, TemplateException {
+        return session.writeBase(templateName, data, file);
     }
 
 }
@@ -1,14 +1,22 @@
 package org.codegen.service.impl;
 
 import com.google.common.base.CaseFormat;
-import freemarker.template.Configuration;
+import org.codegen.schema.ColumnMeta;
+import org.codegen.schema.TableMeta;
 import org.codegen.service.CodeGenerator;
 import org.codegen.service.CodeGeneratorManager;
+import org.codegen.service.ColumnProperty;
+import org.codegen.service.GenerationSession;
+import org.codegen.service.Projection;
+import org.codegen.service.TableTask;
 import org.codegen.util.StringUtils;
+import org.mybatis.generator.api.dom.java.FullyQualifiedJavaType;
+import org.mybatis.generator.internal.util.JavaBeansUtil;
 
 import java.io.File;
-import java.io.FileWriter;
-import java.util.HashMap;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -16,46 +24,126 @@ import java.util.Map;
  * Created by zhh on 2017/09/20.
  */
 public class ControllerGenerator extends CodeGeneratorManager implements CodeGenerator {
+
+    // 生成会话
+    private final GenerationSession session;
+
+    public ControllerGenerator() {
+        this(newSession(null));
+    }
+
+    public ControllerGenerator(GenerationSession session) {
+        this.session = session;
+    }
+
     @Override
     public void genCode(String tableName, String modelName, String sign) {
-        Configuration cfg = getFreemarkerConfiguration();
-        String customMapping = "/";
-        if (!StringUtils.isNullOrEmpty(sign)) {
-            customMapping = "/" + sign + "/";
-        }
-        String modelNameUpperCamel = StringUtils.isNullOrEmpty(modelName) ? tableNameConvertUpperCamel(tableName) : modelName;
+        genCode(new TableTask(tableName, modelName, sign));
+    }
 
-        Map<String, Object> data = getDataMapInit(tableName, modelName, sign, modelNameUpperCamel);
+    /**
+     * 代码生成主要逻辑, 开启增量生成时跳过输入未变化的文件
+     * @param task 生成任务
+     */
+    public void genCode(TableTask task) {
+        String modelName = task.getModelName();
+        String sign = task.getSign();
+        String modelNameUpperCamel = StringUtils.isNullOrEmpty(modelName) ? tableNameConvertUpperCamel(task.getTableName()) : modelName;
+
+        Map<String, Object> data = getDataMapInit(sign, modelNameUpperCamel);
+        String keysetCursorGetter = TEMPLATE_KEYSET_PAGINATION ? getKeysetCursorGetter(task.getTable()) : null;
+        if (keysetCursorGetter != null) {
+            data.put("keysetCursorGetter", keysetCursorGetter);
+        }
+        data.put("projections", Projection.of(task.getTable(), modelNameUpperCamel,
+                TEMPLATE_PROJECTIONS.get(task.getTableName().toLowerCase())));
+        String pageCountMode = TEMPLATE_PAGE_COUNT_MODES.get(task.getTableName().toLowerCase());
+        if (pageCountMode != null && keysetCursorGetter == null) {
+            // 键集分页不统计总行数, 只有按页码分页的列表使用
+            data.put("pageCountMode", pageCountMode);
+        }
         try {
-            File controllerFile = new File(PROJECT_PATH + JAVA_PATH + PACKAGE_PATH_CONTROLLER+ customMapping
-                    + modelNameUpperCamel + "Controller.java");
-            if (!controllerFile.getParentFile().exists()) {
-                controllerFile.getParentFile().mkdirs();
+            if (TEMPLATE_JSON_WRITER) {
+                genJsonWriter(task, data);
+            }
+            File controllerFile = session.javaFile(PACKAGE_PATH_CONTROLLER, sign, modelNameUpperCamel + "Controller.java");
+            if (session.render(task, "controller.ftl", data, controllerFile)) {
+                logger.info(modelNameUpperCamel + "Controller.java 生成成功!");
+            } else {
+                logger.info(modelNameUpperCamel + "Controller.java 无变化, 跳过生成");
             }
-            cfg.getTemplate("controller.ftl").process(data, new FileWriter(controllerFile));
-            logger.info(modelNameUpperCamel + "Controller.java 生成成功!");
         } catch (Exception e) {
             throw new RuntimeException("Controller 生成失败!", e);
         }
     }
 
+    /**
+     * 生成 Model 旁的 JsonWriter, 字段按表结构生成, 需要已读取表结构
+     * @param task 生成任务
+     * @param data 模板数据
+     */
+    private void genJsonWriter(TableTask task, Map<String, Object> data) throws Exception {
+        if (task.getTable() == null) {
+            throw new RuntimeException(task.getTableName() + " 未读取表结构, 不能生成 JsonWriter!");
+        }
+        List<ColumnProperty> properties = new ArrayList<>();
+        boolean base64 = false;
+        for (ColumnMeta column : task.getTable().getColumns()) {
+            ColumnProperty property = ColumnProperty.of(column);
+            properties.add(property);
+            base64 |= "byte[]".equals(property.getJavaType());
+        }
+        Map<String, Object> writerData = session.newDataModel();
+        writerData.putAll(data);
+        writerData.put("jsonProperties", properties);
+        writerData.put("jsonBase64", base64);
+
+        String modelNameUpperCamel = (String) data.get("modelNameUpperCamel");
+        File writerFile = session.javaFile(packageConvertPath(MODEL_PACKAGE), task.getSign(), modelNameUpperCamel + "JsonWriter.java");
+        if (session.render(task, "model-json-writer.ftl", writerData, writerFile)) {
+            logger.info(modelNameUpperCamel + "JsonWriter.java 生成成功!");
+        } else {
+            logger.info(modelNameUpperCamel + "JsonWriter.java 无变化, 跳过生成");
+        }
+    }
+
+    /**
+     * 键集分页 cursor 的取值方法, 需要单列整数主键, 与 MyBatis Generator 生成的属性名一致
+     * @param table 表结构, 未读取时为 null
+     * @return 主键的 getter 名称, 不能使用键集分页时为 null, Controller 仍按页码分页
+     */
+    private String getKeysetCursorGetter(TableMeta table) {
+        if (table == null || table.getPrimaryKeys().size() != 1) {
+            return null;
+        }
+        ColumnMeta pk = table.getColumn(table.getPrimaryKeys().get(0));
+        if (pk == null) {
+            return null;
+        }
+        switch (pk.getDataType()) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return JavaBeansUtil.getGetterMethodName(JavaBeansUtil.getCamelCaseString(pk.getName(), false),
+                        FullyQualifiedJavaType.getIntInstance());
+            default:
+                return null;
+        }
+    }
+
     /**
      * 预置页面所需数据
-     * @param tableName 表名
-     * @param modelName 自定义实体类名, 为null则默认将表名下划线转成大驼峰形式
      * @param sign 区分字段, 规定如表 gen_test_demo, 则 test 即为区分字段
      * @param modelNameUpperCamel 首字为大写的实体类名
      * @return
      */
-    private Map<String, Object> getDataMapInit(String tableName, String modelName, String sign, String modelNameUpperCamel) {
-        Map<String, Object> data = new HashMap<>();
-        data.put("date", DATE);
-        data.put("author", AUTHOR);
+    private Map<String, Object> getDataMapInit(String sign, String modelNameUpperCamel) {
+        Map<String, Object> data = session.newDataModel();
         data.put("sign", sign);
         data.put("baseRequestMapping", StringUtils.toLowerCaseFirstOne(modelNameUpperCamel));
         data.put("modelNameUpperCamel", modelNameUpperCamel);
         data.put("modelNameLowerCamel", CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_CAMEL, modelNameUpperCamel));
-        data.put("basePackage", BASE_PACKAGE);
         return data;
     }
 }
@@ -1,14 +1,44 @@
 package org.codegen.service.impl;
 
+import org.codegen.plugin.DirtyTrackingPlugin;
+import org.codegen.plugin.IndexFinderPlugin;
+import org.codegen.plugin.ProjectionPlugin;
+import org.codegen.plugin.SchemaMapperPlugin;
+import org.codegen.plugin.UniqueFinderPlugin;
+import org.codegen.plugin.UpsertPlugin;
+import org.codegen.schema.SchemaConnectionFactory;
+import org.codegen.schema.SchemaModel;
 import org.codegen.service.CodeGenerator;
+import org.codegen.service.ColumnProperty;
 import org.codegen.service.CodeGeneratorManager;
+import org.codegen.service.GenerationManifest;
+import org.codegen.service.GenerationMetrics;
+import org.codegen.service.GenerationSession;
+import org.codegen.service.IndexFinder;
+import org.codegen.service.Projection;
+import org.codegen.service.TableTask;
 import org.codegen.util.StringUtils;
+import org.mybatis.generator.api.GeneratedFile;
+import org.mybatis.generator.api.GeneratedJavaFile;
+import org.mybatis.generator.api.GeneratedXmlFile;
 import org.mybatis.generator.api.MyBatisGenerator;
 import org.mybatis.generator.config.*;
 import org.mybatis.generator.internal.DefaultShellCallback;
+import org.mybatis.generator.internal.XmlFileMergerJaxp;
+import org.xml.sax.InputSource;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Model & Mapper 代码生成器
@@ -17,59 +47,319 @@ import java.util.List;
 
 public class ModelAndMapperGenerator extends CodeGeneratorManager implements CodeGenerator {
 
+    /**
+     * MyBatisGenerator.generate 会重置 ObjectFactory, RootClassInfo 等静态状态, 不能并发执行
+     */
+    private static final Object GENERATOR_LOCK = new Object();
+
+    // 生成会话
+    private final GenerationSession session;
+    // 增量生成清单, 为 null 时总是生成
+    private final GenerationManifest manifest;
+    // 分阶段耗时统计
+    private final GenerationMetrics metrics;
+
+    public ModelAndMapperGenerator() {
+        this(newSession(null));
+    }
+
+    public ModelAndMapperGenerator(GenerationSession session) {
+        this.session = session;
+        this.manifest = session.isIncremental() ? session.getManifest() : null;
+        this.metrics = session.getMetrics();
+    }
+
     @Override
     public void genCode(String tableName, String modelName, String sign) {
-        Context initConfig = initConfig(tableName, modelName, sign);
-        List<String> warnings = null;
-        MyBatisGenerator generator = null;
+        genCode(new TableTask(tableName, modelName, sign));
+    }
+
+    /**
+     * 生成单张表的 Model & Mapper, 读取的表结构设置到任务中, 供后续 Service 和 Controller 生成使用
+     * @param task 生成任务
+     */
+    public void genCode(TableTask task) {
+        SchemaModel schema = introspectSchema(Collections.singletonList(task.getTableName()));
+        if (!schema.contains(task.getTableName())) {
+            throw new RuntimeException("Model 和  Mapper 生成失败, 表 " + task.getTableName() + " 不存在!");
+        }
+        if (genCode(schema, Collections.singletonList(task)).isEmpty()) {
+            throw new RuntimeException("Model 和  Mapper 生成失败!");
+        }
+    }
+
+    /**
+     * 批量生成 Model & Mapper
+     * 所有表在一次 MyBatisGenerator 运行中生成, 表结构从 schema 中读取, 不再访问数据库
+     * MyBatisGenerator 只生成内容, 文件经由会话的输出目标写入
+     * MyBatisGenerator 运行耗时按批记录, 写入耗时按表记录
+     * 开启增量生成时, Model, Mapper 和 XML 均无变化的表不参与生成
+     * @param schema 已读取的表结构
+     * @param tasks 生成任务, 表需已存在于 schema 中
+     * @return 生成成功或无需生成的表名
+     */
+    public Set<String> genCode(SchemaModel schema, List<TableTask> tasks) {
+        Set<String> generated = new HashSet<>();
+        Map<String, String> hashes = new LinkedHashMap<>();
+        List<TableTask> changed = new ArrayList<>();
+        for (TableTask task : tasks) {
+            if (task.getTable() == null) {
+                task.setTable(schema.getTable(task.getTableName()));
+            }
+            if (manifest != null) {
+                String hash = manifest.inputHash(task, null);
+                if (isUpToDate(task, hash)) {
+                    generated.add(task.getTableName());
+                    logger.info("{} 的 Model 和  Mapper 无变化, 跳过生成", task.getTableName());
+                    continue;
+                }
+                hashes.put(task.getTableName(), hash);
+            }
+            changed.add(task);
+        }
+        if (changed.isEmpty()) {
+            return generated;
+        }
+
+        // 按区分字段分组, 每组对应一个 Context
+        Map<String, List<TableTask>> groups = new LinkedHashMap<>();
+        for (TableTask task : changed) {
+            String sign = StringUtils.isNullOrEmpty(task.getSign()) ? "" : task.getSign();
+            if (!groups.containsKey(sign)) {
+                groups.put(sign, new ArrayList<TableTask>());
+            }
+            groups.get(sign).add(task);
+        }
+
+        String schemaId = SchemaConnectionFactory.register(schema);
+        List<String> warnings = new ArrayList<String>();
+        Map<File, String> javaFiles = new LinkedHashMap<>();
+        Map<File, GeneratedXmlFile> xmlFiles = new LinkedHashMap<>();
         try {
             Configuration cfg = new Configuration();
-            cfg.addContext(initConfig);
+            for (Map.Entry<String, List<TableTask>> group : groups.entrySet()) {
+                cfg.addContext(initConfig(schemaId, group.getKey(), group.getValue()));
+            }
             cfg.validate();
 
             DefaultShellCallback callback = new DefaultShellCallback(true);
-            warnings = new ArrayList<String>();
-            generator = new MyBatisGenerator(cfg, callback, warnings);
-            generator.generate(null);
+            synchronized (GENERATOR_LOCK) {
+                long start = System.nanoTime();
+                MyBatisGenerator generator = new MyBatisGenerator(cfg, callback, warnings);
+                generator.generate(null, null, null, false);
+                for (GeneratedJavaFile file : generator.getGeneratedJavaFiles()) {
+                    javaFiles.put(getTargetFile(file), file.getFormattedContent());
+                }
+                for (GeneratedXmlFile file : generator.getGeneratedXmlFiles()) {
+                    xmlFiles.put(getTargetFile(file), file);
+                }
+                metrics.record(null, GenerationMetrics.Phase.MYBATIS_GENERATOR, System.nanoTime() - start, 0);
+            }
         } catch (Exception e) {
             throw new RuntimeException("Model 和  Mapper 生成失败!", e);
+        } finally {
+            SchemaConnectionFactory.unregister(schemaId);
+        }
+
+        // 生成文件 ==> 表名, 用于按表记录耗时
+        Map<File, String> owners = new HashMap<>();
+        for (TableTask task : changed) {
+            for (File file : getOutputFiles(task)) {
+                owners.put(file, task.getTableName());
+            }
+        }
+        // 写入成功的文件名
+        Set<String> written = new HashSet<>();
+        for (Map.Entry<File, String> entry : javaFiles.entrySet()) {
+            try {
+                write(entry.getKey(), entry.getValue(), owners);
+                written.add(entry.getKey().getName());
+            } catch (Exception e) {
+                logger.warn("{} 写入失败!", entry.getKey().getName(), e);
+            }
+        }
+        for (Map.Entry<File, GeneratedXmlFile> entry : xmlFiles.entrySet()) {
+            try {
+                // 与已有 XML 的合并计入该表的渲染耗时
+                long start = System.nanoTime();
+                String content = getXmlContent(entry.getKey(), entry.getValue());
+                metrics.record(owners.get(entry.getKey()), GenerationMetrics.Phase.RENDER,
+                        System.nanoTime() - start, GenerationMetrics.utf8Length(content));
+                write(entry.getKey(), content, owners);
+                written.add(entry.getKey().getName());
+            } catch (Exception e) {
+                logger.warn("{} 写入失败!", entry.getKey().getName(), e);
+            }
+        }
+
+        for (TableTask task : changed) {
+            String modelName = getModelName(task);
+            if (!written.contains(modelName + ".java") || !written.contains(modelName + "Mapper.java")
+                    || !written.contains(modelName + "Mapper.xml")) {
+                logger.warn("{} 的 Model 和  Mapper 生成失败, warnings: {}", task.getTableName(), warnings);
+                continue;
+            }
+            generated.add(task.getTableName());
+            if (manifest != null) {
+                for (File file : getOutputFiles(task)) {
+                    manifest.update(file, hashes.get(task.getTableName()));
+                }
+            }
+            logger.info("{}.java 生成成功!", modelName);
+            logger.info("{}Mapper.java 生成成功!", modelName);
+            logger.info("{}Mapper.xml 生成成功!", modelName);
+        }
+        for (TableTask task : tasks) {
+            if (generated.contains(task.getTableName())) {
+                genProjections(task);
+            }
+        }
+        return generated;
+    }
+
+    /**
+     * 生成表的投影 DTO, 与实体同包, 对应的查询由 ProjectionPlugin 生成到 Mapper 和 XML 中
+     * @param task 生成任务
+     */
+    private void genProjections(TableTask task) {
+        String modelName = getModelName(task);
+        for (Projection projection : getProjections(task)) {
+            Map<String, Object> data = session.newDataModel();
+            data.put("sign", task.getSign());
+            data.put("modelNameUpperCamel", modelName);
+            data.put("projection", projection);
+            File file = session.javaFile(packageConvertPath(MODEL_PACKAGE), task.getSign(), projection.getClassName() + ".java");
+            try {
+                if (session.render(task, "model-projection.ftl", data, file)) {
+                    logger.info("{}.java 生成成功!", projection.getClassName());
+                } else {
+                    logger.info("{}.java 无变化, 跳过生成", projection.getClassName());
+                }
+            } catch (Exception e) {
+                throw new RuntimeException(projection.getClassName() + ".java 生成失败!", e);
+            }
         }
+    }
+
+    /**
+     * 表配置的字段投影
+     */
+    private List<Projection> getProjections(TableTask task) {
+        return Projection.of(task.getTable(), getModelName(task), TEMPLATE_PROJECTIONS.get(task.getTableName().toLowerCase()));
+    }
+
+    /**
+     * 写入文件并按表记录写入耗时和字节数
+     * @param file 写入位置
+     * @param content 文件内容
+     * @param owners 生成文件 ==> 表名
+     * @throws IOException
+     */
+    private void write(File file, String content, Map<File, String> owners) throws IOException {
+        long start = System.nanoTime();
+        session.getSink().write(file, content);
+        metrics.record(owners.get(file), GenerationMetrics.Phase.WRITE, System.nanoTime() - start,
+                GenerationMetrics.utf8Length(content));
+    }
 
-        if (generator == null || generator.getGeneratedJavaFiles().isEmpty() || generator.getGeneratedXmlFiles().isEmpty()) {
-            throw new RuntimeException("Model 和  Mapper 生成失败, warnings: " + warnings);
+    /**
+     * Model, Mapper 和 XML 是否均已是最新
+     * @param task 生成任务
+     * @param hash 输入摘要
+     * @return
+     */
+    private boolean isUpToDate(TableTask task, String hash) {
+        for (File file : getOutputFiles(task)) {
+            if (!session.getSink().exists(file) || !manifest.isUpToDate(file, hash)) {
+                return false;
+            }
         }
+        return true;
+    }
 
-        if (StringUtils.isNullOrEmpty(modelName)) {
-            modelName = tableNameConvertUpperCamel(tableName);
+    /**
+     * 获取生成文件的写入位置, 与 MyBatis Generator 自行写入时一致
+     * @param file 生成文件
+     * @return
+     */
+    private File getTargetFile(GeneratedFile file) {
+        return new File(file.getTargetProject() + packageConvertPath(file.getTargetPackage()) + file.getFileName());
+    }
+
+    /**
+     * 获取 XML 内容, 已存在时与 MyBatis Generator 自行写入时一样合并, 保留手工添加的内容
+     * @param target 写入位置
+     * @param file 生成文件
+     * @return
+     * @throws Exception
+     */
+    private String getXmlContent(File target, GeneratedXmlFile file) throws Exception {
+        String existing = file.isMergeable() ? session.getSink().read(target) : null;
+        if (existing == null) {
+            return file.getFormattedContent();
         }
+        return XmlFileMergerJaxp.getMergedSource(new InputSource(new StringReader(file.getFormattedContent())),
+                new InputSource(new StringReader(existing)), target.getName());
+    }
 
-        logger.info("{}.java 生成成功!", modelName);
-        logger.info("{}Mapper.java 生成成功!", modelName);
-        logger.info("{}Mapper.xml 生成成功!", modelName);
+    /**
+     * 获取 MyBatis Generator 为该表生成的文件: Model, Mapper 和 XML
+     * @param task 生成任务
+     * @return
+     */
+    private List<File> getOutputFiles(TableTask task) {
+        String modelName = getModelName(task);
+        String subPackage = StringUtils.isNullOrEmpty(task.getSign()) ? "" : "." + task.getSign();
+        return Arrays.asList(
+                session.javaFile(packageConvertPath(MODEL_PACKAGE), task.getSign(), modelName + ".java"),
+                session.javaFile(packageConvertPath(MAPPER_PACKAGE), task.getSign(), modelName + "Mapper.java"),
+                new File(PROJECT_PATH + RESOURCES_PATH + packageConvertPath("mapper" + subPackage) + modelName + "Mapper.xml"));
+    }
+
+    /**
+     * 获取实体类名, 未自定义时与 MyBatis Generator 一致, 将表名下划线转成大驼峰形式
+     */
+    private String getModelName(TableTask task) {
+        return StringUtils.isNullOrEmpty(task.getModelName())
+                ? tableNameConvertUpperCamel(task.getTableName()) : task.getModelName();
+    }
+
+    /**
+     * 生成 selectByXxx 的字段, 与 ServiceGenerator 生成的 findByXxx 一一对应
+     * @param task 生成任务
+     * @return 字段名, 逗号分隔
+     */
+    private String getUniqueColumns(TableTask task) {
+        StringBuilder sb = new StringBuilder();
+        for (ColumnProperty property : ColumnProperty.uniqueFinders(task.getTable())) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(property.getColumnName());
+        }
+        return sb.toString();
     }
 
     /**
      * 完善初始化环境
-     * @param tableName 表名
-     * @param modelName 自定义实体类名, 为null则默认将表名下划线转成大驼峰形式
+     * @param schemaId 已注册的表结构编号
      * @param sign 区分字段, 规定如表 gen_test_demo, 则 test 即为区分字段
+     * @param tasks 同一区分字段下的生成任务
      */
-    private Context initConfig(String tableName, String modelName, String sign) {
+    private Context initConfig(String schemaId, String sign, List<TableTask> tasks) {
         Context context = null;
         try {
             context = new Context(ModelType.FLAT);
-            context.setId("Potato");
+            context.setId(StringUtils.isNullOrEmpty(sign) ? "Potato" : "Potato_" + sign);
             context.setTargetRuntime("MyBatis3Simple");
             context.addProperty(PropertyRegistry.CONTEXT_BEGINNING_DELIMITER, "`");
             context.addProperty(PropertyRegistry.CONTEXT_ENDING_DELIMITER, "`");
 
-            // 数据库连接配置
-            JDBCConnectionConfiguration jdbcConnectionConfiguration = new JDBCConnectionConfiguration();
-            jdbcConnectionConfiguration.setConnectionURL(JDBC_URL);
-            jdbcConnectionConfiguration.setUserId(JDBC_USERNAME);
-            jdbcConnectionConfiguration.setPassword(JDBC_PASSWORD);
-            jdbcConnectionConfiguration.setDriverClass(JDBC_DRIVER_CLASS_NAME);
-            context.setJdbcConnectionConfiguration(jdbcConnectionConfiguration);
+            // 表结构从内存读取, 不再为每张表建立数据库连接
+            ConnectionFactoryConfiguration connectionFactoryConfiguration = new ConnectionFactoryConfiguration();
+            connectionFactoryConfiguration.setConfigurationType(SchemaConnectionFactory.class.getName());
+            connectionFactoryConfiguration.addProperty(SchemaConnectionFactory.SCHEMA_ID, schemaId);
+            context.setConnectionFactoryConfiguration(connectionFactoryConfiguration);
 
             // sql生成配置
             SqlMapGeneratorConfiguration sqlMapGeneratorConfiguration = new SqlMapGeneratorConfiguration();
@@ -83,10 +373,46 @@ public class ModelAndMapperGenerator extends CodeGeneratorManager implements Cod
 
             // Mapper 插件配置
             PluginConfiguration pluginConfiguration = new PluginConfiguration();
-            pluginConfiguration.setConfigurationType("tk.mybatis.mapper.generator.MapperPlugin");
+            pluginConfiguration.setConfigurationType(SchemaMapperPlugin.class.getName());
             pluginConfiguration.addProperty("mappers", MAPPER_INTERFACE_REFERENCE);
             context.addPluginConfiguration(pluginConfiguration);
 
+            // 按唯一索引字段查询的插件
+            if (TEMPLATE_UNIQUE_FINDERS) {
+                PluginConfiguration finderPluginConfiguration = new PluginConfiguration();
+                finderPluginConfiguration.setConfigurationType(UniqueFinderPlugin.class.getName());
+                context.addPluginConfiguration(finderPluginConfiguration);
+            }
+
+            // 按索引前缀查询的插件
+            if (TEMPLATE_INDEX_FINDERS) {
+                PluginConfiguration indexPluginConfiguration = new PluginConfiguration();
+                indexPluginConfiguration.setConfigurationType(IndexFinderPlugin.class.getName());
+                context.addPluginConfiguration(indexPluginConfiguration);
+            }
+
+            // 字段投影插件
+            if (!TEMPLATE_PROJECTIONS.isEmpty()) {
+                PluginConfiguration projectionPluginConfiguration = new PluginConfiguration();
+                projectionPluginConfiguration.setConfigurationType(ProjectionPlugin.class.getName());
+                context.addPluginConfiguration(projectionPluginConfiguration);
+            }
+
+            // 修改字段跟踪插件
+            if (TEMPLATE_DIRTY_TRACKING) {
+                PluginConfiguration dirtyPluginConfiguration = new PluginConfiguration();
+                dirtyPluginConfiguration.setConfigurationType(DirtyTrackingPlugin.class.getName());
+                dirtyPluginConfiguration.addProperty(DirtyTrackingPlugin.TRACKING_INTERFACE, BASE_PACKAGE + ".dao.DirtyTracking");
+                context.addPluginConfiguration(dirtyPluginConfiguration);
+            }
+
+            // 插入或更新插件
+            if (TEMPLATE_UPSERT) {
+                PluginConfiguration upsertPluginConfiguration = new PluginConfiguration();
+                upsertPluginConfiguration.setConfigurationType(UpsertPlugin.class.getName());
+                context.addPluginConfiguration(upsertPluginConfiguration);
+            }
+
             // java model生成配置
             JavaModelGeneratorConfiguration javaModelGeneratorConfiguration = new JavaModelGeneratorConfiguration();
             javaModelGeneratorConfiguration.setTargetProject(PROJECT_PATH + JAVA_PATH);
@@ -108,11 +434,24 @@ public class ModelAndMapperGenerator extends CodeGeneratorManager implements Cod
             javaClientGeneratorConfiguration.setConfigurationType("XMLMAPPER");
             context.setJavaClientGeneratorConfiguration(javaClientGeneratorConfiguration);
 
-            TableConfiguration tableConfiguration = new TableConfiguration(context);
-            tableConfiguration.setTableName(tableName);
-            tableConfiguration.setDomainObjectName(modelName);
-            tableConfiguration.setGeneratedKey(new GeneratedKey("id", "Mysql", true, null));
-            context.addTableConfiguration(tableConfiguration);
+            for (TableTask task : tasks) {
+                TableConfiguration tableConfiguration = new TableConfiguration(context);
+                tableConfiguration.setTableName(task.getTableName());
+                tableConfiguration.setDomainObjectName(task.getModelName());
+                tableConfiguration.setGeneratedKey(new GeneratedKey("id", "Mysql", true, null));
+                if (TEMPLATE_UNIQUE_FINDERS) {
+                    tableConfiguration.addProperty(UniqueFinderPlugin.UNIQUE_COLUMNS, getUniqueColumns(task));
+                }
+                if (TEMPLATE_INDEX_FINDERS) {
+                    tableConfiguration.addProperty(IndexFinderPlugin.INDEX_FINDERS,
+                            IndexFinder.toPluginProperty(IndexFinder.of(task.getTable())));
+                }
+                List<Projection> projections = getProjections(task);
+                if (!projections.isEmpty()) {
+                    tableConfiguration.addProperty(ProjectionPlugin.PROJECTIONS, Projection.toPluginProperty(projections));
+                }
+                context.addTableConfiguration(tableConfiguration);
+            }
         } catch (Exception e) {
             throw new RuntimeException("ModelAndMapperGenerator 初始化环境异常!", e);
         }
@@ -1,70 +1,184 @@
 package org.codegen.service.impl;
 
-import freemarker.template.Configuration;
+import org.codegen.schema.ColumnMeta;
+import org.codegen.schema.TableMeta;
 import org.codegen.service.CodeGenerator;
 import org.codegen.service.CodeGeneratorManager;
+import org.codegen.service.ColumnProperty;
+import org.codegen.service.GenerationSession;
+import org.codegen.service.IndexFinder;
+import org.codegen.service.Projection;
+import org.codegen.service.TableTask;
 import org.codegen.util.StringUtils;
 
 import java.io.File;
-import java.io.FileWriter;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Service层 代码生成器
  * Created by zhh on 2017/09/20.
  */
 public class ServiceGenerator extends CodeGeneratorManager implements CodeGenerator {
+
+    // 生成会话
+    private final GenerationSession session;
+
+    public ServiceGenerator() {
+        this(newSession(null));
+    }
+
+    public ServiceGenerator(GenerationSession session) {
+        this.session = session;
+    }
+
     @Override
     public void genCode(String tableName, String modelName, String sign) {
-        Configuration cfg = getFreemarkerConfiguration();
-        String customMapping = "";
-        if (!StringUtils.isNullOrEmpty(sign)) {
-            customMapping = "/" + sign + "/";
-        }
-        String modelNameUpperCamel = StringUtils.isNullOrEmpty(modelName) ? tableNameConvertUpperCamel(tableName) : modelName;
+        genCode(new TableTask(tableName, modelName, sign));
+    }
+
+    /**
+     * 代码生成主要逻辑, 开启增量生成时跳过输入未变化的文件
+     * @param task 生成任务
+     */
+    public void genCode(TableTask task) {
+        String modelName = task.getModelName();
+        String sign = task.getSign();
+        String modelNameUpperCamel = StringUtils.isNullOrEmpty(modelName) ? tableNameConvertUpperCamel(task.getTableName()) : modelName;
 
-        Map<String, Object> data = getDataMapInit(modelName, sign, modelNameUpperCamel);
+        Map<String, Object> data = getDataMapInit(sign, modelNameUpperCamel);
+        putFinders(data, task);
+        putEntityCache(data, task);
+        putBatchLoader(data, task);
+        putProjections(data, task, modelNameUpperCamel);
         try {
             // 创建 Service 接口
-            File serviceFile = new File(PROJECT_PATH + JAVA_PATH + PACKAGE_PATH_SERVICE + customMapping
-                    + modelNameUpperCamel + "Service.java");
-            // 查看父级目录是否存在, 不存在则创建
-            if (!serviceFile.getParentFile().exists()) {
-                serviceFile.getParentFile().mkdirs();
+            File serviceFile = session.javaFile(PACKAGE_PATH_SERVICE, sign, modelNameUpperCamel + "Service.java");
+            if (session.render(task, "service.ftl", data, serviceFile)) {
+                logger.info(modelNameUpperCamel + "Service.java 生成成功!");
+            } else {
+                logger.info(modelNameUpperCamel + "Service.java 无变化, 跳过生成");
             }
-            cfg.getTemplate("service.ftl").process(data, new FileWriter(serviceFile));
-            logger.info(modelNameUpperCamel + "Service.java 生成成功!");
 
             // 创建 Service 接口的实现类
-            File serviceImplFile = new File(PROJECT_PATH + JAVA_PATH + PACKAGE_PATH_SERVICE_IMPL + customMapping
-                    + modelNameUpperCamel + "ServiceImpl.java");
-            // 查看父级目录是否存在, 不存在则创建
-            if (!serviceImplFile.getParentFile().exists()) {
-                serviceImplFile.getParentFile().mkdirs();
+            File serviceImplFile = session.javaFile(PACKAGE_PATH_SERVICE_IMPL, sign, modelNameUpperCamel + "ServiceImpl.java");
+            if (session.render(task, "service-impl.ftl", data, serviceImplFile)) {
+                logger.info(modelNameUpperCamel + "ServiceImpl.java 生成成功!");
+            } else {
+                logger.info(modelNameUpperCamel + "ServiceImpl.java 无变化, 跳过生成");
             }
-            cfg.getTemplate("service-impl.ftl").process(data, new FileWriter(serviceImplFile));
-            logger.info(modelNameUpperCamel + "ServiceImpl.java 生成成功!");
         } catch (Exception e) {
             throw new RuntimeException("Service 生成失败!", e);
         }
     }
 
+    /**
+     * 按唯一索引字段和索引前缀查询的 findByXxx, 与 Mapper 中的 selectByXxx 一一对应
+     * @param data 模板数据
+     * @param task 生成任务, 未读取表结构时不生成
+     */
+    private void putFinders(Map<String, Object> data, TableTask task) {
+        List<ColumnProperty> finders = TEMPLATE_UNIQUE_FINDERS
+                ? ColumnProperty.uniqueFinders(task.getTable()) : Collections.<ColumnProperty>emptyList();
+        List<IndexFinder> indexFinders = TEMPLATE_INDEX_FINDERS
+                ? IndexFinder.of(task.getTable()) : Collections.<IndexFinder>emptyList();
+        Set<String> imports = new TreeSet<>();
+        for (ColumnProperty finder : finders) {
+            if (finder.getImportType() != null) {
+                imports.add(finder.getImportType());
+            }
+        }
+        for (IndexFinder finder : indexFinders) {
+            imports.addAll(finder.getImports());
+        }
+        data.put("uniqueFinders", finders);
+        data.put("indexFinders", indexFinders);
+        data.put("finderImports", imports);
+    }
+
+    /**
+     * 开启实体缓存的表, 生成创建缓存的构造器和按主键取缓存键的 cacheKey
+     * @param data 模板数据
+     * @param task 生成任务, 需要单列主键, 否则不缓存
+     */
+    private void putEntityCache(Map<String, Object> data, TableTask task) {
+        if (!TEMPLATE_CACHE_TABLES.contains(task.getTableName().toLowerCase())) {
+            return;
+        }
+        ColumnMeta pk = singlePrimaryKey(task);
+        if (pk == null) {
+            logger.warn("{} 没有单列主键, 不生成实体缓存", task.getTableName());
+            return;
+        }
+        data.put("cacheKeyGetter", ColumnProperty.of(pk).getGetterName());
+        data.put("cacheMaxSize", TEMPLATE_CACHE_MAX_SIZE);
+        data.put("cacheTtlSeconds", TEMPLATE_CACHE_TTL_SECONDS);
+    }
+
+    /**
+     * 开启批量加载器的表, 在构造器中创建按主键合并查询的 BatchLoader
+     * @param data 模板数据
+     * @param task 生成任务, 需要单列主键, 否则不生成
+     */
+    private void putBatchLoader(Map<String, Object> data, TableTask task) {
+        if (!TEMPLATE_BATCH_LOADER_TABLES.contains(task.getTableName().toLowerCase())) {
+            return;
+        }
+        ColumnMeta pk = singlePrimaryKey(task);
+        if (pk == null) {
+            logger.warn("{} 没有单列主键, 不生成批量加载器", task.getTableName());
+            return;
+        }
+        data.put("batchLoaderKeyGetter", ColumnProperty.of(pk).getGetterName());
+        data.put("batchLoaderWindowMillis", TEMPLATE_BATCH_LOADER_WINDOW_MILLIS);
+        data.put("batchLoaderMaxSize", TEMPLATE_BATCH_LOADER_MAX_SIZE);
+    }
+
+    /**
+     * 表的字段投影, 生成 findXxxAll, 单列主键的表另有 findXxxById 和 findXxxByIds
+     * @param data 模板数据
+     * @param task 生成任务
+     * @param modelNameUpperCamel 实体类名
+     */
+    private void putProjections(Map<String, Object> data, TableTask task, String modelNameUpperCamel) {
+        List<Projection> projections = Projection.of(task.getTable(), modelNameUpperCamel,
+                TEMPLATE_PROJECTIONS.get(task.getTableName().toLowerCase()));
+        data.put("projections", projections);
+        ColumnMeta pk = singlePrimaryKey(task);
+        if (projections.isEmpty() || pk == null) {
+            return;
+        }
+        ColumnProperty pkProperty = ColumnProperty.of(pk);
+        data.put("projectionIdType", pkProperty.getJavaType());
+        if (pkProperty.getImportType() != null) {
+            data.put("projectionIdImport", pkProperty.getImportType());
+        }
+    }
+
+    /**
+     * 表的单列主键
+     * @param task 生成任务
+     * @return 未读取表结构或不是单列主键时为 null
+     */
+    private static ColumnMeta singlePrimaryKey(TableTask task) {
+        TableMeta table = task.getTable();
+        return table == null || table.getPrimaryKeys().size() != 1 ? null : table.getColumn(table.getPrimaryKeys().get(0));
+    }
+
     /**
      * 预置页面所需数据
-     * @param modelName 自定义实体类名, 为null则默认将表名下划线转成大驼峰形式
      * @param sign 区分字段, 规定如表 gen_test_demo, 则 test 即为区分字段
      * @param modelNameUpperCamel 首字为大写的实体类名
      * @return
      */
-    private Map<String, Object> getDataMapInit(String modelName, String sign, String modelNameUpperCamel) {
-        Map<String, Object> data = new HashMap<>();
-        data.put("date", DATE);
-        data.put("author", AUTHOR);
+    private Map<String, Object> getDataMapInit(String sign, String modelNameUpperCamel) {
+        Map<String, Object> data = session.newDataModel();
         data.put("sign", sign);
         data.put("modelNameUpperCamel", modelNameUpperCamel);
         data.put("modelNameLowerCamel", StringUtils.toLowerCaseFirstOne(modelNameUpperCamel));
-        data.put("basePackage", BASE_PACKAGE);
 
         return data;
     }
@@ -1,14 +1,84 @@
 package ${basePackage}.service;
 
+<#if streamExport>
+import java.io.IOException;
+</#if>
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
+<#if batchStrategy == "batch" || streamExport>
+import java.lang.reflect.Type;
+</#if>
+<#if batchStrategy == "batch">
+import java.sql.Statement;
+</#if>
+<#if batchSize gt 0 || idsChunkSize gt 0 || entityCache>
+import java.util.ArrayList;
+</#if>
+<#if idsChunkSize gt 0 || entityCache>
+import java.util.Collection;
+</#if>
+<#if entityCache>
+import java.util.Collections;
+</#if>
+<#if idsChunkSize gt 0>
+import java.util.LinkedHashSet;
+</#if>
 import java.util.List;
+<#if asyncController>
+import java.util.concurrent.CompletableFuture;
+</#if>
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+<#if asyncController>
+import java.util.concurrent.Executor;
+</#if>
+<#if pageCount>
+import java.util.concurrent.TimeUnit;
+</#if>
+<#if streamExport>
+import java.util.function.Consumer;
+</#if>
 
+<#if streamExport>
+import org.apache.ibatis.cursor.Cursor;
+</#if>
 import org.apache.ibatis.exceptions.TooManyResultsException;
+<#if batchStrategy == "batch">
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+</#if>
+<#if batchStrategy == "batch" || streamExport>
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+</#if>
+<#if asyncController || pageCount>
+import com.github.pagehelper.PageHelper;
+</#if>
 import org.springframework.beans.factory.annotation.Autowired;
+<#if asyncController>
+import org.springframework.beans.factory.annotation.Qualifier;
+</#if>
+<#if idsChunkSize gt 0 || upsert>
+import org.springframework.transaction.annotation.Transactional;
+</#if>
+<#if entityCache>
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+</#if>
+<#if batchLoader || entityCache>
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+</#if>
 import tk.mybatis.mapper.entity.Condition;
 
 import ${MAPPER_INTERFACE_REFERENCE};
+<#if dirtyTracking>
+import ${basePackage}.dao.DirtyTracking;
+</#if>
+<#if streamExport>
+import ${basePackage}.dao.StreamMapper;
+</#if>
 
 
 /**
@@ -19,8 +89,57 @@ public abstract class ${AbstractServiceName}<T> {
 
     @Autowired
     protected ${MapperName}<T> mapper;
+<#if asyncController>
+
+    @Autowired
+    @Qualifier("dbExecutor")
+    protected Executor dbExecutor;    // 异步方法的执行器, 见 DbExecutorConfig
+</#if>
+<#if batchStrategy == "batch" || streamExport>
+
+    @Autowired
+    protected SqlSessionFactory sqlSessionFactory;
+</#if>
+<#if batchSize gt 0>
+
+    protected int batchSize = ${batchSize?c};    // 批量插入每批条数, 子类可修改
+</#if>
+<#if idsChunkSize gt 0>
+
+    protected int idsChunkSize = ${idsChunkSize?c};    // 主键集合每批 IN 列表的长度, 子类可修改
+</#if>
+<#if upsert>
+
+    protected int upsertChunkSize = ${upsertChunkSize?c};    // upsertAll 每条多行语句的行数, 子类可修改
+</#if>
+
+<#if entityCache>
+
+    protected EntityCache<T> cache;    // 实体缓存, 为 null 时不缓存, 由开启缓存的子类创建
+</#if>
+<#if batchLoader>
+
+    protected BatchLoader<T> loader;    // 合并并发 findById 的批量加载器, 为 null 时逐条查询, 由开启的子类创建
+</#if>
+<#if pageCount>
+
+    protected long countTtlMillis = TimeUnit.SECONDS.toMillis(${pageCountTtlSeconds?c});    // countCached 的缓存时间, 子类可修改
+
+    private volatile long[] countSnapshot;    // countCached 缓存的 {总行数, 统计时间}
+
+    private final Object countLock = new Object();
+</#if>
 
     private Class<T> modelClass;    // 当前泛型真实类型的Class
+<#if batchStrategy == "batch" || streamExport>
+
+    private Class<?> mapperInterface;    // 当前实体的具体 Mapper 接口, 首次打开单独的 SqlSession 时查找
+</#if>
+
+    private MethodHandle constructor;    // 实体类无参构造器, 首次 findBy 时创建
+
+    // 字段名 ==> 字段 setter, 首次使用时创建, 之后的 findBy 不再反射
+    private final ConcurrentMap<String, MethodHandle> fieldSetters = new ConcurrentHashMap<>();
 
     public ${AbstractServiceName}() {
         ParameterizedType pt = (ParameterizedType) this.getClass().getGenericSuperclass();
@@ -31,43 +150,275 @@ public abstract class ${AbstractServiceName}<T> {
         mapper.insertSelective(model);
     }
 
+<#if batchSize gt 0>
+    public void save(List<T> models) {
+        saveInChunks(models);
+    }
+
+<#if batchStrategy == "batch">
+    /**
+     * 使用 BATCH 执行器分批插入, 每批执行一次 JDBC batch
+     * 单独的 SqlSession 经 SpringManagedTransaction 取连接, 在 Spring 事务中时使用事务的连接, 随事务提交或回滚;
+     * 不使用 SqlSessionUtils 绑定到事务, 因为同一事务中绑定的 SqlSession 不能更换执行器, 之后的普通 Mapper 调用会失败
+     * 自增主键是否回填取决于通用 Mapper 的 IDENTITY 配置, 配置为 JDBC 时不会逐条查询主键
+     */
+    @SuppressWarnings("unchecked")
+    public List<Integer> saveInChunks(List<T> models) {
+        List<Integer> rows = new ArrayList<>();
+        try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH, false)) {
+            ${MapperName}<T> batchMapper = (${MapperName}<T>) session.getMapper(mapperInterface());
+            for (int from = 0; from < models.size(); from += batchSize) {
+                for (T model : models.subList(from, Math.min(from + batchSize, models.size()))) {
+                    batchMapper.insert(model);
+                }
+                rows.add(countRows(session.flushStatements()));
+            }
+            session.commit();
+        }
+        return rows;
+    }
+
+    /**
+     * 统计一次 JDBC batch 写入的行数, 驱动未返回行数 (SUCCESS_NO_INFO) 时按一行计
+     */
+    private static int countRows(List<BatchResult> results) {
+        int rows = 0;
+        for (BatchResult result : results) {
+            for (int count : result.getUpdateCounts()) {
+                rows += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+            }
+        }
+        return rows;
+    }
+<#else>
+    /**
+     * 分批插入, 每批一条多行 INSERT, 避免超出 max_allowed_packet 和长时间持有锁
+     */
+    public List<Integer> saveInChunks(List<T> models) {
+        List<Integer> rows = new ArrayList<>();
+        for (int from = 0; from < models.size(); from += batchSize) {
+            rows.add(mapper.insertList(models.subList(from, Math.min(from + batchSize, models.size()))));
+        }
+        return rows;
+    }
+</#if>
+<#else>
     public void save(List<T> models) {
         mapper.insertList(models);
     }
+</#if>
+
+<#if upsert>
+    /**
+     * 写入全部字段, 跟踪修改字段的实体写入后清除修改标记
+     */
+    public int upsert(T model) {
+        int rows = mapper.upsert(model);
+<#if dirtyTracking>
+        if (model instanceof DirtyTracking) {
+            ((DirtyTracking) model).clearDirtyFields();
+        }
+</#if>
+<#if entityCache>
+        evict(model);
+</#if>
+        return rows;
+    }
+
+    /**
+     * 按 upsertChunkSize 分批, 每批一条多行语句, 空列表不执行
+     */
+    @Transactional
+    public int upsertAll(List<T> models) {
+        int rows = 0;
+        for (int from = 0; from < models.size(); from += upsertChunkSize) {
+            rows += mapper.upsertList(models.subList(from, Math.min(from + upsertChunkSize, models.size())));
+        }
+<#if dirtyTracking>
+        for (T model : models) {
+            if (model instanceof DirtyTracking) {
+                ((DirtyTracking) model).clearDirtyFields();
+            }
+        }
+</#if>
+<#if entityCache>
+        evictAll(models);
+</#if>
+        return rows;
+    }
 
+</#if>
     public void deleteById(Integer id) {
         mapper.deleteByPrimaryKey(id);
+<#if entityCache>
+        invalidate(Collections.singletonList(id));
+</#if>
     }
 
     public void deleteByIds(String ids) {
         mapper.deleteByIds(ids);
+<#if entityCache>
+        List<String> keys = new ArrayList<>();
+        for (String id : ids.split(",")) {
+            keys.add(id.trim());
+        }
+        invalidate(keys);
+</#if>
     }
 
+<#if idsChunkSize gt 0>
+    /**
+     * 分批删除, 所有批次在同一事务和 SqlSession 中执行
+     */
+    @Transactional
+    public int deleteByIds(Collection<Long> ids) {
+        int rows = 0;
+        for (List<Long> chunk : idChunks(ids)) {
+            rows += mapper.deleteByIdList(chunk);
+<#if entityCache>
+            invalidate(chunk);
+</#if>
+        }
+        return rows;
+    }
+
+    @Transactional
+    public int deleteByIds(long[] ids) {
+        return deleteByIds(idList(ids));
+    }
+
+</#if>
+<#if dirtyTracking>
+    /**
+     * 跟踪修改字段的实体只更新修改过的字段, 没有修改时不执行 UPDATE; 其他实体更新非 null 字段
+     */
+    public void update(T model) {
+        if (model instanceof DirtyTracking) {
+            DirtyTracking tracked = (DirtyTracking) model;
+            if (!tracked.hasDirtyFields()) {
+                return;
+            }
+            mapper.updateDirtyByPrimaryKey(model);
+            tracked.clearDirtyFields();
+        } else {
+            mapper.updateByPrimaryKeySelective(model);
+        }
+<#else>
     public void update(T model) {
         mapper.updateByPrimaryKeySelective(model);
+</#if>
+<#if entityCache>
+        evict(model);
+</#if>
     }
 
+<#assign selectById = batchLoader?then("loadById(id)", "mapper.selectByPrimaryKey(id)")>
+<#if entityCache>
+    /**
+     * 返回的实体可能来自缓存, 由所有调用方共享, 只读; 需要修改后 update 时先复制
+     * 事务中不读写缓存, 以读到本事务未提交的修改
+     */
     public T findById(Integer id) {
-        return mapper.selectByPrimaryKey(id);
+        if (cache == null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return ${selectById};
+        }
+        T model = cache.get(id);
+        if (model == null) {
+            long version = cache.version();
+            model = ${selectById};
+            cache.put(id, model, version);
+        }
+        return model;
     }
+<#else>
+    public T findById(Integer id) {
+        return ${selectById};
+    }
+</#if>
+<#if batchLoader>
+
+    /**
+     * 不在事务中时经由批量加载器与其他线程的查询合并, 事务中直接查询, 以读到本事务的修改
+     * 加载器同一时刻只执行一条查询, 吞吐上限见 BatchLoader
+     */
+    private T loadById(Integer id) {
+        if (loader == null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return mapper.selectByPrimaryKey(id);
+        }
+        return loader.load(id);
+    }
+
+    /**
+     * 批量加载器, 可获取合并的请求数和实际查询数, 未开启时为 null
+     */
+    public BatchLoader<T> getLoader() {
+        return loader;
+    }
+</#if>
 
     @SuppressWarnings("unchecked")
 	public T findBy(String fieldName, Object value) throws TooManyResultsException {
+        T model;
         try {
-            T model = modelClass.newInstance();
+            model = (T) getConstructor().invokeExact();
+            getFieldSetter(fieldName).invokeExact((Object) model, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException("查询操作异常!", e);
+        }
+        return mapper.selectOne(model);
+    }
+
+    /**
+     * 获取实体类无参构造器, 返回值适配为 Object 以便 invokeExact
+     */
+    private MethodHandle getConstructor() throws ReflectiveOperationException {
+        if (constructor == null) {
+            constructor = MethodHandles.publicLookup().findConstructor(modelClass, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+        }
+        return constructor;
+    }
+
+    /**
+     * 获取字段 setter, 参数适配为 (Object, Object) 以便 invokeExact
+     */
+    private MethodHandle getFieldSetter(String fieldName) throws ReflectiveOperationException {
+        MethodHandle setter = fieldSetters.get(fieldName);
+        if (setter == null) {
             Field field = modelClass.getDeclaredField(fieldName);
             field.setAccessible(true);
-            field.set(model, value);
-            return mapper.selectOne(model);
-        } catch (ReflectiveOperationException e) {
-            throw new RuntimeException("查询操作异常!");
+            setter = MethodHandles.lookup().unreflectSetter(field)
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+            fieldSetters.putIfAbsent(fieldName, setter);
         }
+        return setter;
     }
 
     public List<T> findByIds(String ids) {
         return mapper.selectByIds(ids);
     }
 
+<#if idsChunkSize gt 0>
+    /**
+     * 分批查询后按批次顺序合并, 重复的主键只查询一次, 所有批次在同一只读事务和 SqlSession 中执行
+     */
+    @Transactional(readOnly = true)
+    public List<T> findByIds(Collection<Long> ids) {
+        List<T> models = new ArrayList<>(ids.size());
+        for (List<Long> chunk : idChunks(ids)) {
+            models.addAll(mapper.selectByIdList(chunk));
+        }
+        return models;
+    }
+
+    @Transactional(readOnly = true)
+    public List<T> findByIds(long[] ids) {
+        return findByIds(idList(ids));
+    }
+
+</#if>
     public List<T> findByCondition(Condition condition) {
         return mapper.selectByCondition(condition);
     }
@@ -75,4 +426,218 @@ public abstract class ${AbstractServiceName}<T> {
     public List<T> findAll() {
         return mapper.selectAll();
     }
+<#if pageCount>
+
+    /**
+     * 分页查询, 不执行 COUNT(*)
+     */
+    public List<T> findPageWithoutCount(int page, int size) {
+        PageHelper.startPage(page, size, false);
+        return findAll();
+    }
+
+    /**
+     * 缓存的总行数, 超过 countTtlMillis 后重新 COUNT(*), 同一时刻只有一个线程刷新
+     */
+    public long countCached() {
+        long[] snapshot = countSnapshot;
+        if (snapshot == null || System.currentTimeMillis() - snapshot[1] >= countTtlMillis) {
+            synchronized (countLock) {
+                snapshot = countSnapshot;
+                if (snapshot == null || System.currentTimeMillis() - snapshot[1] >= countTtlMillis) {
+                    snapshot = new long[]{mapper.selectCountByCondition(new Condition(modelClass)), System.currentTimeMillis()};
+                    countSnapshot = snapshot;
+                }
+            }
+        }
+        return snapshot[0];
+    }
+<#if estimateCount>
+
+    /**
+     * 表统计信息中的估算行数, 不扫描数据, 没有统计信息时使用 countCached
+     */
+    public long countEstimated() {
+        Long rows = mapper.estimateCount();
+        return rows == null ? countCached() : rows;
+    }
+</#if>
+</#if>
+<#if streamExport>
+
+    /**
+     * 在单独的 SqlSession 中按游标读取全表, 游标在方法返回前关闭, 不经过实体缓存
+     * 在 Spring 事务中时使用事务的连接, 能读到本事务未提交的修改
+     */
+    @SuppressWarnings("unchecked")
+    public long streamAll(Consumer<? super T> consumer) {
+        long rows = 0;
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Cursor<T> cursor = ((StreamMapper<T>) session.getMapper(mapperInterface())).selectAllCursor()) {
+            for (T model : cursor) {
+                consumer.accept(model);
+                rows++;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("查询操作异常!", e);
+        }
+        return rows;
+    }
+</#if>
+<#if batchStrategy == "batch" || streamExport>
+
+    /**
+     * 在 MyBatis 注册的 Mapper 中查找继承 ${MapperName}<当前实体> 的接口, 用于单独打开的 SqlSession
+     * 注入的 mapper 是代理对象, 不能依赖它实现的接口顺序
+     */
+    private Class<?> mapperInterface() {
+        if (mapperInterface == null) {
+            for (Class<?> type : sqlSessionFactory.getConfiguration().getMapperRegistry().getMappers()) {
+                for (Type superType : type.getGenericInterfaces()) {
+                    if (superType instanceof ParameterizedType
+                            && ((ParameterizedType) superType).getRawType() == ${MapperName}.class
+                            && ((ParameterizedType) superType).getActualTypeArguments()[0] == modelClass) {
+                        mapperInterface = type;
+                    }
+                }
+            }
+            if (mapperInterface == null) {
+                throw new RuntimeException("没有找到 " + modelClass.getName() + " 的 Mapper 接口!");
+            }
+        }
+        return mapperInterface;
+    }
+</#if>
+<#if keysetPagination>
+
+    public List<T> findAfter(Long lastId, int limit) {
+        return mapper.selectAfter(lastId, limit);
+    }
+</#if>
+<#if asyncController>
+
+    public CompletableFuture<Void> saveAsync(T model) {
+        return CompletableFuture.runAsync(() -> save(model), dbExecutor);
+    }
+
+    public CompletableFuture<Void> deleteByIdAsync(Integer id) {
+        return CompletableFuture.runAsync(() -> deleteById(id), dbExecutor);
+    }
+
+    public CompletableFuture<Void> updateAsync(T model) {
+        return CompletableFuture.runAsync(() -> update(model), dbExecutor);
+    }
+
+    public CompletableFuture<T> findByIdAsync(Integer id) {
+        return CompletableFuture.supplyAsync(() -> findById(id), dbExecutor);
+    }
+
+    public CompletableFuture<List<T>> findPageAsync(int page, int size) {
+        return CompletableFuture.supplyAsync(() -> {
+            PageHelper.startPage(page, size);
+            return findAll();
+        }, dbExecutor);
+    }
+<#if keysetPagination>
+
+    public CompletableFuture<List<T>> findAfterAsync(Long lastId, int limit) {
+        return CompletableFuture.supplyAsync(() -> findAfter(lastId, limit), dbExecutor);
+    }
+</#if>
+<#if pageCount>
+
+    public CompletableFuture<List<T>> findPageWithoutCountAsync(int page, int size) {
+        return CompletableFuture.supplyAsync(() -> findPageWithoutCount(page, size), dbExecutor);
+    }
+
+    public CompletableFuture<Long> countCachedAsync() {
+        return CompletableFuture.supplyAsync(this::countCached, dbExecutor);
+    }
+<#if estimateCount>
+
+    public CompletableFuture<Long> countEstimatedAsync() {
+        return CompletableFuture.supplyAsync(this::countEstimated, dbExecutor);
+    }
+</#if>
+</#if>
+</#if>
+<#if idsChunkSize gt 0>
+
+    /**
+     * 去重后按 idsChunkSize 切分主键, 空集合返回空列表, 不执行查询
+     */
+    private List<List<Long>> idChunks(Collection<Long> ids) {
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += idsChunkSize) {
+            chunks.add(distinct.subList(from, Math.min(from + idsChunkSize, distinct.size())));
+        }
+        return chunks;
+    }
+
+    private static List<Long> idList(long[] ids) {
+        List<Long> list = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+</#if>
+<#if entityCache>
+
+    /**
+     * 实体缓存, 可获取命中, 未命中和淘汰次数, 未开启缓存时为 null
+     */
+    public EntityCache<T> getCache() {
+        return cache;
+    }
+
+    /**
+     * 实体的缓存键, 开启缓存的子类返回主键值
+     * @return 为 null 时实体还没有主键, 不会在缓存中
+     */
+    protected Object cacheKey(T model) {
+        return null;
+    }
+
+    private void evict(T model) {
+        evictAll(Collections.singletonList(model));
+    }
+
+    private void evictAll(List<T> models) {
+        if (cache == null) {
+            return;
+        }
+        List<Object> keys = new ArrayList<>(models.size());
+        for (T model : models) {
+            Object key = cacheKey(model);
+            if (key != null) {
+                keys.add(key);
+            }
+        }
+        invalidate(keys);
+    }
+
+    /**
+     * 使缓存的实体失效, 在事务中时延迟到提交之后, 回滚时不失效
+     * 提交前失效的话, 其他线程会在提交前把旧数据重新读入缓存
+     */
+    private void invalidate(Collection<?> ids) {
+        if (cache == null || ids.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.invalidateAll(ids);
+            return;
+        }
+        EntityCache<T> entityCache = cache;
+        List<Object> keys = new ArrayList<>(ids);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                entityCache.invalidateAll(keys);
+            }
+        });
+    }
+</#if>
 }
\ No newline at end of file
@@ -0,0 +1,186 @@
+package ${basePackage}.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 按主键查询的批量加载器, 合并并发的 findById 为一条 selectByIds
+ * 同一时刻每个加载器最多执行一条查询, 查询执行期间到达的请求排队, 由其中一个等待的调用方合并后一次查询
+ * 只有一个调用方时直接查询, 不增加延迟; windowMillis 大于 0 时每次查询前再等待一段时间收集请求
+ * 吞吐上限: 每个实体的加载器同一时刻只有一条查询, windowMillis 在每次查询前串行等待,
+ * 每秒最多 1000 / (windowMillis + 查询耗时ms) 次查询, 每次最多 maxBatchSize 个主键, 超出的请求排队等待后续查询
+ * Auto Generated by ${author} on ${date}.
+ */
+public class BatchLoader<T> {
+
+    private final Function<String, List<T>> loader;    // 按逗号分隔的主键查询
+    private final Function<T, Object> keyFunction;    // 实体的主键
+    private final long windowMillis;    // 每次查询前收集请求的时间(ms)
+    private final int maxBatchSize;    // 每次查询的最大请求数
+
+    private final List<Request<T>> pending = new ArrayList<>();    // 等待查询的请求, 按到达顺序排列
+
+    private boolean running;    // 是否有调用方正在查询
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    /**
+     * @param loader 按逗号分隔的主键查询, eg: ids -> mapper.selectByIds(ids)
+     * @param keyFunction 实体的主键
+     * @param windowMillis 每次查询前收集请求的时间(ms), 为 0 时只合并查询执行期间到达的请求
+     * @param maxBatchSize 每次查询的最大请求数
+     */
+    public BatchLoader(Function<String, List<T>> loader, Function<T, Object> keyFunction, long windowMillis, int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize 必须大于 0");
+        }
+        this.loader = loader;
+        this.keyFunction = keyFunction;
+        this.windowMillis = Math.max(0, windowMillis);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * 按主键获取实体, 与其他线程的请求合并查询
+     * @param id 主键, 必须为数值
+     * @return 不存在时为 null
+     */
+    public T load(Object id) {
+        Request<T> request = new Request<>(String.valueOf(id));
+        boolean interrupted = false;
+        requests.increment();
+        synchronized (this) {
+            pending.add(request);
+        }
+        while (true) {
+            synchronized (this) {
+                while (!request.done && running) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        // 请求可能已被其他调用方取走, 等待查询结束后再恢复中断状态
+                        interrupted = true;
+                    }
+                }
+                if (request.done) {
+                    break;
+                }
+                running = true;
+            }
+            interrupted |= run();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return request.get();
+    }
+
+    /**
+     * 等待收集窗口后取出排队的请求并查询, 结束后唤醒等待的调用方
+     * @return 等待期间是否被中断
+     */
+    private boolean run() {
+        boolean interrupted = false;
+        List<Request<T>> batch;
+        try {
+            if (windowMillis > 0) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(windowMillis);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            synchronized (this) {
+                List<Request<T>> head = pending.subList(0, Math.min(maxBatchSize, pending.size()));
+                batch = new ArrayList<>(head);
+                head.clear();
+            }
+            dispatch(batch);
+        } finally {
+            synchronized (this) {
+                running = false;
+                notifyAll();
+            }
+        }
+        return interrupted;
+    }
+
+    /**
+     * 去重后一次查询, 按主键把结果交给各请求, 查询失败时所有请求抛出同一异常
+     */
+    private void dispatch(List<Request<T>> batch) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (Request<T> request : batch) {
+            keys.add(request.key);
+        }
+        Map<String, T> models = new HashMap<>();
+        Throwable error = null;
+        try {
+            batches.increment();
+            for (T model : loader.apply(String.join(",", keys))) {
+                models.put(String.valueOf(keyFunction.apply(model)), model);
+            }
+        } catch (Throwable e) {
+            error = e;
+        }
+        synchronized (this) {
+            for (Request<T> request : batch) {
+                request.value = models.get(request.key);
+                request.error = error;
+                request.done = true;
+            }
+        }
+    }
+
+    /**
+     * 已合并的请求数
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * 实际执行的查询数
+     */
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "BatchLoader{requests=" + getRequestCount() + ", batches=" + getBatchCount() + "}";
+    }
+
+    private static class Request<T> {
+        final String key;
+        // 以下字段在加载器的锁内读写
+        T value;
+        Throwable error;
+        boolean done;
+
+        Request(String key) {
+            this.key = key;
+        }
+
+        T get() {
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            if (error instanceof Error) {
+                throw (Error) error;
+            }
+            if (error != null) {
+                throw new RuntimeException("查询操作异常!", error);
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package ${basePackage}.service;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+<#if asyncVirtualThreads>
+import java.util.concurrent.Executors;
+</#if>
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步 Service 方法使用的数据库执行器, 数据库调用不再占用 Servlet 线程
+<#if asyncVirtualThreads>
+ * JDK 21 及以上使用虚拟线程, 并发由数据库连接池限制; 低版本 JDK 使用有界线程池
+<#else>
+ * 有界线程池, 线程数不应超过数据库连接池大小
+</#if>
+ * Auto Generated by ${author} on ${date}.
+ */
+@Configuration
+public class DbExecutorConfig {
+
+    private static final int POOL_SIZE = ${asyncPoolSize?c};
+    private static final int QUEUE_CAPACITY = ${asyncQueueCapacity?c};
+
+    @Bean(name = "dbExecutor", destroyMethod = "shutdown")
+    public ExecutorService dbExecutor() {
+<#if asyncVirtualThreads>
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // 当前 JDK 不支持虚拟线程
+        }
+</#if>
+        final AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "db-executor-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+        // 队列满时由调用线程执行, 退化为同步调用而不是拒绝请求
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY), threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,25 @@
+package ${basePackage}.dao;
+
+/**
+* 跟踪修改字段的实体, 由生成的实体实现, setter 记录修改过的非主键字段
+* 从数据库读取的实体由 DirtyTrackingInterceptor 清除标记, 更新成功后由 Service 清除
+* Auto Generated by ${author} on ${date}.
+*/
+public interface DirtyTracking {
+
+    /**
+     * 非主键字段自读取或上次更新后是否被修改
+     * @param index 非主键字段的序号, 与 XML 中 updateDirtyByPrimaryKey 的 isDirty(n) 一致
+     */
+    boolean isDirty(int index);
+
+    /**
+     * 是否有修改过的非主键字段
+     */
+    boolean hasDirtyFields();
+
+    /**
+     * 清除修改标记
+     */
+    void clearDirtyFields();
+}
@@ -0,0 +1,44 @@
+package ${basePackage}.dao;
+
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+
+/**
+* 清除查询结果中实体的修改标记, MyBatis 通过 setter 填充实体, 读取后的实体应视为未修改
+* 需注册为 MyBatis 插件 (mybatis-config.xml 的 plugins 或 SqlSessionFactoryBean.setPlugins)
+* 游标查询的结果不经过此插件, 逐行读取的实体仍带有修改标记
+* Auto Generated by ${author} on ${date}.
+*/
+@Intercepts(@Signature(type = ResultSetHandler.class, method = "handleResultSets", args = Statement.class))
+public class DirtyTrackingInterceptor implements Interceptor {
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        if (result instanceof List) {
+            for (Object row : (List<?>) result) {
+                if (row instanceof DirtyTracking) {
+                    ((DirtyTracking) row).clearDirtyFields();
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+}
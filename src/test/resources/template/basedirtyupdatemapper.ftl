@@ -0,0 +1,15 @@
+package ${basePackage}.dao;
+
+/**
+* 只更新修改字段的 Mapper, 由 ${MapperName} 继承, SQL 生成在各表的 XML 中
+* Auto Generated by ${author} on ${date}.
+*/
+public interface DirtyUpdateMapper<T> {
+
+    /**
+     * 按主键更新实体中修改过的字段, 包括被修改为 null 的字段
+     * 实体需实现 DirtyTracking 且至少有一个修改过的字段, 否则 SET 为空
+     * @return 更新的行数
+     */
+    int updateDirtyByPrimaryKey(T record);
+}
@@ -0,0 +1,158 @@
+package ${basePackage}.service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 进程内实体缓存, 条数超出上限时淘汰最近最少使用的实体, 可选过期时间
+ * AbstractService 在 findById 时读穿缓存, 在 update, upsert, deleteById, deleteByIds 的事务提交后失效; 新插入的实体不在缓存中, 不失效
+ * 只感知经由 Service 的写入, 直接通过 Mapper 或其他进程的修改依赖过期时间兜底
+ * 主键按字符串比较, 缓存的实体只读: 所有调用方拿到同一个实体对象, 修改会污染缓存, 需要修改时先复制
+ * Auto Generated by ${author} on ${date}.
+ */
+public class EntityCache<T> {
+
+    private final int maxSize;    // 最大条数
+    private final long ttlNanos;    // 过期时间, 小于等于 0 时不过期
+
+    private final Map<String, Entry<T>> entries;    // 按访问顺序排列, 最久未访问的在前
+
+    private long version;    // 每次失效加一, 读库期间发生过失效时不写入缓存, 避免写入旧数据
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxSize 最大条数
+     * @param ttlSeconds 过期时间(s), 小于等于 0 时只按条数淘汰
+     */
+    public EntityCache(int maxSize, long ttlSeconds) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize 必须大于 0");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = new LinkedHashMap<String, Entry<T>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<T>> eldest) {
+                if (size() > EntityCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 获取缓存的实体, 返回的实体只读
+     * @param id 主键
+     * @return 未缓存或已过期时为 null
+     */
+    public synchronized T get(Object id) {
+        String key = String.valueOf(id);
+        Entry<T> entry = entries.get(key);
+        if (entry != null && entry.isExpired()) {
+            entries.remove(key);
+            evictions.increment();
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * 当前版本, 读库前获取, 写入缓存时传给 put
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * 写入读库结果, 读库期间发生过失效时忽略
+     * @param id 主键
+     * @param model 实体, 为 null 时不缓存
+     * @param version 读库前获取的版本
+     */
+    public synchronized void put(Object id, T model, long version) {
+        if (model == null || version != this.version) {
+            return;
+        }
+        entries.put(String.valueOf(id), new Entry<>(model, ttlNanos > 0 ? System.nanoTime() + ttlNanos : 0));
+    }
+
+    /**
+     * 使某个实体失效
+     * @param id 主键
+     */
+    public synchronized void invalidate(Object id) {
+        entries.remove(String.valueOf(id));
+        version++;
+    }
+
+    /**
+     * 使一批实体失效
+     * @param ids 主键
+     */
+    public synchronized void invalidateAll(Collection<?> ids) {
+        for (Object id : ids) {
+            entries.remove(String.valueOf(id));
+        }
+        version++;
+    }
+
+    /**
+     * 使所有实体失效
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        version++;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * 因超出条数或过期被淘汰的次数, 不含主动失效
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "EntityCache{size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+                + ", evictions=" + getEvictionCount() + "}";
+    }
+
+    private static class Entry<T> {
+        final T value;
+        final long expireAt;    // System.nanoTime 时间, 为 0 时不过期
+
+        Entry(T value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+
+        boolean isExpired() {
+            return expireAt != 0 && System.nanoTime() - expireAt >= 0;
+        }
+    }
+}
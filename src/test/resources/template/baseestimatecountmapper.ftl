@@ -0,0 +1,17 @@
+package ${basePackage}.dao;
+
+import org.apache.ibatis.annotations.SelectProvider;
+
+/**
+* 估算行数 Mapper, 由 ${MapperName} 继承, 读取表统计信息而不扫描数据
+* Auto Generated by ${author} on ${date}.
+*/
+public interface EstimateCountMapper<T> {
+
+    /**
+     * 表统计信息中的行数 (MySQL information_schema.TABLES.TABLE_ROWS), InnoDB 下误差可达 40% 以上
+     * @return 没有统计信息时为 null
+     */
+    @SelectProvider(type = EstimateCountProvider.class, method = "dynamicSQL")
+    Long estimateCount();
+}
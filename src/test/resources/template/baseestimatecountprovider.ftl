@@ -0,0 +1,23 @@
+package ${basePackage}.dao;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import tk.mybatis.mapper.mapperhelper.EntityHelper;
+import tk.mybatis.mapper.mapperhelper.MapperHelper;
+import tk.mybatis.mapper.mapperhelper.MapperTemplate;
+
+/**
+* EstimateCountMapper 的 SQL 提供者, 按实体对应的表名查询当前库的表统计信息
+* Auto Generated by ${author} on ${date}.
+*/
+public class EstimateCountProvider extends MapperTemplate {
+
+    public EstimateCountProvider(Class<?> mapperClass, MapperHelper mapperHelper) {
+        super(mapperClass, mapperHelper);
+    }
+
+    public String estimateCount(MappedStatement ms) {
+        String table = EntityHelper.getEntityTable(getEntityClass(ms)).getName();
+        return "SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = '"
+                + table.replace("'", "''") + "'";
+    }
+}
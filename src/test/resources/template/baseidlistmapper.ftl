@@ -0,0 +1,32 @@
+package ${basePackage}.dao;
+
+import org.apache.ibatis.annotations.DeleteProvider;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.SelectProvider;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+* 主键集合 Mapper, 由 ${MapperName} 继承, 主键以参数绑定, 不需要拼接和解析逗号分隔的字符串
+* 单次 IN 列表的长度由调用方控制, AbstractService 按 idChunkSize 分批调用
+* Auto Generated by ${author} on ${date}.
+*/
+public interface IdListMapper<T> {
+
+    /**
+     * 通过主键集合查询: WHERE id IN (?, ?, ...)
+     * @param ids 主键集合, 不能为空
+     * @return
+     */
+    @SelectProvider(type = IdListProvider.class, method = "dynamicSQL")
+    List<T> selectByIdList(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 通过主键集合删除: WHERE id IN (?, ?, ...)
+     * @param ids 主键集合, 不能为空
+     * @return 删除的行数
+     */
+    @DeleteProvider(type = IdListProvider.class, method = "dynamicSQL")
+    int deleteByIdList(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,49 @@
+package ${basePackage}.dao;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import tk.mybatis.mapper.MapperException;
+import tk.mybatis.mapper.entity.EntityColumn;
+import tk.mybatis.mapper.mapperhelper.EntityHelper;
+import tk.mybatis.mapper.mapperhelper.MapperHelper;
+import tk.mybatis.mapper.mapperhelper.MapperTemplate;
+import tk.mybatis.mapper.mapperhelper.SqlHelper;
+
+import java.util.Set;
+
+/**
+* IdListMapper 的 SQL 提供者, 按实体的主键生成 IN 语句, 主键逐个绑定为参数
+* Auto Generated by ${author} on ${date}.
+*/
+public class IdListProvider extends MapperTemplate {
+
+    public IdListProvider(Class<?> mapperClass, MapperHelper mapperHelper) {
+        super(mapperClass, mapperHelper);
+    }
+
+    public String selectByIdList(MappedStatement ms) {
+        Class<?> entityClass = getEntityClass(ms);
+        setResultType(ms, entityClass);
+        StringBuilder sql = new StringBuilder();
+        sql.append(SqlHelper.selectAllColumns(entityClass));
+        sql.append(SqlHelper.fromTable(entityClass, tableName(entityClass)));
+        sql.append(whereIdIn(entityClass));
+        return sql.toString();
+    }
+
+    public String deleteByIdList(MappedStatement ms) {
+        Class<?> entityClass = getEntityClass(ms);
+        StringBuilder sql = new StringBuilder();
+        sql.append(SqlHelper.deleteFromTable(entityClass, tableName(entityClass)));
+        sql.append(whereIdIn(entityClass));
+        return sql.toString();
+    }
+
+    private String whereIdIn(Class<?> entityClass) {
+        Set<EntityColumn> pkColumns = EntityHelper.getPKColumns(entityClass);
+        if (pkColumns.size() != 1) {
+            throw new MapperException(entityClass.getName() + " 不是单列主键, 不能通过主键集合操作!");
+        }
+        return " WHERE " + pkColumns.iterator().next().getColumn()
+                + " IN <foreach collection=\"ids\" item=\"id\" open=\"(\" separator=\",\" close=\")\">${r"#{id}"}</foreach>";
+    }
+}
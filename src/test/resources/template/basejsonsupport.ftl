@@ -0,0 +1,77 @@
+package ${basePackage}.model;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * 生成的 JsonWriter 共用的 JSON 输出方法, 直接写入 Writer, 不创建中间对象
+ * Auto Generated by ${author} on ${date}.
+ */
+public final class JsonSupport {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private JsonSupport() {
+    }
+
+    /**
+     * 输出 JSON 字符串, 转义引号, 反斜杠和控制字符
+     * @param value 为 null 时输出 null
+     * @param out
+     * @throws IOException
+     */
+    public static void writeString(CharSequence value, Writer out) throws IOException {
+        if (value == null) {
+            out.write("null");
+            return;
+        }
+        out.write('"');
+        int length = value.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            if (start < i) {
+                out.append(value, start, i);
+            }
+            start = i + 1;
+            switch (c) {
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                default:
+                    out.write("\\u00");
+                    out.write(HEX[c >> 4]);
+                    out.write(HEX[c & 0xF]);
+            }
+        }
+        if (start < length) {
+            out.append(value, start, length);
+        }
+        out.write('"');
+    }
+
+    /**
+     * 输出数值或布尔值
+     * @param value 为 null 时输出 null
+     * @param out
+     * @throws IOException
+     */
+    public static void writeValue(Object value, Writer out) throws IOException {
+        out.write(value == null ? "null" : value.toString());
+    }
+}
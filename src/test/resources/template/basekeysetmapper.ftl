@@ -0,0 +1,22 @@
+package ${basePackage}.dao;
+
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.SelectProvider;
+
+import java.util.List;
+
+/**
+* 键集分页 Mapper, 由 ${MapperName} 继承, 按主键顺序翻页, 不需要 OFFSET 和 COUNT
+* Auto Generated by ${author} on ${date}.
+*/
+public interface KeysetMapper<T> {
+
+    /**
+     * 按主键升序读取 lastId 之后的数据: WHERE id > ? ORDER BY id LIMIT ?
+     * @param lastId 上一页最后一条数据的主键, 为 null 时从第一条开始
+     * @param limit 读取条数
+     * @return
+     */
+    @SelectProvider(type = KeysetProvider.class, method = "dynamicSQL")
+    List<T> selectAfter(@Param("lastId") Long lastId, @Param("limit") int limit);
+}
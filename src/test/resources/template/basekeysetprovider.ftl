@@ -0,0 +1,38 @@
+package ${basePackage}.dao;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import tk.mybatis.mapper.MapperException;
+import tk.mybatis.mapper.entity.EntityColumn;
+import tk.mybatis.mapper.mapperhelper.EntityHelper;
+import tk.mybatis.mapper.mapperhelper.MapperHelper;
+import tk.mybatis.mapper.mapperhelper.MapperTemplate;
+import tk.mybatis.mapper.mapperhelper.SqlHelper;
+
+import java.util.Set;
+
+/**
+* KeysetMapper 的 SQL 提供者, 按实体的主键生成键集分页语句, 查询走主键索引
+* Auto Generated by ${author} on ${date}.
+*/
+public class KeysetProvider extends MapperTemplate {
+
+    public KeysetProvider(Class<?> mapperClass, MapperHelper mapperHelper) {
+        super(mapperClass, mapperHelper);
+    }
+
+    public String selectAfter(MappedStatement ms) {
+        Class<?> entityClass = getEntityClass(ms);
+        setResultType(ms, entityClass);
+        Set<EntityColumn> pkColumns = EntityHelper.getPKColumns(entityClass);
+        if (pkColumns.size() != 1) {
+            throw new MapperException(entityClass.getName() + " 不是单列主键, 不能使用键集分页!");
+        }
+        String pk = pkColumns.iterator().next().getColumn();
+        StringBuilder sql = new StringBuilder();
+        sql.append(SqlHelper.selectAllColumns(entityClass));
+        sql.append(SqlHelper.fromTable(entityClass, tableName(entityClass)));
+        sql.append("<if test=\"lastId != null\">WHERE ").append(pk).append(" &gt; ${r"#{lastId}"} </if>");
+        sql.append("ORDER BY ").append(pk).append(" LIMIT ${r"#{limit}"}");
+        return sql.toString();
+    }
+}
@@ -9,6 +9,6 @@ import tk.mybatis.mapper.common.special.InsertListMapper;
 * 通用 Mapper, 如果被扫描到会报异常
 * Auto Generated by ${author} on ${date}.
 */
-public interface ${MapperName}<T> extends BaseMapper<T>, ConditionMapper<T>, IdsMapper<T>, InsertListMapper<T> {
+public interface ${MapperName}<T> extends BaseMapper<T>, ConditionMapper<T>, IdsMapper<T>, InsertListMapper<T><#if keysetPagination>, KeysetMapper<T></#if><#if streamExport>, StreamMapper<T></#if><#if idsChunkSize gt 0>, IdListMapper<T></#if><#if estimateCount>, EstimateCountMapper<T></#if><#if dirtyTracking>, DirtyUpdateMapper<T></#if><#if upsert>, UpsertMapper<T></#if> {
 
 }
\ No newline at end of file
@@ -3,7 +3,13 @@ package ${basePackage}.service;
 import org.apache.ibatis.exceptions.TooManyResultsException;
 import tk.mybatis.mapper.entity.Condition;
 
+<#if idsChunkSize gt 0>
+import java.util.Collection;
+</#if>
 import java.util.List;
+<#if streamExport>
+import java.util.function.Consumer;
+</#if>
 
 /**
 * Service 层 基础接口，其他Service 接口 请继承该接口
@@ -22,6 +28,40 @@ public interface ${ServiceName}<T> {
      * @param models
      */
     void save(List<T> models);
+<#if streamExport>
+
+    /**
+     * 按数据库游标逐行读取全表, 内存占用与表大小无关
+     * @param consumer 在当前线程中依次处理每一行
+     * @return 读取的行数
+     */
+    long streamAll(Consumer<? super T> consumer);
+</#if>
+<#if batchSize gt 0>
+
+    /**
+     * 分批插入数据, 每批条数和方式由生成时的 template.batch.* 配置决定
+     * @param models
+     * @return 每批写入的行数
+     */
+    List<Integer> saveInChunks(List<T> models);
+</#if>
+<#if upsert>
+
+    /**
+     * 插入或更新, 主键或唯一索引冲突时更新全部非主键字段, 包括 null 字段
+     * @param model
+     * @return 数据库返回的影响行数
+     */
+    int upsert(T model);
+
+    /**
+     * 分批插入或更新, 每批一条多行语句, 所有批次在同一事务中执行
+     * @param models
+     * @return 各批影响行数之和
+     */
+    int upsertAll(List<T> models);
+</#if>
 
     /**
      * 通过主鍵刪除
@@ -34,6 +74,22 @@ public interface ${ServiceName}<T> {
      * @param ids eg：ids -> "1,2,3,4"
      */
     void deleteByIds(String ids);
+<#if idsChunkSize gt 0>
+
+    /**
+     * 通过主键集合刪除, 超过 IN 列表长度上限时分批执行
+     * @param ids
+     * @return 删除的行数
+     */
+    int deleteByIds(Collection<Long> ids);
+
+    /**
+     * 通过主键数组刪除, 超过 IN 列表长度上限时分批执行
+     * @param ids
+     * @return 删除的行数
+     */
+    int deleteByIds(long[] ids);
+</#if>
 
     /**
      * 更新
@@ -63,6 +119,22 @@ public interface ${ServiceName}<T> {
     * @return
     */
     List<T> findByIds(String ids);
+<#if idsChunkSize gt 0>
+
+    /**
+     * 通过主键集合查找, 超过 IN 列表长度上限时分批查询后合并
+     * @param ids
+     * @return
+     */
+    List<T> findByIds(Collection<Long> ids);
+
+    /**
+     * 通过主键数组查找, 超过 IN 列表长度上限时分批查询后合并
+     * @param ids
+     * @return
+     */
+    List<T> findByIds(long[] ids);
+</#if>
 
     /**
     * 根据条件查找
@@ -76,4 +148,38 @@ public interface ${ServiceName}<T> {
     * @return
     */
     List<T> findAll();
+<#if pageCount>
+
+    /**
+    * 分页查询, 不执行 COUNT(*)
+    * @param page 页码
+    * @param size 每页条数
+    * @return
+    */
+    List<T> findPageWithoutCount(int page, int size);
+
+    /**
+    * 总行数, 缓存一段时间后重新 COUNT(*), 期间的写入不会反映在结果中
+    * @return
+    */
+    long countCached();
+<#if estimateCount>
+
+    /**
+    * 表统计信息中的估算行数, 不扫描数据
+    * @return
+    */
+    long countEstimated();
+</#if>
+</#if>
+<#if keysetPagination>
+
+    /**
+    * 键集分页, 按主键升序获取 lastId 之后的数据, 翻页耗时与页码无关
+    * @param lastId 上一页最后一条数据的主键, 为 null 时获取第一页
+    * @param limit 每页条数
+    * @return
+    */
+    List<T> findAfter(Long lastId, int limit);
+</#if>
 }
\ No newline at end of file
@@ -0,0 +1,309 @@
+package ${basePackage}.dao;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+* 按 MappedStatement 编号统计 SQL 执行次数, 失败次数, 返回或影响的行数和耗时分布
+* 计数使用 LongAdder, 记录时不加锁; 耗时按微秒以 2 的幂分桶, 分位数取桶的上界, 误差在 2 倍以内
+* 通过 getStatistics 读取, 可注册为 JMX MXBean; 游标查询只统计打开游标的耗时
+* Auto Generated by ${author} on ${date}.
+*/
+@Intercepts({
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "queryCursor", args = {MappedStatement.class, Object.class, RowBounds.class}),
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class})
+})
+public class StatementMetricsInterceptor implements Interceptor, StatementMetricsMXBean {
+
+    public static final String DEFAULT_JMX_NAME = "${basePackage}:type=StatementMetrics";
+
+    // 耗时分桶数, 第 i 个桶为 [2^(i-1), 2^i) 微秒, 最后一个桶包含更长的耗时
+    private static final int BUCKETS = 32;
+
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private volatile ObjectName registeredName;    // 已注册的 JMX 名称, 未注册时为 null
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable e) {
+            counter(ms.getId()).record(System.nanoTime() - start, 0, true);
+            throw e;
+        }
+        long rows = 0;
+        if (result instanceof List) {
+            rows = ((List<?>) result).size();
+        } else if (result instanceof Integer && (Integer) result > 0) {
+            // BATCH 执行器返回负数, 不计入
+            rows = (Integer) result;
+        }
+        counter(ms.getId()).record(System.nanoTime() - start, rows, false);
+        return result;
+    }
+
+    private Counter counter(String statementId) {
+        Counter counter = counters.get(statementId);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(statementId, id -> new Counter());
+        }
+        return counter;
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    /**
+     * 插件属性 jmx 为 true 时注册 JMX, jmxName 为注册名称, 默认为 DEFAULT_JMX_NAME
+     */
+    @Override
+    public void setProperties(Properties properties) {
+        if (Boolean.parseBoolean(properties.getProperty("jmx"))) {
+            registerMBean(properties.getProperty("jmxName", DEFAULT_JMX_NAME));
+        }
+    }
+
+    /**
+     * 所有语句的统计快照
+     * @return 语句编号 ==> 统计, 按编号排序
+     */
+    @Override
+    public Map<String, StatementStats> getStatistics() {
+        Map<String, StatementStats> result = new TreeMap<>();
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().snapshot(entry.getKey()));
+        }
+        return result;
+    }
+
+    /**
+     * 单个语句的统计快照
+     * @param statementId 语句编号, eg: com.example.dao.UserMapper.selectByPrimaryKey
+     * @return 未执行过时为 null
+     */
+    @Override
+    public StatementStats getStatistics(String statementId) {
+        Counter counter = counters.get(statementId);
+        return counter == null ? null : counter.snapshot(statementId);
+    }
+
+    /**
+     * 清空统计, 与之并发的记录可能丢失
+     */
+    @Override
+    public void reset() {
+        counters.clear();
+    }
+
+    /**
+     * 注册到平台 MBeanServer
+     * @param name JMX 名称
+     */
+    public synchronized void registerMBean(String name) {
+        if (registeredName != null) {
+            return;
+        }
+        try {
+            ObjectName objectName = new ObjectName(name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            registeredName = objectName;
+        } catch (Exception e) {
+            throw new RuntimeException("注册 JMX 失败!", e);
+        }
+    }
+
+    /**
+     * 从平台 MBeanServer 注销, 未注册时忽略
+     */
+    public synchronized void unregisterMBean() {
+        if (registeredName == null) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(registeredName)) {
+                server.unregisterMBean(registeredName);
+            }
+            registeredName = null;
+        } catch (Exception e) {
+            throw new RuntimeException("注销 JMX 失败!", e);
+        }
+    }
+
+    /**
+     * 单个语句的计数器
+     */
+    private static class Counter {
+        final LongAdder count = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder rows = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+        final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+        Counter() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos, long rowCount, boolean error) {
+            count.increment();
+            if (error) {
+                errors.increment();
+            }
+            rows.add(rowCount);
+            totalNanos.add(nanos);
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+            int bucket = 64 - Long.numberOfLeadingZeros(nanos / 1000);
+            buckets[Math.min(bucket, BUCKETS - 1)].increment();
+        }
+
+        StatementStats snapshot(String statementId) {
+            long[] histogram = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram[i] = buckets[i].sum();
+            }
+            return new StatementStats(statementId, count.sum(), errors.sum(), rows.sum(), totalNanos.sum(),
+                    maxNanos.get(), histogram);
+        }
+    }
+
+    /**
+     * 语句统计快照, 各计数分别读取, 与并发的记录之间不保证完全一致
+     */
+    public static class StatementStats {
+        private final String statementId;
+        private final long count;
+        private final long errors;
+        private final long rows;
+        private final long totalNanos;
+        private final long maxNanos;
+        private final long[] histogram;
+
+        StatementStats(String statementId, long count, long errors, long rows, long totalNanos, long maxNanos, long[] histogram) {
+            this.statementId = statementId;
+            this.count = count;
+            this.errors = errors;
+            this.rows = rows;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.histogram = histogram;
+        }
+
+        public String getStatementId() {
+            return statementId;
+        }
+
+        /**
+         * 执行次数, 包括失败
+         */
+        public long getCount() {
+            return count;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        /**
+         * 查询返回和更新影响的总行数
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        public double getTotalMillis() {
+            return totalNanos / 1e6;
+        }
+
+        public double getMeanMillis() {
+            return count == 0 ? 0 : totalNanos / 1e6 / count;
+        }
+
+        public double getMaxMillis() {
+            return maxNanos / 1e6;
+        }
+
+        public double getP50Millis() {
+            return percentileMillis(50);
+        }
+
+        public double getP90Millis() {
+            return percentileMillis(90);
+        }
+
+        public double getP99Millis() {
+            return percentileMillis(99);
+        }
+
+        /**
+         * 耗时分布, 第 i 个元素为耗时在 [2^(i-1), 2^i) 微秒的次数, 第 0 个为不足 1 微秒
+         */
+        public long[] getHistogram() {
+            return histogram.clone();
+        }
+
+        /**
+         * 分位数所在桶的上界, 不超过最大耗时
+         * @param percentile 百分位, 0 - 100
+         */
+        public double percentileMillis(double percentile) {
+            long total = 0;
+            for (long n : histogram) {
+                total += n;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(total * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                seen += histogram[i];
+                if (seen >= Math.max(1, target)) {
+                    return Math.min((1L << i) / 1e3, getMaxMillis());
+                }
+            }
+            return getMaxMillis();
+        }
+
+        @Override
+        public String toString() {
+            return statementId + "{count=" + count + ", errors=" + errors + ", rows=" + rows
+                    + ", meanMs=" + getMeanMillis() + ", p99Ms=" + getP99Millis() + ", maxMs=" + getMaxMillis() + "}";
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package ${basePackage}.dao;
+
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+* 把 StatementMetricsInterceptor 加入容器中的所有 SqlSessionFactory, 所有 Mapper 无需额外代码即可统计
+* 已通过 plugins 配置的不再重复添加; 统计可注入 StatementMetricsInterceptor 后读取
+* Auto Generated by ${author} on ${date}.
+*/
+@Configuration
+public class StatementMetricsConfig {
+
+<#if statementMetricsJmx>
+    @Bean(destroyMethod = "unregisterMBean")
+    public static StatementMetricsInterceptor statementMetricsInterceptor() {
+        StatementMetricsInterceptor interceptor = new StatementMetricsInterceptor();
+        interceptor.registerMBean(StatementMetricsInterceptor.DEFAULT_JMX_NAME);
+        return interceptor;
+    }
+<#else>
+    @Bean
+    public static StatementMetricsInterceptor statementMetricsInterceptor() {
+        return new StatementMetricsInterceptor();
+    }
+</#if>
+
+    @Bean
+    public static BeanPostProcessor statementMetricsRegistrar(final StatementMetricsInterceptor interceptor) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof SqlSessionFactory) {
+                    org.apache.ibatis.session.Configuration configuration = ((SqlSessionFactory) bean).getConfiguration();
+                    synchronized (configuration) {
+                        for (Interceptor existing : configuration.getInterceptors()) {
+                            if (existing instanceof StatementMetricsInterceptor) {
+                                return bean;
+                            }
+                        }
+                        configuration.addInterceptor(interceptor);
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,27 @@
+package ${basePackage}.dao;
+
+import java.util.Map;
+
+import ${basePackage}.dao.StatementMetricsInterceptor.StatementStats;
+
+/**
+* StatementMetricsInterceptor 的 JMX 接口, 统计以 CompositeData 和 TabularData 形式读取
+* Auto Generated by ${author} on ${date}.
+*/
+public interface StatementMetricsMXBean {
+
+    /**
+     * 所有语句的统计快照
+     */
+    Map<String, StatementStats> getStatistics();
+
+    /**
+     * 单个语句的统计快照, 未执行过时为 null
+     */
+    StatementStats getStatistics(String statementId);
+
+    /**
+     * 清空统计
+     */
+    void reset();
+}
@@ -0,0 +1,23 @@
+package ${basePackage}.dao;
+
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.SelectProvider;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+/**
+* 流式查询 Mapper, 由 ${MapperName} 继承, 通过数据库游标逐行读取, 不把整张表放入内存
+* Auto Generated by ${author} on ${date}.
+*/
+public interface StreamMapper<T> {
+
+    /**
+     * 按游标读取全表, 排序同 selectAll
+     * fetchSize 为 Integer.MIN_VALUE 时 MySQL 驱动逐行返回, 其他驱动不支持; 为正数时 MySQL 需在 jdbc url 中开启 useCursorFetch=true
+     * 需在打开的 SqlSession 中遍历, 遍历结束后关闭
+     * @return
+     */
+    @SelectProvider(type = StreamProvider.class, method = "dynamicSQL")
+    @Options(fetchSize = ${streamFetchSize?c}, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<T> selectAllCursor();
+}
@@ -0,0 +1,27 @@
+package ${basePackage}.dao;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import tk.mybatis.mapper.mapperhelper.MapperHelper;
+import tk.mybatis.mapper.mapperhelper.MapperTemplate;
+import tk.mybatis.mapper.mapperhelper.SqlHelper;
+
+/**
+* StreamMapper 的 SQL 提供者, 语句与 selectAll 相同, 游标和 fetchSize 由 StreamMapper 上的注解设置
+* Auto Generated by ${author} on ${date}.
+*/
+public class StreamProvider extends MapperTemplate {
+
+    public StreamProvider(Class<?> mapperClass, MapperHelper mapperHelper) {
+        super(mapperClass, mapperHelper);
+    }
+
+    public String selectAllCursor(MappedStatement ms) {
+        Class<?> entityClass = getEntityClass(ms);
+        setResultType(ms, entityClass);
+        StringBuilder sql = new StringBuilder();
+        sql.append(SqlHelper.selectAllColumns(entityClass));
+        sql.append(SqlHelper.fromTable(entityClass, tableName(entityClass)));
+        sql.append(SqlHelper.orderByDefault(entityClass));
+        return sql.toString();
+    }
+}
@@ -0,0 +1,23 @@
+package ${basePackage}.dao;
+
+import java.util.List;
+
+/**
+* 插入或更新的 Mapper, 由 ${MapperName} 继承, SQL 生成在各表的 XML 中
+* MySQL 为 INSERT ... ON DUPLICATE KEY UPDATE, H2 (databaseId 为 h2) 为 MERGE INTO ... KEY (主键)
+* Auto Generated by ${author} on ${date}.
+*/
+public interface UpsertMapper<T> {
+
+    /**
+     * 插入实体, 主键或唯一索引冲突时更新全部非主键字段, 包括 null 字段; 不回填自增主键
+     * @return 数据库返回的影响行数, MySQL 插入计 1, 更新计 2
+     */
+    int upsert(T record);
+
+    /**
+     * 多行插入或更新, 一条语句, 列表不能为空
+     * @return 数据库返回的影响行数
+     */
+    int upsertList(List<T> records);
+}
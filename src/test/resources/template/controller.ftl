@@ -1,21 +1,69 @@
 <#if sign??>
 package ${basePackage}.controller.${sign};
 import ${basePackage}.model.${sign}.${modelNameUpperCamel};
+<#if jsonWriter>
+import ${basePackage}.model.${sign}.${modelNameUpperCamel}JsonWriter;
+</#if>
 import ${basePackage}.service.${sign}.${modelNameUpperCamel}Service;
 <#else>
 package ${basePackage}.controller;
 import ${basePackage}.model.${modelNameUpperCamel};
+<#if jsonWriter>
+import ${basePackage}.model.${modelNameUpperCamel}JsonWriter;
+</#if>
 import ${basePackage}.service.${modelNameUpperCamel}Service;
 </#if>
+<#if !asyncController>
+<#list projections as projection>
+import ${basePackage}.model.<#if sign??>${sign}.</#if>${projection.className};
+</#list>
+</#if>
+<#if streamExport && !jsonWriter>
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+</#if>
+<#if !asyncController && (projections?has_content || (!(keysetCursorGetter??) && !(pageCountMode??)))>
 import com.github.pagehelper.PageHelper;
+</#if>
+<#if !(keysetCursorGetter??) && !(pageCountMode??) && !asyncController && !jsonWriter>
 import com.github.pagehelper.PageInfo;
+</#if>
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.ResponseBody;
 
+<#if streamExport || (jsonWriter && !asyncController)>
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+</#if>
+<#if streamExport>
+import java.io.UncheckedIOException;
+</#if>
+<#if streamExport && jsonWriter>
+import java.io.Writer;
+</#if>
+<#if (keysetCursorGetter?? || pageCountMode??) && !jsonWriter>
+import java.util.HashMap;
+</#if>
 import java.util.List;
+<#if (keysetCursorGetter?? || pageCountMode??) && !jsonWriter>
+import java.util.Map;
+</#if>
+<#if asyncController>
+import java.util.concurrent.CompletableFuture;
+</#if>
+<#if pageCountMode??>
+<#-- 分页列表的总行数: none 不统计, cached 缓存的 COUNT(*), estimate 表统计信息 -->
+<#assign pageTotal = {"none": "null", "cached": modelNameLowerCamel + "Service.countCached()",
+        "estimate": modelNameLowerCamel + "Service.countEstimated()"}[pageCountMode]>
+<#assign pageTotalAsync = {"none": "CompletableFuture.completedFuture((Long) null)", "cached": modelNameLowerCamel + "Service.countCachedAsync()",
+        "estimate": modelNameLowerCamel + "Service.countEstimatedAsync()"}[pageCountMode]>
+<#assign pageTotalDoc = {"none": "不统计, 为 null", "cached": "缓存一段时间的 COUNT(*)", "estimate": "表统计信息中的估算行数"}[pageCountMode]>
+</#if>
 
 /**
  *
@@ -27,7 +75,109 @@ public class ${modelNameUpperCamel}Controller {
 
     @Autowired
     ${modelNameUpperCamel}Service ${modelNameLowerCamel}Service;
+<#if streamExport && !jsonWriter>
+
+    @Autowired
+    ObjectMapper objectMapper;
+</#if>
 
+<#if asyncController>
+    /**
+     * 以下接口为异步接口, 数据库调用在 dbExecutor 中执行, 不占用 Servlet 线程
+     */
+    @RequestMapping("add")
+    @ResponseBody
+    public CompletableFuture<String> add(${modelNameUpperCamel} ${modelNameLowerCamel}) {
+        return ${modelNameLowerCamel}Service.saveAsync(${modelNameLowerCamel}).thenApply(v -> "");
+    }
+
+    @RequestMapping("delete")
+    @ResponseBody
+    public CompletableFuture<String> delete(@RequestParam Integer id) {
+        return ${modelNameLowerCamel}Service.deleteByIdAsync(id).thenApply(v -> "");
+    }
+
+    @RequestMapping("update")
+    @ResponseBody
+    public CompletableFuture<String> update(${modelNameUpperCamel} ${modelNameLowerCamel}) {
+        return ${modelNameLowerCamel}Service.updateAsync(${modelNameLowerCamel}).thenApply(v -> "");
+    }
+
+<#if jsonWriter>
+    @RequestMapping(value = "detail", produces = "application/json;charset=UTF-8")
+    @ResponseBody
+    public CompletableFuture<String> detail(@RequestParam Integer id) {
+        return ${modelNameLowerCamel}Service.findByIdAsync(id).thenApply(${modelNameUpperCamel}JsonWriter::toJson);
+    }
+<#else>
+    @RequestMapping("detail")
+    @ResponseBody
+    public CompletableFuture<String> detail(@RequestParam Integer id) {
+        return ${modelNameLowerCamel}Service.findByIdAsync(id).thenApply(${modelNameUpperCamel}::toString);
+    }
+</#if>
+
+<#if keysetCursorGetter??>
+    /**
+     * 键集分页, 返回本页数据和下一页的 cursor, 已是最后一页时 cursor 为 null
+     */
+<#if jsonWriter>
+    @RequestMapping(value = "list", produces = "application/json;charset=UTF-8")
+    @ResponseBody
+    public CompletableFuture<String> list(@RequestParam(required = false) Long cursor, @RequestParam(defaultValue = "20") Integer size) {
+        return ${modelNameLowerCamel}Service.findAfterAsync(cursor, size).thenApply(list -> ${modelNameUpperCamel}JsonWriter.toCursorPageJson(list,
+                list.size() < size ? null : list.get(list.size() - 1).${keysetCursorGetter}()));
+    }
+<#else>
+    @RequestMapping("list")
+    @ResponseBody
+    public CompletableFuture<Map<String, Object>> list(@RequestParam(required = false) Long cursor, @RequestParam(defaultValue = "20") Integer size) {
+        return ${modelNameLowerCamel}Service.findAfterAsync(cursor, size).thenApply(list -> {
+            Map<String, Object> result = new HashMap<>();
+            result.put("list", list);
+            result.put("cursor", list.size() < size ? null : list.get(list.size() - 1).${keysetCursorGetter}());
+            return result;
+        });
+    }
+</#if>
+<#elseif pageCountMode??>
+    /**
+     * 分页查询不执行 COUNT(*), total ${pageTotalDoc}, exact 为 false
+     */
+<#if jsonWriter>
+    @RequestMapping(value = "list", produces = "application/json;charset=UTF-8")
+    @ResponseBody
+    public CompletableFuture<String> list(@RequestParam(defaultValue = "0") Integer page, @RequestParam(defaultValue = "0") Integer size) {
+        return ${modelNameLowerCamel}Service.findPageWithoutCountAsync(page, size).thenCombine(${pageTotalAsync},
+                (list, total) -> ${modelNameUpperCamel}JsonWriter.toPageJson(list, total, false));
+    }
+<#else>
+    @RequestMapping("list")
+    @ResponseBody
+    public CompletableFuture<Map<String, Object>> list(@RequestParam(defaultValue = "0") Integer page, @RequestParam(defaultValue = "0") Integer size) {
+        return ${modelNameLowerCamel}Service.findPageWithoutCountAsync(page, size).thenCombine(${pageTotalAsync}, (list, total) -> {
+            Map<String, Object> result = new HashMap<>();
+            result.put("list", list);
+            result.put("total", total);
+            result.put("exact", false);
+            return result;
+        });
+    }
+</#if>
+<#elseif jsonWriter>
+    @RequestMapping(value = "list", produces = "application/json;charset=UTF-8")
+    @ResponseBody
+    public CompletableFuture<String> list(@RequestParam(defaultValue = "0") Integer page, @RequestParam(defaultValue = "0") Integer size) {
+        return ${modelNameLowerCamel}Service.findPageAsync(page, size).thenApply(${modelNameUpperCamel}JsonWriter::toJson);
+    }
+<#else>
+    @RequestMapping("list")
+    @ResponseBody
+    public CompletableFuture<String> list(@RequestParam(defaultValue = "0") Integer page, @RequestParam(defaultValue = "0") Integer size) {
+        return ${modelNameLowerCamel}Service.findPageAsync(page, size).thenApply(List::toString);
+    }
+</#if>
+<#else>
     @RequestMapping("add")
     @ResponseBody
     public String add(${modelNameUpperCamel} ${modelNameLowerCamel}) {
@@ -49,6 +199,52 @@ public class ${modelNameUpperCamel}Controller {
 	    return "";
     }
 
+<#if jsonWriter>
+    /**
+     * 以下查询接口通过 ${modelNameUpperCamel}JsonWriter 直接写入响应
+     */
+    @RequestMapping("detail")
+    public void detail(@RequestParam Integer id, HttpServletResponse response) throws IOException {
+        ${modelNameUpperCamel} ${modelNameLowerCamel} = ${modelNameLowerCamel}Service.findById(id);
+        response.setContentType("application/json;charset=UTF-8");
+        ${modelNameUpperCamel}JsonWriter.write(${modelNameLowerCamel}, response.getWriter());
+    }
+
+<#if keysetCursorGetter??>
+    /**
+     * 键集分页, 返回本页数据和下一页的 cursor, 已是最后一页时 cursor 为 null
+     */
+    @RequestMapping("list")
+    public void list(@RequestParam(required = false) Long cursor, @RequestParam(defaultValue = "20") Integer size,
+                     HttpServletResponse response) throws IOException {
+        List<${modelNameUpperCamel}> list = ${modelNameLowerCamel}Service.findAfter(cursor, size);
+        response.setContentType("application/json;charset=UTF-8");
+        ${modelNameUpperCamel}JsonWriter.writeCursorPage(list, list.size() < size ? null : list.get(list.size() - 1).${keysetCursorGetter}(),
+                response.getWriter());
+    }
+<#elseif pageCountMode??>
+    /**
+     * 分页查询不执行 COUNT(*), total ${pageTotalDoc}, exact 为 false
+     */
+    @RequestMapping("list")
+    public void list(@RequestParam(defaultValue = "0") Integer page, @RequestParam(defaultValue = "0") Integer size,
+                     HttpServletResponse response) throws IOException {
+        List<${modelNameUpperCamel}> list = ${modelNameLowerCamel}Service.findPageWithoutCount(page, size);
+        Long total = ${pageTotal};
+        response.setContentType("application/json;charset=UTF-8");
+        ${modelNameUpperCamel}JsonWriter.writePage(list, total, false, response.getWriter());
+    }
+<#else>
+    @RequestMapping("list")
+    public void list(@RequestParam(defaultValue = "0") Integer page, @RequestParam(defaultValue = "0") Integer size,
+                     HttpServletResponse response) throws IOException {
+        PageHelper.startPage(page, size);
+        List<${modelNameUpperCamel}> list = ${modelNameLowerCamel}Service.findAll();
+        response.setContentType("application/json;charset=UTF-8");
+        ${modelNameUpperCamel}JsonWriter.write(list, response.getWriter());
+    }
+</#if>
+<#else>
     @RequestMapping("detail")
     @ResponseBody
     public String detail(@RequestParam Integer id) {
@@ -56,6 +252,34 @@ public class ${modelNameUpperCamel}Controller {
         return ${modelNameLowerCamel}.toString();
     }
 
+<#if keysetCursorGetter??>
+    /**
+     * 键集分页, 返回本页数据和下一页的 cursor, 已是最后一页时 cursor 为 null
+     */
+    @RequestMapping("list")
+    @ResponseBody
+    public Map<String, Object> list(@RequestParam(required = false) Long cursor, @RequestParam(defaultValue = "20") Integer size) {
+        List<${modelNameUpperCamel}> list = ${modelNameLowerCamel}Service.findAfter(cursor, size);
+        Map<String, Object> result = new HashMap<>();
+        result.put("list", list);
+        result.put("cursor", list.size() < size ? null : list.get(list.size() - 1).${keysetCursorGetter}());
+        return result;
+    }
+<#elseif pageCountMode??>
+    /**
+     * 分页查询不执行 COUNT(*), total ${pageTotalDoc}, exact 为 false
+     */
+    @RequestMapping("list")
+    @ResponseBody
+    public Map<String, Object> list(@RequestParam(defaultValue = "0") Integer page, @RequestParam(defaultValue = "0") Integer size) {
+        List<${modelNameUpperCamel}> list = ${modelNameLowerCamel}Service.findPageWithoutCount(page, size);
+        Map<String, Object> result = new HashMap<>();
+        result.put("list", list);
+        result.put("total", ${pageTotal});
+        result.put("exact", false);
+        return result;
+    }
+<#else>
     @RequestMapping("list")
     @ResponseBody
     public String list(@RequestParam(defaultValue = "0") Integer page, @RequestParam(defaultValue = "0") Integer size) {
@@ -64,4 +288,59 @@ public class ${modelNameUpperCamel}Controller {
         PageInfo pageInfo = new PageInfo(list);
         return list.toString();
     }
+</#if>
+</#if>
+<#list projections as projection>
+
+    /**
+     * 分页查询 ${projection.name} 投影, 只读取字段 ${projection.columnNames}, 不统计总行数
+     */
+    @RequestMapping("list/${projection.name?uncap_first}")
+    @ResponseBody
+    public List<${projection.className}> list${projection.name}(@RequestParam(defaultValue = "0") Integer page, @RequestParam(defaultValue = "0") Integer size) {
+        PageHelper.startPage(page, size, false);
+        return ${modelNameLowerCamel}Service.find${projection.name}All();
+    }
+</#list>
+</#if>
+<#if streamExport>
+
+    /**
+     * 导出全表为 JSON 数组, 按游标边读边写, 内存占用与表大小无关
+     */
+    @RequestMapping("export")
+    public void export(HttpServletResponse response) throws IOException {
+        response.setContentType("application/json;charset=UTF-8");
+<#if jsonWriter>
+        Writer out = response.getWriter();
+        int[] rows = {0};
+        out.write('[');
+        ${modelNameLowerCamel}Service.streamAll(${modelNameLowerCamel} -> {
+            try {
+                if (rows[0]++ > 0) {
+                    out.write(',');
+                }
+                ${modelNameUpperCamel}JsonWriter.write(${modelNameLowerCamel}, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        out.write(']');
+<#else>
+        // 逐行序列化时不刷新输出, 由 JsonGenerator 的缓冲区按块写出
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            ${modelNameLowerCamel}Service.streamAll(${modelNameLowerCamel} -> {
+                try {
+                    writer.writeValue(generator, ${modelNameLowerCamel});
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        }
+</#if>
+    }
+</#if>
 }
@@ -0,0 +1,151 @@
+<#if sign?? && sign != ''>
+package ${basePackage}.model.${sign};
+
+import ${basePackage}.model.JsonSupport;
+<#else>
+package ${basePackage}.model;
+</#if>
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+<#if jsonBase64>
+import java.util.Base64;
+</#if>
+import java.util.List;
+
+/**
+ * ${modelNameUpperCamel} 的 JSON 输出, 字段按表结构生成, 不使用反射
+ * 输出格式与 Jackson 默认配置一致: 包含 null 字段, 日期为毫秒时间戳, byte[] 为 Base64 字符串
+ * Auto Generated by ${author} on ${date}.
+ */
+public final class ${modelNameUpperCamel}JsonWriter {
+
+    private ${modelNameUpperCamel}JsonWriter() {
+    }
+
+    /**
+     * 输出单个实体
+     * @param model 为 null 时输出 null
+     * @param out
+     * @throws IOException
+     */
+    public static void write(${modelNameUpperCamel} model, Writer out) throws IOException {
+        if (model == null) {
+            out.write("null");
+            return;
+        }
+<#list jsonProperties as property>
+        out.write("${property?is_first?then('{', ',')}\"${property.name}\":");
+<#if property.javaType == "String">
+        JsonSupport.writeString(model.${property.getterName}(), out);
+<#elseif property.javaType == "Date">
+        JsonSupport.writeValue(model.${property.getterName}() == null ? null : model.${property.getterName}().getTime(), out);
+<#elseif property.javaType == "byte[]">
+        JsonSupport.writeString(model.${property.getterName}() == null ? null : Base64.getEncoder().encodeToString(model.${property.getterName}()), out);
+<#elseif property.javaType == "Integer" || property.javaType == "Long" || property.javaType == "Short" || property.javaType == "Byte"
+        || property.javaType == "Boolean" || property.javaType == "BigDecimal" || property.javaType == "Double" || property.javaType == "Float">
+        JsonSupport.writeValue(model.${property.getterName}(), out);
+<#else>
+        JsonSupport.writeString(model.${property.getterName}() == null ? null : model.${property.getterName}().toString(), out);
+</#if>
+</#list>
+<#if jsonProperties?has_content>
+        out.write('}');
+<#else>
+        out.write("{}");
+</#if>
+    }
+
+    /**
+     * 输出实体数组
+     * @param models
+     * @param out
+     * @throws IOException
+     */
+    public static void write(List<${modelNameUpperCamel}> models, Writer out) throws IOException {
+        out.write('[');
+        for (int i = 0; i < models.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            write(models.get(i), out);
+        }
+        out.write(']');
+    }
+
+    /**
+     * 输出键集分页结果: {"list":[...],"cursor":...}
+     * @param models 本页数据
+     * @param cursor 下一页的 cursor, 已是最后一页时为 null
+     * @param out
+     * @throws IOException
+     */
+    public static void writeCursorPage(List<${modelNameUpperCamel}> models, Object cursor, Writer out) throws IOException {
+        out.write("{\"list\":");
+        write(models, out);
+        out.write(",\"cursor\":");
+        JsonSupport.writeValue(cursor, out);
+        out.write('}');
+    }
+
+<#if pageCountMode??>
+    /**
+     * 输出分页结果: {"list":[...],"total":...,"exact":...}
+     * @param models 本页数据
+     * @param total 总行数, 未统计时为 null
+     * @param exact total 是否为精确值
+     * @param out
+     * @throws IOException
+     */
+    public static void writePage(List<${modelNameUpperCamel}> models, Long total, boolean exact, Writer out) throws IOException {
+        out.write("{\"list\":");
+        write(models, out);
+        out.write(",\"total\":");
+        JsonSupport.writeValue(total, out);
+        out.write(exact ? ",\"exact\":true}" : ",\"exact\":false}");
+    }
+
+</#if>
+    public static String toJson(${modelNameUpperCamel} model) {
+        StringWriter out = new StringWriter();
+        try {
+            write(model, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    }
+
+    public static String toJson(List<${modelNameUpperCamel}> models) {
+        StringWriter out = new StringWriter();
+        try {
+            write(models, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    }
+
+    public static String toCursorPageJson(List<${modelNameUpperCamel}> models, Object cursor) {
+        StringWriter out = new StringWriter();
+        try {
+            writeCursorPage(models, cursor, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    }
+<#if pageCountMode??>
+
+    public static String toPageJson(List<${modelNameUpperCamel}> models, Long total, boolean exact) {
+        StringWriter out = new StringWriter();
+        try {
+            writePage(models, total, exact, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    }
+</#if>
+}
@@ -0,0 +1,39 @@
+<#if sign?? && sign != ''>
+package ${basePackage}.model.${sign};
+<#else>
+package ${basePackage}.model;
+</#if>
+<#if projection.imports?has_content>
+
+<#list projection.imports as projectionImport>
+import ${projectionImport};
+</#list>
+</#if>
+
+/**
+ * ${modelNameUpperCamel} 的 ${projection.name} 投影, 只包含字段 ${projection.columnNames}
+ * Auto Generated by ${author} on ${date}.
+ */
+public class ${projection.className} {
+<#list projection.properties as property>
+    private ${property.javaType} ${property.name};
+
+</#list>
+<#list projection.properties as property>
+    /**
+     * @return ${property.columnName}
+     */
+    public ${property.javaType} ${property.getterName}() {
+        return ${property.name};
+    }
+
+    /**
+     * @param ${property.name}
+     */
+    public void ${property.setterName}(${property.javaType} ${property.name}) {
+        this.${property.name} = ${property.name};
+    }
+<#sep>
+
+</#list>
+}
@@ -11,8 +11,39 @@ import ${basePackage}.service.${modelNameUpperCamel}Service;
 </#if>
 
 import ${basePackage}.service.AbstractService;
+<#if batchLoaderKeyGetter??>
+import ${basePackage}.service.BatchLoader;
+</#if>
+<#if cacheKeyGetter??>
+import ${basePackage}.service.EntityCache;
+</#if>
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
+<#list finderImports as finderImport>
+import ${finderImport};
+</#list>
+<#if projections?has_content>
+
+<#list projections as projection>
+<#if sign?? && sign != ''>
+import ${basePackage}.model.${sign}.${projection.className};
+<#else>
+import ${basePackage}.model.${projection.className};
+</#if>
+</#list>
+<#if projectionIdImport?? && !finderImports?seq_contains(projectionIdImport)>
+import ${projectionIdImport};
+</#if>
+<#if projectionIdType??>
+import java.util.Collection;
+import java.util.Collections;
+</#if>
+import java.util.List;
+</#if>
+<#if indexFinders?has_content && !projections?has_content>
+
+import java.util.List;
+</#if>
 
 /**
  *
@@ -24,5 +55,57 @@ implements ${modelNameUpperCamel}Service {
 
     @Autowired
     private ${modelNameUpperCamel}Mapper ${modelNameLowerCamel}Mapper;
+<#if cacheKeyGetter?? || batchLoaderKeyGetter??>
+
+    public ${modelNameUpperCamel}ServiceImpl() {
+<#if cacheKeyGetter??>
+        cache = new EntityCache<>(${cacheMaxSize?c}, ${cacheTtlSeconds?c});
+</#if>
+<#if batchLoaderKeyGetter??>
+        loader = new BatchLoader<>(ids -> mapper.selectByIds(ids), ${modelNameUpperCamel}::${batchLoaderKeyGetter},
+                ${batchLoaderWindowMillis?c}, ${batchLoaderMaxSize?c});
+</#if>
+    }
+</#if>
+<#if cacheKeyGetter??>
+
+    @Override
+    protected Object cacheKey(${modelNameUpperCamel} model) {
+        return model.${cacheKeyGetter}();
+    }
+</#if>
+<#list uniqueFinders as finder>
+
+    @Override
+    public ${modelNameUpperCamel} findBy${finder.upperName}(${finder.javaType} ${finder.name}) {
+        return ${modelNameLowerCamel}Mapper.selectBy${finder.upperName}(${finder.name});
+    }
+</#list>
+<#list indexFinders as finder>
+
+    @Override
+    public <#if finder.unique>${modelNameUpperCamel}<#else>List<${modelNameUpperCamel}></#if> findBy${finder.name}(${finder.parameters}) {
+        return ${modelNameLowerCamel}Mapper.selectBy${finder.name}(${finder.arguments});
+    }
+</#list>
+<#list projections as projection>
+
+    @Override
+    public List<${projection.className}> find${projection.name}All() {
+        return ${modelNameLowerCamel}Mapper.select${projection.name}All();
+    }
+<#if projectionIdType??>
+
+    @Override
+    public ${projection.className} find${projection.name}ById(${projectionIdType} id) {
+        return ${modelNameLowerCamel}Mapper.select${projection.name}ByPrimaryKey(id);
+    }
+
+    @Override
+    public List<${projection.className}> find${projection.name}ByIds(Collection<${projectionIdType}> ids) {
+        return ids.isEmpty() ? Collections.<${projection.className}>emptyList() : ${modelNameLowerCamel}Mapper.select${projection.name}ByIds(ids);
+    }
+</#if>
+</#list>
 
 }
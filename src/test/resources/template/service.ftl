@@ -7,11 +7,97 @@ import ${basePackage}.model.${modelNameUpperCamel};
 </#if>
 
 import ${basePackage}.service.Service;
+<#if asyncController>
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+</#if>
+<#list finderImports as finderImport>
+import ${finderImport};
+</#list>
+<#if projections?has_content>
+
+<#list projections as projection>
+import ${basePackage}.model.<#if sign?? && sign != ''>${sign}.</#if>${projection.className};
+</#list>
+<#if projectionIdImport?? && !finderImports?seq_contains(projectionIdImport)>
+import ${projectionIdImport};
+</#if>
+<#if projectionIdType??>
+import java.util.Collection;
+</#if>
+<#if !asyncController>
+import java.util.List;
+</#if>
+</#if>
+<#if indexFinders?has_content && !asyncController && !projections?has_content>
+
+import java.util.List;
+</#if>
 
 /**
  *
  * Auto Generated by ${author} on ${date}.
  */
 public interface ${modelNameUpperCamel}Service extends Service<${modelNameUpperCamel}> {
+<#list uniqueFinders as finder>
+
+    /**
+     * 通过唯一索引字段 ${finder.columnName} 查询
+     */
+    ${modelNameUpperCamel} findBy${finder.upperName}(${finder.javaType} ${finder.name});
+</#list>
+<#list indexFinders as finder>
+
+    /**
+     * 使用索引 ${finder.indexName} 查询: ${finder.condition}
+     */
+    <#if finder.unique>${modelNameUpperCamel}<#else>List<${modelNameUpperCamel}></#if> findBy${finder.name}(${finder.parameters});
+</#list>
+<#list projections as projection>
+
+    /**
+     * 获取所有 ${projection.name} 投影, 只读取字段 ${projection.columnNames}
+     */
+    List<${projection.className}> find${projection.name}All();
+<#if projectionIdType??>
+
+    ${projection.className} find${projection.name}ById(${projectionIdType} id);
+
+    List<${projection.className}> find${projection.name}ByIds(Collection<${projectionIdType}> ids);
+</#if>
+</#list>
+<#if asyncController>
+
+    /**
+     * 以下异步方法在 dbExecutor 中调用对应的同步方法, 供异步 Controller 使用
+     */
+    CompletableFuture<Void> saveAsync(${modelNameUpperCamel} model);
+
+    CompletableFuture<Void> deleteByIdAsync(Integer id);
+
+    CompletableFuture<Void> updateAsync(${modelNameUpperCamel} model);
+
+    CompletableFuture<${modelNameUpperCamel}> findByIdAsync(Integer id);
+
+    /**
+     * 异步分页查询, PageHelper 的分页参数在执行线程中设置
+     */
+    CompletableFuture<List<${modelNameUpperCamel}>> findPageAsync(int page, int size);
+<#if keysetPagination>
+
+    CompletableFuture<List<${modelNameUpperCamel}>> findAfterAsync(Long lastId, int limit);
+</#if>
+<#if pageCount>
+
+    CompletableFuture<List<${modelNameUpperCamel}>> findPageWithoutCountAsync(int page, int size);
+
+    CompletableFuture<Long> countCachedAsync();
+<#if estimateCount>
+
+    CompletableFuture<Long> countEstimatedAsync();
+</#if>
+</#if>
+</#if>
 
 }